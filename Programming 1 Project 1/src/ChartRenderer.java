@@ -0,0 +1,160 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import javax.imageio.ImageIO;
+
+/**
+ * The Class ChartRenderer, which renders a StudentChart to an image without using the shared canvas.
+ *
+ * The whole chart is worked out as a list of rectangles first, then filled into an off-screen image in one go, rather than moving a Bar on screen for each rectangle.
+ * No window is needed, so charts can be rendered on a server without a display, and many charts can be rendered at the same time.
+ *
+ * @author Wilfrid Askins
+ */
+public class ChartRenderer {
+	
+	/** The colour behind the chart, which matches the canvas. */
+	private static final Color BACKGROUND = Color.WHITE;
+	
+	/**
+	 * Instantiates a new chart renderer.
+	 */
+	public ChartRenderer(){
+		super();
+	}
+	
+	/**
+	 * Renders a chart to an image the size of the canvas.
+	 *
+	 * @param chart the chart to render
+	 * @return the image
+	 */
+	public BufferedImage render(StudentChart chart){
+		
+		int size = StudentChart.getCanvasSize();
+		BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = image.createGraphics();
+		
+		try{
+			// Clears the image, the same as the canvas is cleared
+			graphics.setColor(BACKGROUND);
+			graphics.fillRect(0, 0, size, size);
+			
+			// Fills each rectangle in the order it would be drawn on the canvas
+			for(StudentChart.Shape shape : chart.getShapes()){
+				graphics.setColor(toColor(shape.getColour()));
+				graphics.fillRect(shape.getX(), shape.getY(), shape.getWidth(), shape.getHeight());
+			}
+		}finally{
+			graphics.dispose();
+		}
+		
+		return image;
+	}
+	
+	/**
+	 * Renders a chart and writes it to a PNG file.
+	 *
+	 * @param chart the chart to render
+	 * @param file the file to write to
+	 * @throws IOException if the file couldn't be written
+	 */
+	public void writePng(StudentChart chart, File file) throws IOException{
+		
+		if(!ImageIO.write(render(chart), "png", file)){
+			throw new IOException("No PNG writer is available");
+		}
+	}
+	
+	/**
+	 * Finds the AWT colour for a Colour. Colours are matched by name, the same way the Bar class names them to the canvas.
+	 *
+	 * @param colour the colour
+	 * @return the AWT colour, or black if the colour's name isn't recognised
+	 */
+	static Color toColor(Colour colour){
+		
+		switch(colour.toString().toLowerCase()){
+			case "red":
+				return Color.RED;
+			case "blue":
+				return Color.BLUE;
+			case "yellow":
+				return Color.YELLOW;
+			case "green":
+				return Color.GREEN;
+			case "magenta":
+				return Color.MAGENTA;
+			case "white":
+				return Color.WHITE;
+			default:
+				return Color.BLACK;
+		}
+	}
+	
+	/**
+	 * The main method, which renders a chart for each student in a cohort of random marks in parallel, and shows how many charts were rendered each second.
+	 *
+	 * @param args the number of students, which is 10000 if it isn't given, then optionally a directory to write each chart to as a PNG file
+	 * @throws IOException if a chart couldn't be written
+	 */
+	public static void main(String[] args) throws IOException{
+		
+		// No window is opened, so this can run without a display
+		System.setProperty("java.awt.headless", "true");
+		
+		int students = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+		File directory = args.length > 1 ? new File(args[1]) : null;
+		
+		if(directory != null && !directory.isDirectory() && !directory.mkdirs()){
+			throw new IOException("Couldn't create " + directory);
+		}
+		
+		// Random marks, with the same seed so every run renders the same charts
+		Module[] modules = ModuleList.getModules();
+		ModuleMark[][] cohort = new ModuleMark[students][modules.length];
+		Random random = new Random(1021);
+		
+		for(ModuleMark[] marks : cohort){
+			for(int m = 0; m < modules.length; m++){
+				marks[m] = new ModuleMark(modules[m], 20 + random.nextInt(81), 20 + random.nextInt(81));
+			}
+		}
+		
+		ChartRenderer renderer = new ChartRenderer();
+		
+		// Renders some charts first, so the rendering has been compiled before it is timed
+		for(int i = 0; i < Math.min(students, 1000); i++){
+			renderer.render(new StudentChart(cohort[i]));
+		}
+		
+		// Adds up a pixel from each chart, so the rendering can't be skipped
+		AtomicLong checksum = new AtomicLong();
+		long start = System.nanoTime();
+		
+		IntStream.range(0, students).parallel().forEach(s -> {
+			
+			StudentChart chart = new StudentChart(cohort[s]);
+			
+			try{
+				if(directory != null){
+					renderer.writePng(chart, new File(directory, "student" + s + ".png"));
+				}else{
+					checksum.addAndGet(renderer.render(chart).getRGB(StudentChart.getCanvasSize() / 2, StudentChart.getCanvasSize() / 2));
+				}
+			}catch(IOException e){
+				throw new IllegalStateException("Couldn't write the chart for student " + s, e);
+			}
+		});
+		
+		long time = System.nanoTime() - start;
+		
+		System.out.println("Rendered " + students + " charts in " + (time / 1000000) + "ms (" + (long) (students / (time / 1e9)) + " charts per second)");
+	}
+}
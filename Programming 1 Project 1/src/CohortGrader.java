@@ -0,0 +1,308 @@
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * The Class CohortGrader, which grades a whole cohort of students at once, when given their exam and coursework marks as flat arrays.
+ * 
+ * Every student takes the same modules, so the marks are stored one student after another, with the mark for student s in module m at position s * modules + m.
+ * Each computed mark is worked out once, and its module result and the student's stage result are found in the same pass over the student's marks.
+ * Students are graded in parallel, as no student's result depends on any other's.
+ * 
+ * @author Wilfrid Askins
+ */
+public class CohortGrader {
+	
+	/** The modules every student in the cohort takes. */
+	private final Module[] modules;
+	
+	/** Whether each module is core, so the modules aren't read again for every student. */
+	private final boolean[] core;
+	
+	/** The credits each module is worth. */
+	private final int[] credits;
+	
+	/**
+	 * Instantiates a new cohort grader.
+	 *
+	 * @param modules the modules every student in the cohort takes
+	 */
+	public CohortGrader(Module[] modules){
+		super();
+		
+		if(modules.length == 0){
+			throw new IllegalArgumentException("A cohort must take at least one module");
+		}
+		
+		this.modules = modules.clone();
+		this.core = new boolean[modules.length];
+		this.credits = new int[modules.length];
+		
+		for(int m = 0; m < modules.length; m++){
+			this.core[m] = modules[m].isCore();
+			this.credits[m] = modules[m].getCredits();
+		}
+	}
+	
+	/**
+	 * Grades every student in the cohort.
+	 *
+	 * @param courseworkMarks the coursework marks, with each student's marks in the same order as the modules
+	 * @param examMarks the exam marks, in the same order as the coursework marks
+	 * @return the grades
+	 */
+	public Grades grade(int[] courseworkMarks, int[] examMarks){
+		
+		if(courseworkMarks.length != examMarks.length || courseworkMarks.length % modules.length != 0){
+			throw new IllegalArgumentException("There must be a coursework and exam mark for each student in each module");
+		}
+		
+		return grade(courseworkMarks, examMarks, courseworkMarks.length / modules.length);
+	}
+	
+	/**
+	 * Grades the first students in the arrays, so the same arrays can be reused for each batch of a cohort.
+	 *
+	 * @param courseworkMarks the coursework marks, with each student's marks in the same order as the modules
+	 * @param examMarks the exam marks, in the same order as the coursework marks
+	 * @param students the number of students to grade
+	 * @return the grades
+	 */
+	public Grades grade(int[] courseworkMarks, int[] examMarks, int students){
+		
+		if(students < 0 || courseworkMarks.length < students * modules.length || examMarks.length < students * modules.length){
+			throw new IllegalArgumentException("There must be a coursework and exam mark for each student in each module");
+		}
+		
+		Grades grades = new Grades(modules.length, students);
+		
+		// Each student only writes to their own part of the arrays, so they can be graded at the same time
+		IntStream.range(0, grades.getStudentCount()).parallel().forEach(student -> gradeStudent(student, courseworkMarks, examMarks, grades));
+		
+		return grades;
+	}
+	
+	/**
+	 * Grades one student, finding their computed marks, module results and stage result.
+	 *
+	 * @param student the position of the student in the cohort
+	 * @param courseworkMarks the coursework marks of the cohort
+	 * @param examMarks the exam marks of the cohort
+	 * @param grades the grades to write the student's results to
+	 */
+	private void gradeStudent(int student, int[] courseworkMarks, int[] examMarks, Grades grades){
+		
+		// These are the same as in MarkCalculator.computeResult
+		boolean containsFail = false; // True if one or more modules were failed
+		boolean allPass = true; // True if every module was passed
+		int sumOfStageMarks = 0; // A sum of all computed marks
+		int compFailNumber = 0; // Number of modules with compensatable fails
+		int compFailCredits = 0; // The sum of credits the compensatable fail modules are worth
+		
+		int first = student * modules.length;
+		
+		for(int m = 0; m < modules.length; m++){
+			
+			int i = first + m;
+			
+			// Compute the mark once, then find the result from it
+			int computedMark = modules[m].getComputedModuleMark(courseworkMarks[i], examMarks[i]);
+			ModuleResult result = ModuleResult.forMark(computedMark, core[m]);
+			
+			grades.computedMarks[i] = computedMark;
+			grades.moduleResults[i] = result;
+			
+			sumOfStageMarks += computedMark;
+			
+			if(result == ModuleResult.FAIL){
+				allPass = false;
+				containsFail = true;
+			}else if(result == ModuleResult.COMPENSATABLE_FAIL){
+				allPass = false;
+				compFailNumber++;
+				compFailCredits += credits[m];
+			}
+		}
+		
+		grades.stageResults[student] = MarkCalculator.decideStageResult(allPass, containsFail, sumOfStageMarks / modules.length, compFailNumber, compFailCredits);
+	}
+	
+	/**
+	 * Gets the modules every student in the cohort takes.
+	 *
+	 * @return the modules
+	 */
+	public Module[] getModules(){
+		return modules.clone();
+	}
+	
+	/**
+	 * The Class Grades, which holds the results of a cohort, in the same order as the marks they were graded from.
+	 */
+	public static class Grades{
+		
+		/** The number of modules each student takes. */
+		private final int moduleCount;
+		
+		/** The computed mark of each student in each module. */
+		private final int[] computedMarks;
+		
+		/** The result of each student in each module. */
+		private final ModuleResult[] moduleResults;
+		
+		/** The stage result of each student. */
+		private final MarkCalculator.StageResult[] stageResults;
+		
+		/**
+		 * Instantiates new grades, with room for every student's results.
+		 *
+		 * @param moduleCount the number of modules each student takes
+		 * @param studentCount the number of students
+		 */
+		private Grades(int moduleCount, int studentCount){
+			super();
+			this.moduleCount = moduleCount;
+			this.computedMarks = new int[moduleCount * studentCount];
+			this.moduleResults = new ModuleResult[moduleCount * studentCount];
+			this.stageResults = new MarkCalculator.StageResult[studentCount];
+		}
+		
+		/**
+		 * Gets the number of students graded.
+		 *
+		 * @return the number of students
+		 */
+		public int getStudentCount(){
+			return stageResults.length;
+		}
+		
+		/**
+		 * Gets a student's computed mark in a module.
+		 *
+		 * @param student the position of the student in the cohort
+		 * @param module the position of the module
+		 * @return the computed mark
+		 */
+		public int getComputedMark(int student, int module){
+			return computedMarks[student * moduleCount + module];
+		}
+		
+		/**
+		 * Gets a student's result in a module.
+		 *
+		 * @param student the position of the student in the cohort
+		 * @param module the position of the module
+		 * @return the module result
+		 */
+		public ModuleResult getModuleResult(int student, int module){
+			return moduleResults[student * moduleCount + module];
+		}
+		
+		/**
+		 * Gets a student's stage result.
+		 *
+		 * @param student the position of the student in the cohort
+		 * @return the stage result
+		 */
+		public MarkCalculator.StageResult getStageResult(int student){
+			return stageResults[student];
+		}
+		
+		/**
+		 * Counts how many students were given a stage result.
+		 *
+		 * @param result the stage result
+		 * @return the number of students
+		 */
+		public int count(MarkCalculator.StageResult result){
+			
+			int count = 0;
+			
+			for(MarkCalculator.StageResult stageResult : stageResults){
+				if(stageResult == result){
+					count++;
+				}
+			}
+			
+			return count;
+		}
+	}
+	
+	/**
+	 * The main method, which grades a cohort of random marks both with a CohortGrader and one student at a time with a MarkCalculator,
+	 * checks they give the same results, and shows how long each took.
+	 *
+	 * @param args the number of students in the cohort, which is 200000 if it isn't given
+	 */
+	public static void main(String[] args){
+		
+		int students = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+		Module[] modules = ModuleList.getModules();
+		
+		// Random marks, with the same seed so every run grades the same cohort
+		Random random = new Random(1021);
+		int[] courseworkMarks = new int[students * modules.length];
+		int[] examMarks = new int[students * modules.length];
+		
+		for(int i = 0; i < courseworkMarks.length; i++){
+			courseworkMarks[i] = 20 + random.nextInt(81);
+			examMarks[i] = 20 + random.nextInt(81);
+		}
+		
+		// Grade the cohort a few times first, so both ways have been compiled before they are timed
+		CohortGrader grader = new CohortGrader(modules);
+		MarkCalculator calculator = new MarkCalculator();
+		
+		for(int i = 0; i < 5; i++){
+			grader.grade(courseworkMarks, examMarks);
+			gradeOneAtATime(calculator, modules, courseworkMarks, examMarks);
+		}
+		
+		long start = System.nanoTime();
+		Grades grades = grader.grade(courseworkMarks, examMarks);
+		long cohortTime = System.nanoTime() - start;
+		
+		start = System.nanoTime();
+		MarkCalculator.StageResult[] expected = gradeOneAtATime(calculator, modules, courseworkMarks, examMarks);
+		long oneAtATimeTime = System.nanoTime() - start;
+		
+		for(int s = 0; s < students; s++){
+			if(grades.getStageResult(s) != expected[s]){
+				throw new IllegalStateException("Student " + s + " was given " + grades.getStageResult(s) + " instead of " + expected[s]);
+			}
+		}
+		
+		System.out.println("Graded " + students + " students: " + grades.count(MarkCalculator.StageResult.PASS) + " passed, "
+				+ grades.count(MarkCalculator.StageResult.PASS_BY_COMPENSATION) + " passed by compensation and "
+				+ grades.count(MarkCalculator.StageResult.FAIL) + " failed.");
+		System.out.println("Cohort grader: " + (cohortTime / 1000000) + "ms");
+		System.out.println("One at a time: " + (oneAtATimeTime / 1000000) + "ms");
+	}
+	
+	/**
+	 * Grades a cohort one student at a time, with a ModuleMark for each of their marks.
+	 *
+	 * @param calculator the mark calculator
+	 * @param modules the modules every student takes
+	 * @param courseworkMarks the coursework marks of the cohort
+	 * @param examMarks the exam marks of the cohort
+	 * @return the stage result of each student
+	 */
+	private static MarkCalculator.StageResult[] gradeOneAtATime(MarkCalculator calculator, Module[] modules, int[] courseworkMarks, int[] examMarks){
+		
+		MarkCalculator.StageResult[] results = new MarkCalculator.StageResult[courseworkMarks.length / modules.length];
+		
+		for(int s = 0; s < results.length; s++){
+			
+			ModuleMark[] marks = new ModuleMark[modules.length];
+			
+			for(int m = 0; m < modules.length; m++){
+				int i = s * modules.length + m;
+				marks[m] = new ModuleMark(modules[m], examMarks[i], courseworkMarks[i]);
+			}
+			
+			results[s] = calculator.computeResult(marks);
+		}
+		
+		return results;
+	}
+}
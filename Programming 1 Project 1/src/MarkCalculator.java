@@ -49,17 +49,20 @@ public class MarkCalculator{
 		
 		for(ModuleMark mark : marks){
 			
+			// The mark and result were worked out when the ModuleMark was created
+			ModuleResult result = mark.getResult();
+			
 			sumOfStageMarks += mark.getComputedModuleMark();
 			
-			if(mark.getResult() != ModuleResult.PASS){
+			if(result != ModuleResult.PASS){
 				// This student hasn't achieved all passes
 				allPass = false;
 			}
 			
-			if(mark.getResult() == ModuleResult.FAIL){
+			if(result == ModuleResult.FAIL){
 				// This student has a module they have failed
 				containsFail = true;
-			}else if(mark.getResult() == ModuleResult.COMPENSATABLE_FAIL){
+			}else if(result == ModuleResult.COMPENSATABLE_FAIL){
 				// If this module is a compensatable fail
 				compFailNumber++;
 				compFailCredits += mark.getModule().getCredits();
@@ -67,8 +70,20 @@ public class MarkCalculator{
 			
 		}
 		
-		// The average mark number the student has got for all modules in this stage
-		int stageAverage = sumOfStageMarks / marks.length;
+		return decideStageResult(allPass, containsFail, sumOfStageMarks / marks.length, compFailNumber, compFailCredits);
+	}
+	
+	/**
+	 * Decides the stage result from a summary of a student's module results. This is shared by computeResult and CohortGrader, so both give the same results.
+	 *
+	 * @param allPass whether every module was passed
+	 * @param containsFail whether one or more modules were failed
+	 * @param stageAverage the average computed mark of all modules in this stage
+	 * @param compFailNumber the number of modules with compensatable fails
+	 * @param compFailCredits the sum of credits the compensatable fail modules are worth
+	 * @return the stage result the student should be given
+	 */
+	public static StageResult decideStageResult(boolean allPass, boolean containsFail, int stageAverage, int compFailNumber, int compFailCredits){
 		
 		if(allPass){
 			// If all the modules were passes
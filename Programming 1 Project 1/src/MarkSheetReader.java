@@ -0,0 +1,300 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The Class MarkSheetReader, which reads the marks of a cohort from a CSV mark sheet, a batch of students at a time.
+ *
+ * Each line of the sheet is one student. It starts with the student's name or number, followed by their exam mark and coursework mark for each module, in the order of the module list.
+ * Modules without an exam still have an exam column, which is ignored. Blank lines are skipped.
+ * The sheet is read straight from its bytes through a small buffer, checking each mark as it is read, so only one batch of students is ever held in memory.
+ *
+ * @author Wilfrid Askins
+ */
+public class MarkSheetReader implements Closeable {
+	
+	/** The size of the buffer the sheet is read through. */
+	private static final int BUFFER_SIZE = 64 * 1024;
+	
+	/** The longest a student's name or number can be, in bytes. */
+	private static final int MAX_STUDENT_LENGTH = 256;
+	
+	/** The input the sheet is read from. */
+	private final InputStream in;
+	
+	/** The modules every student takes. */
+	private final Module[] modules;
+	
+	/** The bytes read from the input which haven't been parsed yet. */
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+	
+	/** The bytes of the student being read. */
+	private final byte[] student = new byte[MAX_STUDENT_LENGTH];
+	
+	/** The position of the next byte to parse in the buffer. */
+	private int position;
+	
+	/** The number of bytes in the buffer. */
+	private int limit;
+	
+	/** The number of the line being read, starting from 1. */
+	private int line = 1;
+	
+	/**
+	 * Instantiates a new mark sheet reader.
+	 *
+	 * @param in the input to read the sheet from, which is closed when the reader is closed
+	 * @param modules the modules every student takes
+	 */
+	public MarkSheetReader(InputStream in, Module[] modules){
+		super();
+		this.in = in;
+		this.modules = modules.clone();
+	}
+	
+	/**
+	 * Reads the next batch of students. The marks are stored one student after another, in the order CohortGrader expects.
+	 *
+	 * @param students the array to store each student's name or number in, which also decides how many students are read
+	 * @param courseworkMarks the array to store the coursework marks in, which must have room for every module of every student
+	 * @param examMarks the array to store the exam marks in, the same size as the coursework marks
+	 * @return the number of students read, which is 0 once the whole sheet has been read
+	 * @throws IOException if the sheet couldn't be read, or a line isn't in the right format
+	 */
+	public int read(String[] students, int[] courseworkMarks, int[] examMarks) throws IOException{
+		
+		if(courseworkMarks.length < students.length * modules.length || examMarks.length < students.length * modules.length){
+			throw new IllegalArgumentException("There must be room for a coursework and exam mark for each student in each module");
+		}
+		
+		int count = 0;
+		
+		while(count < students.length && skipBlankLines()){
+			
+			students[count] = readStudent();
+			
+			for(int m = 0; m < modules.length; m++){
+				
+				int i = count * modules.length + m;
+				
+				// An exam mark is only kept if the module has an exam, the same as when they are typed in
+				int examMark = readMark(false);
+				examMarks[i] = modules[m].getHasExam() ? examMark : 0;
+				courseworkMarks[i] = readMark(m == modules.length - 1);
+			}
+			
+			endLine();
+			count++;
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * Skips over any blank lines before the next student.
+	 *
+	 * @return true, if there is another student to read
+	 * @throws IOException if the sheet couldn't be read
+	 */
+	private boolean skipBlankLines() throws IOException{
+		
+		while(true){
+			
+			int b = peek();
+			
+			if(b == '\n'){
+				position++;
+				line++;
+			}else if(b == '\r'){
+				position++;
+			}else{
+				return b != -1;
+			}
+		}
+	}
+	
+	/**
+	 * Reads a student's name or number, and the comma after it.
+	 *
+	 * @return the student's name or number
+	 * @throws IOException if the sheet couldn't be read, or the field is too long or the last on its line
+	 */
+	private String readStudent() throws IOException{
+		
+		int length = 0;
+		
+		while(true){
+			
+			int b = next();
+			
+			if(b == ','){
+				return new String(student, 0, length, StandardCharsets.UTF_8).trim();
+			}else if(b == -1 || b == '\n' || b == '\r'){
+				throw error("Expected marks after the student");
+			}else if(length == MAX_STUDENT_LENGTH){
+				throw error("The student is longer than " + MAX_STUDENT_LENGTH + " bytes");
+			}
+			
+			student[length++] = (byte) b;
+		}
+	}
+	
+	/**
+	 * Reads a mark and the comma after it. A mark is one to three digits, with or without a plus sign at the beginning, between 0 and 100.
+	 *
+	 * @param last whether this is the last mark on the line, which mustn't have a comma after it
+	 * @return the mark
+	 * @throws IOException if the sheet couldn't be read, or the mark is missing or invalid
+	 */
+	private int readMark(boolean last) throws IOException{
+		
+		skipSpaces();
+		
+		int b = peek();
+		
+		if(b == '+'){
+			position++;
+			b = peek();
+		}
+		
+		int value = 0;
+		int digits = 0;
+		
+		while(b >= '0' && b <= '9'){
+			
+			value = value * 10 + (b - '0');
+			digits++;
+			
+			if(digits > 3){
+				throw error("Invalid integer entered");
+			}
+			
+			position++;
+			b = peek();
+		}
+		
+		if(digits == 0){
+			throw error(b == -1 || b == '\n' || b == '\r' ? "Expected " + modules.length * 2 + " marks" : "Invalid integer entered");
+		}
+		
+		if(value > 100){
+			throw error("Integers must be in the range 0-100");
+		}
+		
+		skipSpaces();
+		
+		// The mark must be followed by a comma, or the end of the line
+		b = peek();
+		
+		if(b == ','){
+			
+			// A comma after the last mark would start another field
+			if(last){
+				throw error("Expected " + modules.length * 2 + " marks");
+			}
+			
+			position++;
+		}else if(b != -1 && b != '\n' && b != '\r'){
+			throw error("Invalid integer entered");
+		}
+		
+		return value;
+	}
+	
+	/**
+	 * Reads the end of a student's line.
+	 *
+	 * @throws IOException if the sheet couldn't be read, or there is more on the line
+	 */
+	private void endLine() throws IOException{
+		
+		skipSpaces();
+		
+		int b = next();
+		
+		if(b == '\r'){
+			b = next();
+		}
+		
+		if(b == '\n'){
+			line++;
+		}else if(b != -1){
+			throw error("Expected " + modules.length * 2 + " marks");
+		}
+	}
+	
+	/**
+	 * Skips over any spaces or tabs.
+	 *
+	 * @throws IOException if the sheet couldn't be read
+	 */
+	private void skipSpaces() throws IOException{
+		
+		int b = peek();
+		
+		while(b == ' ' || b == '\t'){
+			position++;
+			b = peek();
+		}
+	}
+	
+	/**
+	 * Gets the next byte without moving past it, filling the buffer if it is empty.
+	 *
+	 * @return the byte, or -1 at the end of the sheet
+	 * @throws IOException if the sheet couldn't be read
+	 */
+	private int peek() throws IOException{
+		
+		if(position == limit){
+			
+			limit = in.read(buffer, 0, buffer.length);
+			position = 0;
+			
+			if(limit <= 0){
+				limit = 0;
+				return -1;
+			}
+		}
+		
+		return buffer[position] & 0xFF;
+	}
+	
+	/**
+	 * Gets the next byte and moves past it.
+	 *
+	 * @return the byte, or -1 at the end of the sheet
+	 * @throws IOException if the sheet couldn't be read
+	 */
+	private int next() throws IOException{
+		
+		int b = peek();
+		
+		if(b != -1){
+			position++;
+		}
+		
+		return b;
+	}
+	
+	/**
+	 * Makes an exception for a problem with the line being read.
+	 *
+	 * @param message the problem
+	 * @return the exception
+	 */
+	private IOException error(String message){
+		return new IOException("Line " + line + ": " + message);
+	}
+	
+	/**
+	 * Closes the input the sheet is read from.
+	 *
+	 * @throws IOException if the input couldn't be closed
+	 */
+	@Override
+	public void close() throws IOException{
+		in.close();
+	}
+}
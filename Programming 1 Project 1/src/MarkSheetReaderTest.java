@@ -0,0 +1,209 @@
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ *  Tests the MarkSheetReader class by reading small mark sheets, checking the marks read from good lines and the messages given for bad ones.
+ *
+ *  Each check which fails is printed with what was expected. If the reader works correctly, no failures will be printed.
+ *
+ * @author Wilfrid Askins
+ */
+public class MarkSheetReaderTest {
+	
+	/** The modules every student in the test sheets takes: one with an exam, then one without. */
+	private static final Module[] MODULES = {
+			new Module("TEST1", "Test Module With Exam", 50, 20),
+			new Module("TEST2", "Test Module Without Exam", 100, 20)
+	};
+	
+	/** The number of checks which have failed. */
+	private static int failures;
+	
+	/**
+	 * The main method, to be used to run the mark sheet reader test.
+	 *
+	 * @param args the arguments used to run the main method, which are not used in this program
+	 */
+	public static void main(String[] args){
+		
+		testGoodLines();
+		
+		// Each bad sheet is checked for the line the error was found on, after any blank lines before it
+		expectError("alice,40,50,0,60\n\nbob,40,101,0,60\n", "Line 3: Integers must be in the range 0-100");
+		expectError("alice,40,50,0\n", "Line 1: Expected 4 marks");
+		expectError("alice,40,50,0,60,70\n", "Line 1: Expected 4 marks");
+		expectError("alice,40,50,0,60\r\nbob,40,50,0,60,\r\n", "Line 2: Expected 4 marks");
+		expectError("alice,40,,0,60\n", "Line 1: Invalid integer entered");
+		expectError("alice,40,1000,0,60\n", "Line 1: Invalid integer entered");
+		expectError("alice,40,5x,0,60\n", "Line 1: Invalid integer entered");
+		expectError("alice\n", "Line 1: Expected marks after the student");
+		expectError("\n\n" + repeat('a', 257) + ",40,50,0,60\n", "Line 3: The student is longer than 256 bytes");
+		
+		testBatchBoundary();
+		
+		System.out.println("Failures: " + failures);
+	}
+	
+	/**
+	 * Reads a sheet with CRLF line endings, blank lines, spaces and plus signs, and checks every mark was read.
+	 */
+	private static void testGoodLines(){
+		
+		String sheet = "\r\nalice,40,50,0,60\r\n\r\n\n bob , +70 , 80 ,99,+100\r\n" + repeat('c', 256) + ",0,0,0,0";
+		
+		String[] students = new String[4];
+		int[] courseworkMarks = new int[students.length * MODULES.length];
+		int[] examMarks = new int[students.length * MODULES.length];
+		
+		try(MarkSheetReader reader = reader(sheet)){
+			
+			check("students read", 3, reader.read(students, courseworkMarks, examMarks));
+			check("students read at the end", 0, reader.read(students, courseworkMarks, examMarks));
+		
+		}catch(IOException e){
+			fail("Couldn't read a good sheet: " + e.getMessage());
+			return;
+		}
+		
+		check("first student", "alice", students[0]);
+		check("second student", "bob", students[1]);
+		check("longest student", repeat('c', 256), students[2]);
+		
+		check("first exam mark", 40, examMarks[0]);
+		check("first coursework mark", 50, courseworkMarks[0]);
+		
+		// The second module has no exam, so its exam mark is ignored
+		check("exam mark without an exam", 0, examMarks[1]);
+		check("coursework mark without an exam", 60, courseworkMarks[1]);
+		
+		check("exam mark with a plus sign", 70, examMarks[2]);
+		check("coursework mark with spaces", 80, courseworkMarks[2]);
+		check("coursework mark of 100 with a plus sign", 100, courseworkMarks[3]);
+	}
+	
+	/**
+	 * Reads one student more than a batch, in batches the size Summary uses, and checks the students either side of the boundary.
+	 * The sheet is larger than the reader's buffer, so lines are split across refills of the buffer too.
+	 */
+	private static void testBatchBoundary(){
+		
+		int total = Summary.BATCH_SIZE + 1;
+		StringBuilder sheet = new StringBuilder();
+		
+		for(int s = 0; s < total; s++){
+			sheet.append("student").append(s).append(',').append(s % 101).append(",1,2,").append(100 - s % 101).append("\r\n");
+		}
+		
+		String[] students = new String[Summary.BATCH_SIZE];
+		int[] courseworkMarks = new int[students.length * MODULES.length];
+		int[] examMarks = new int[students.length * MODULES.length];
+		
+		try(MarkSheetReader reader = reader(sheet.toString())){
+			
+			check("students in the first batch", Summary.BATCH_SIZE, reader.read(students, courseworkMarks, examMarks));
+			
+			int last = Summary.BATCH_SIZE - 1;
+			check("last student in the first batch", "student" + last, students[last]);
+			check("last exam mark in the first batch", last % 101, examMarks[last * MODULES.length]);
+			check("last coursework mark in the first batch", 100 - last % 101, courseworkMarks[last * MODULES.length + 1]);
+			
+			check("students in the second batch", 1, reader.read(students, courseworkMarks, examMarks));
+			check("student after the boundary", "student" + Summary.BATCH_SIZE, students[0]);
+			check("exam mark after the boundary", Summary.BATCH_SIZE % 101, examMarks[0]);
+			check("coursework mark after the boundary", 100 - Summary.BATCH_SIZE % 101, courseworkMarks[1]);
+			
+			check("students after the last batch", 0, reader.read(students, courseworkMarks, examMarks));
+		
+		}catch(IOException e){
+			fail("Couldn't read a sheet of more than one batch: " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Reads a sheet which has a bad line, and checks the error given.
+	 *
+	 * @param sheet the mark sheet
+	 * @param message the message the error should have
+	 */
+	private static void expectError(String sheet, String message){
+		
+		String[] students = new String[4];
+		int[] courseworkMarks = new int[students.length * MODULES.length];
+		int[] examMarks = new int[students.length * MODULES.length];
+		
+		try(MarkSheetReader reader = reader(sheet)){
+			
+			reader.read(students, courseworkMarks, examMarks);
+			fail("No error for " + describe(sheet) + ", expected \"" + message + "\"");
+		
+		}catch(IOException e){
+			check("error for " + describe(sheet), message, e.getMessage());
+		}
+	}
+	
+	/**
+	 * Creates a reader for a sheet.
+	 *
+	 * @param sheet the mark sheet
+	 * @return the reader
+	 */
+	private static MarkSheetReader reader(String sheet){
+		return new MarkSheetReader(new ByteArrayInputStream(sheet.getBytes(StandardCharsets.UTF_8)), MODULES);
+	}
+	
+	/**
+	 * Checks a value, printing it if it isn't what was expected.
+	 *
+	 * @param what what the value is
+	 * @param expected the value expected
+	 * @param actual the value found
+	 */
+	private static void check(String what, Object expected, Object actual){
+		
+		if(!expected.equals(actual)){
+			fail("Wrong " + what + ": " + actual + " instead of " + expected);
+		}
+	}
+	
+	/**
+	 * Prints a failure, and counts it.
+	 *
+	 * @param message what went wrong
+	 */
+	private static void fail(String message){
+		System.out.println(message);
+		failures++;
+	}
+	
+	/**
+	 * Shows a sheet on one line, with its line endings written out.
+	 *
+	 * @param sheet the mark sheet
+	 * @return the sheet, shortened if it is long
+	 */
+	private static String describe(String sheet){
+		
+		String shown = sheet.replace("\r", "\\r").replace("\n", "\\n");
+		
+		return shown.length() > 60 ? shown.substring(0, 60) + "..." : shown;
+	}
+	
+	/**
+	 * Makes a string of one character repeated.
+	 *
+	 * @param c the character
+	 * @param count the number of times to repeat it
+	 * @return the string
+	 */
+	private static String repeat(char c, int count){
+		
+		StringBuilder builder = new StringBuilder(count);
+		
+		for(int i = 0; i < count; i++){
+			builder.append(c);
+		}
+		
+		return builder.toString();
+	}
+}
@@ -6,6 +6,12 @@
  */
 public class Module {
 	
+	/** The highest mark which can be given for coursework or an exam. */
+	static final int MAX_MARK = 100;
+	
+	/** The computed mark for every coursework and exam mark, for each coursework weighting which has been used. These are shared between modules with the same weighting. */
+	private static final byte[][] markTables = new byte[MAX_MARK + 1][];
+	
 	/** The module's code. */
 	private String code;
 	
@@ -24,6 +30,9 @@ public class Module {
 	/** Whether the module has an exam. */
 	private boolean hasExam;
 	
+	/** The computed mark for every coursework and exam mark, or null if the coursework weighting isn't between 0 and 100. */
+	private final byte[] markTable;
+	
 	/**
 	 * Instantiates a new module.
 	 *
@@ -55,10 +64,13 @@ public class Module {
 		
 		// If the coursework is worth less than 100, there is also an exam for this module
 		this.hasExam = courseworkWeighting < 100;
+		
+		this.markTable = courseworkWeighting >= 0 && courseworkWeighting <= MAX_MARK ? getMarkTable(courseworkWeighting) : null;
 	}
 	
 	/**
 	 * Gets the computed module mark, using the formula provided for the task and the specified conditions.
+	 * Marks between 0 and 100 are looked up in a table of the formula's results, rather than worked out each time.
 	 *
 	 * @param courseworkMark the coursework mark
 	 * @param examinationMark the examination mark
@@ -66,16 +78,59 @@ public class Module {
 	 */
 	public int getComputedModuleMark(int courseworkMark, int examinationMark){
 		
+		if(markTable != null && courseworkMark >= 0 && courseworkMark <= MAX_MARK && examinationMark >= 0 && examinationMark <= MAX_MARK){
+			return markTable[courseworkMark * (MAX_MARK + 1) + examinationMark];
+		}
+		
+		// Marks outside the table are worked out with the formula
+		return computeModuleMark(this.courseworkWeighting, courseworkMark, examinationMark);
+	}
+	
+	/**
+	 * Works out a computed module mark using the formula provided for the task and the specified conditions.
+	 *
+	 * @param courseworkWeighting the weighting of the coursework
+	 * @param courseworkMark the coursework mark
+	 * @param examinationMark the examination mark
+	 * @return the computed module mark
+	 */
+	static int computeModuleMark(int courseworkWeighting, int courseworkMark, int examinationMark){
+		
 		// Finds the result of the formula
-		int computedMark = ((courseworkMark * this.courseworkWeighting) + (examinationMark * (100 - this.courseworkWeighting))) / 100;
+		int computedMark = ((courseworkMark * courseworkWeighting) + (examinationMark * (100 - courseworkWeighting))) / 100;
 		
 		// If either the exam (if there was an exam) or coursework mark is less than 35
-		boolean lessThanBoundary = (this.getHasExam() && examinationMark < 35) || (courseworkMark < 35);
+		boolean lessThanBoundary = (courseworkWeighting < 100 && examinationMark < 35) || (courseworkMark < 35);
 		
 		// Return the minimum of 35 and the computed mark, if either the exam or coursework mark was less than the boundary. Otherwise return the computed mark.
 		return lessThanBoundary? Math.min(35, computedMark) : computedMark;		
 	}
 	
+	/**
+	 * Gets the table of computed marks for a coursework weighting, building it the first time the weighting is used.
+	 * Each computed mark is between 0 and 100, so it fits in a byte, and the whole table takes about 10KB.
+	 *
+	 * @param courseworkWeighting the weighting of the coursework, between 0 and 100
+	 * @return the computed mark for each coursework mark and exam mark, at position courseworkMark * 101 + examinationMark
+	 */
+	private static synchronized byte[] getMarkTable(int courseworkWeighting){
+		
+		if(markTables[courseworkWeighting] == null){
+			
+			byte[] table = new byte[(MAX_MARK + 1) * (MAX_MARK + 1)];
+			
+			for(int courseworkMark = 0; courseworkMark <= MAX_MARK; courseworkMark++){
+				for(int examinationMark = 0; examinationMark <= MAX_MARK; examinationMark++){
+					table[courseworkMark * (MAX_MARK + 1) + examinationMark] = (byte) computeModuleMark(courseworkWeighting, courseworkMark, examinationMark);
+				}
+			}
+			
+			markTables[courseworkWeighting] = table;
+		}
+		
+		return markTables[courseworkWeighting];
+	}
+	
 	/**
 	 * Gets the code of the module.
 	 *
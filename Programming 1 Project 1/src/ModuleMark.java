@@ -1,19 +1,26 @@
 
 /**
  * The Class ModuleMark, which represents the exam and coursework marks received for a module.
+ * The marks can't change, so the computed mark and result are worked out once, when the module mark is created.
  * 
  * @author Wilfrid Askins
  */
 public class ModuleMark {
 	
 	/** The module the marks were received in. */
-	private Module module;
+	private final Module module;
 	
 	/** The examination mark received by the student. */
-	private int examinationMark;
+	private final int examinationMark;
 	
 	/** The coursework mark received by the student. */
-	private int courseworkMark;
+	private final int courseworkMark;
+	
+	/** The computed module mark, found from the exam and coursework marks. */
+	private final int computedModuleMark;
+	
+	/** The result the computed module mark should be given. */
+	private final ModuleResult result;
 	
 	/**
 	 * Instantiates a new module mark.
@@ -27,6 +34,10 @@ public class ModuleMark {
 		this.module = module;
 		this.examinationMark = examMark;
 		this.courseworkMark = courseworkMark;
+		
+		// Uses the formula contained in the Module class to find the computed mark, then finds the result it should be given
+		this.computedModuleMark = module.getComputedModuleMark(courseworkMark, examMark);
+		this.result = ModuleResult.forMark(this.computedModuleMark, module.isCore());
 	}
 
 	/**
@@ -53,8 +64,7 @@ public class ModuleMark {
 	 * @return the computed module mark
 	 */
 	public int getComputedModuleMark(){
-		// Uses the formula contained in the Module class to find the computed mark
-		return this.module.getComputedModuleMark(courseworkMark, examinationMark);
+		return computedModuleMark;
 	}
 	
 	/**
@@ -63,21 +73,7 @@ public class ModuleMark {
 	 * @return the result
 	 */
 	public ModuleResult getResult(){
-		
-		// Uses the provided formula to get the computed mark
-		int computedMark = this.getComputedModuleMark();
-		
-		if(computedMark >= 40){
-			// If the student passed this module
-			return ModuleResult.PASS;
-		}else if (!this.module.isCore() && computedMark >= 35){
-			// If the student achieved a compensatable fail
-			return ModuleResult.COMPENSATABLE_FAIL;
-		}else{
-			// If the student failed
-			return ModuleResult.FAIL;
-		}
-		
+		return result;
 	}
 
 	/**
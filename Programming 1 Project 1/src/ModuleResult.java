@@ -37,4 +37,25 @@ public enum ModuleResult{
 	public Colour getColour(){
 		return this.colour;
 	}
+	
+	/**
+	 * Finds the result a computed module mark should be given. This is shared by ModuleMark and CohortGrader, so both give the same results.
+	 *
+	 * @param computedMark the computed module mark
+	 * @param core whether the module is core, as core modules can't be passed by compensation
+	 * @return the result
+	 */
+	public static ModuleResult forMark(int computedMark, boolean core){
+		
+		if(computedMark >= 40){
+			// If the student passed this module
+			return PASS;
+		}else if (!core && computedMark >= 35){
+			// If the student achieved a compensatable fail
+			return COMPENSATABLE_FAIL;
+		}else{
+			// If the student failed
+			return FAIL;
+		}
+	}
 }
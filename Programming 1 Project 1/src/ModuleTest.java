@@ -0,0 +1,112 @@
+/**
+ *  Tests the Module class by checking its table of computed marks against the formula, for every weighting and every pair of marks.
+ *  
+ *  Every possible input is checked rather than a random sample, as there are only 101 weightings and 101 x 101 pairs of marks for each.
+ *  If the tables are built correctly, no mismatches will be printed. The time taken by the formula and by the table are also printed, to compare them.
+ *  
+ * @author Wilfrid Askins
+ */
+public class ModuleTest {
+	
+	/** The number of times every pair of marks is computed when timing the formula and the table */
+	private static final int TIMING_ROUNDS = 200;
+	
+	/**
+	 * The main method, to be used to run the module test.
+	 * 
+	 * @param args the arguments used to run the main method, which are not used in this program
+	 */
+	public static void main(String[] args){
+		
+		int mismatches = 0;
+		
+		for(int weighting = 0; weighting <= Module.MAX_MARK; weighting++){
+			
+			Module module = new Module("TEST", "Test Module", weighting, 20);
+			
+			for(int courseworkMark = 0; courseworkMark <= Module.MAX_MARK; courseworkMark++){
+				for(int examMark = 0; examMark <= Module.MAX_MARK; examMark++){
+					
+					int expected = Module.computeModuleMark(weighting, courseworkMark, examMark);
+					int actual = module.getComputedModuleMark(courseworkMark, examMark);
+					
+					if(expected != actual){
+						System.out.println("Mismatch at weighting " + weighting + ", coursework " + courseworkMark + ", exam " + examMark + ": " + actual + " instead of " + expected);
+						mismatches++;
+					}
+				}
+			}
+		}
+		
+		System.out.println("Mismatches: " + mismatches);
+		
+		// Times both ways over the modules in the module list, after warming up each of them
+		Module[] modules = ModuleList.getModules();
+		
+		for(int i = 0; i < 5; i++){
+			timeFormula(modules);
+			timeTable(modules);
+		}
+		
+		System.out.println("Formula: " + (timeFormula(modules) / 1000000) + "ms");
+		System.out.println("Table: " + (timeTable(modules) / 1000000) + "ms");
+	}
+	
+	/**
+	 * Computes every pair of marks for each module with the formula, a number of times.
+	 *
+	 * @param modules the modules
+	 * @return the time taken, in nanoseconds
+	 */
+	private static long timeFormula(Module[] modules){
+		
+		long start = System.nanoTime();
+		long sum = 0;
+		
+		for(int round = 0; round < TIMING_ROUNDS; round++){
+			for(Module module : modules){
+				for(int courseworkMark = 0; courseworkMark <= Module.MAX_MARK; courseworkMark++){
+					for(int examMark = 0; examMark <= Module.MAX_MARK; examMark++){
+						sum += Module.computeModuleMark(module.getCourseworkWeighting(), courseworkMark, examMark);
+					}
+				}
+			}
+		}
+		
+		// The sum is checked so the work can't be skipped
+		if(sum < 0){
+			System.out.println(sum);
+		}
+		
+		return System.nanoTime() - start;
+	}
+	
+	/**
+	 * Computes every pair of marks for each module with its table, a number of times.
+	 *
+	 * @param modules the modules
+	 * @return the time taken, in nanoseconds
+	 */
+	private static long timeTable(Module[] modules){
+		
+		long start = System.nanoTime();
+		long sum = 0;
+		
+		for(int round = 0; round < TIMING_ROUNDS; round++){
+			for(Module module : modules){
+				for(int courseworkMark = 0; courseworkMark <= Module.MAX_MARK; courseworkMark++){
+					for(int examMark = 0; examMark <= Module.MAX_MARK; examMark++){
+						sum += module.getComputedModuleMark(courseworkMark, examMark);
+					}
+				}
+			}
+		}
+		
+		// The sum is checked so the work can't be skipped
+		if(sum < 0){
+			System.out.println(sum);
+		}
+		
+		return System.nanoTime() - start;
+	}
+}
@@ -1,6 +1,10 @@
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * The Class StudentChart, which is used to generate a bar chart using a student's marks.
+ * The chart is worked out as a list of rectangles, which can be drawn on the shared canvas or rendered to an image by a ChartRenderer.
  * 
  * @author Wilfrid Askins
  */
@@ -37,6 +41,22 @@ public class StudentChart {
 	 */
 	public void draw(){
 		
+		// Draws each rectangle in the chart, in order
+		for(Shape shape : getShapes()){
+			drawRectangle(shape.getColour(), shape.getX(), shape.getY(), shape.getWidth(), shape.getHeight());
+		}
+	}
+	
+	/**
+	 * Works out the rectangles which make up the chart, without drawing them.
+	 *
+	 * @return the rectangles, in the order they should be drawn
+	 */
+	public List<Shape> getShapes(){
+		
+		// The rectangles, with one for each mark and two for the axes
+		List<Shape> shapes = new ArrayList<Shape>(marks.length + 2);
+		
 		// Gets the array of integers returned by the method in the mark calculator
 		int[] calculatedMarks = this.markCalculator.computeMarks(marks);
 		
@@ -55,14 +75,25 @@ public class StudentChart {
 			// The height which the bar needs
 			int barHeight = moduleMark*2;
 			
-			// Draws the bar for the current result, at the needed position
+			// Adds the bar for the current result, at the needed position
 			// The position of the new bars will move from the left to right as they are drawn
-			drawRectangle(result.getColour(), AXES_PADDING+(BAR_PADDING*2)+(i-1)*(BAR_WIDTH+BAR_PADDING), CANVAS_SIZE-AXES_PADDING-barHeight, BAR_WIDTH, barHeight);
+			shapes.add(new Shape(result.getColour(), AXES_PADDING+(BAR_PADDING*2)+(i-1)*(BAR_WIDTH+BAR_PADDING), CANVAS_SIZE-AXES_PADDING-barHeight, BAR_WIDTH, barHeight));
 		}
 		
-		// Draws the x and y-axis lines based off of the constants CANVAS_SIZE and AXES_PADDING
-		drawRectangle(Colour.BLACK, AXES_PADDING, CANVAS_SIZE-AXES_PADDING, CANVAS_SIZE-AXES_PADDING*2, 5);
-		drawRectangle(Colour.BLACK, AXES_PADDING, AXES_PADDING, 5, CANVAS_SIZE-AXES_PADDING*2);
+		// Adds the x and y-axis lines based off of the constants CANVAS_SIZE and AXES_PADDING
+		shapes.add(new Shape(Colour.BLACK, AXES_PADDING, CANVAS_SIZE-AXES_PADDING, CANVAS_SIZE-AXES_PADDING*2, 5));
+		shapes.add(new Shape(Colour.BLACK, AXES_PADDING, AXES_PADDING, 5, CANVAS_SIZE-AXES_PADDING*2));
+		
+		return shapes;
+	}
+	
+	/**
+	 * Gets the width and height of the canvas the chart is drawn on.
+	 *
+	 * @return the size of the canvas
+	 */
+	public static int getCanvasSize(){
+		return CANVAS_SIZE;
 	}
 
 	/**
@@ -144,4 +175,88 @@ public class StudentChart {
 		// Prints the result
 		System.out.println("Overall Result: " + result.getName());
 	}
+	
+	/**
+	 * The Class Shape, which is one coloured rectangle in a chart, at its position on the canvas.
+	 */
+	public static class Shape{
+		
+		/** The colour of the rectangle. */
+		private final Colour colour;
+		
+		/** The x position of the rectangle. */
+		private final int x;
+		
+		/** The y position of the rectangle. */
+		private final int y;
+		
+		/** The width of the rectangle. */
+		private final int width;
+		
+		/** The height of the rectangle. */
+		private final int height;
+		
+		/**
+		 * Instantiates a new shape.
+		 *
+		 * @param colour the colour of the rectangle
+		 * @param x the x position of the rectangle
+		 * @param y the y position of the rectangle
+		 * @param width the width of the rectangle
+		 * @param height the height of the rectangle
+		 */
+		public Shape(Colour colour, int x, int y, int width, int height){
+			super();
+			this.colour = colour;
+			this.x = x;
+			this.y = y;
+			this.width = width;
+			this.height = height;
+		}
+		
+		/**
+		 * Gets the colour of the rectangle.
+		 *
+		 * @return the colour
+		 */
+		public Colour getColour(){
+			return colour;
+		}
+		
+		/**
+		 * Gets the x position of the rectangle.
+		 *
+		 * @return the x position
+		 */
+		public int getX(){
+			return x;
+		}
+		
+		/**
+		 * Gets the y position of the rectangle.
+		 *
+		 * @return the y position
+		 */
+		public int getY(){
+			return y;
+		}
+		
+		/**
+		 * Gets the width of the rectangle.
+		 *
+		 * @return the width
+		 */
+		public int getWidth(){
+			return width;
+		}
+		
+		/**
+		 * Gets the height of the rectangle.
+		 *
+		 * @return the height
+		 */
+		public int getHeight(){
+			return height;
+		}
+	}
 }
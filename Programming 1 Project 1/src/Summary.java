@@ -1,3 +1,7 @@
+import java.io.BufferedOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.PrintStream;
 import java.util.Scanner;
 
 /**
@@ -7,6 +11,9 @@ import java.util.Scanner;
  */
 public class Summary {
 	
+	/** The number of students read from a mark sheet and graded at a time. */
+	static final int BATCH_SIZE = 8192;
+	
 	/**
 	 * Instantiates a new summary class.
 	 */
@@ -17,13 +24,25 @@ public class Summary {
 	/**
 	 * The main method, to be run at startup.
 	 *
-	 * @param args the arguments, unused by this program
+	 * @param args the path of a mark sheet to grade, or nothing to type in a student's marks
 	 */
 	public static void main(String[] args){
 		
-		// Creates a new instance of the summary class and runs the studentSummary method
+		// Creates a new instance of the summary class
 		Summary summary = new Summary();
-		summary.studentSummary();
+		
+		if(args.length > 0){
+			// Grades every student in the mark sheet
+			try{
+				summary.cohortSummary(args[0]);
+			}catch(IOException e){
+				System.err.println("Couldn't read " + args[0] + ": " + e.getMessage());
+				System.exit(1);
+			}
+		}else{
+			// Runs the studentSummary method
+			summary.studentSummary();
+		}
 	}
 	
 	/**
@@ -66,7 +85,63 @@ public class Summary {
 	}
 	
 	/**
-	 * Takes user input by continuing recursively until valid data is entered
+	 * Reads a CSV mark sheet in batches and prints each student's stage result, followed by the number of students given each result.
+	 * The format of the sheet is described in MarkSheetReader.
+	 *
+	 * @param path the path of the mark sheet
+	 * @throws IOException if the sheet couldn't be read, or a line isn't in the right format
+	 */
+	public void cohortSummary(String path) throws IOException{
+		
+		// The array of all modules
+		Module[] modules = ModuleList.getModules();
+		CohortGrader grader = new CohortGrader(modules);
+		
+		// The arrays each batch is read into, which are reused so the memory used doesn't grow with the size of the sheet
+		String[] students = new String[BATCH_SIZE];
+		int[] courseworkMarks = new int[BATCH_SIZE * modules.length];
+		int[] examMarks = new int[BATCH_SIZE * modules.length];
+		
+		// The number of students given each stage result
+		int[] totals = new int[MarkCalculator.StageResult.values().length];
+		
+		// The results are written through a buffer, rather than a line at a time
+		PrintStream out = new PrintStream(new BufferedOutputStream(System.out, 64 * 1024), false);
+		
+		try(MarkSheetReader reader = new MarkSheetReader(new FileInputStream(path), modules)){
+			
+			int count;
+			
+			while((count = reader.read(students, courseworkMarks, examMarks)) > 0){
+				
+				CohortGrader.Grades grades = grader.grade(courseworkMarks, examMarks, count);
+				
+				for(int s = 0; s < count; s++){
+					
+					MarkCalculator.StageResult result = grades.getStageResult(s);
+					totals[result.ordinal()]++;
+					
+					out.println(students[s] + ": " + result.getName());
+				}
+			}
+		}finally{
+			out.flush();
+		}
+		
+		// Prints a space between the results and the totals
+		out.println();
+		
+		for(MarkCalculator.StageResult result : MarkCalculator.StageResult.values()){
+			if(result != MarkCalculator.StageResult.UNDEFINED){
+				out.println(result.getName() + ": " + totals[result.ordinal()]);
+			}
+		}
+		
+		out.flush();
+	}
+	
+	/**
+	 * Takes user input, asking again until valid data is entered
 	 *
 	 * @param sc the scanner instance that should be used
 	 * @param fieldName the field name to be entered by the user
@@ -74,41 +149,56 @@ public class Summary {
 	 */
 	private int input(Scanner sc, String fieldName){
 		
-		// Prints out a message to the user to tell them which mark is expected
-		System.out.println("Please enter " + fieldName + ": ");
-		
-		// Gets the next token entered by the user
-		String next = sc.next();
-		
-		if(isInteger(next)){
-			// If the user entered valid data, parses the text as an integer
-			int value = Integer.parseInt(next);
+		// Asks in a loop rather than recursively, so any amount of invalid input can be entered
+		while(true){
 			
-			// If the integer fits the required range
-			if(value >= 0 && value <= 100){
-				return value;
-			}else{
+			// Prints out a message to the user to tell them which mark is expected
+			System.out.println("Please enter " + fieldName + ": ");
+			
+			// Gets the next token entered by the user
+			String next = sc.next();
+			
+			if(isInteger(next)){
+				// If the user entered valid data, parses the text as an integer
+				int value = Integer.parseInt(next);
+				
+				// If the integer fits the required range
+				if(value >= 0 && value <= 100){
+					return value;
+				}
+				
 				// If the integer is too small or too big, displays an error and asks again
 				System.out.println("Integers must be in the range 0-100!");
-				return input(sc, fieldName);
+			}else{
+				// If the data is invalid, displays an error and asks again
+				System.out.println("Invalid integer entered!");
 			}
-			
-		}else{
-			// If the data is invalid, displays an error and asks again
-			System.out.println("Invalid integer entered!");
-			return input(sc, fieldName);
 		}
 	}
 	
 	/**
-	 * Checks if a string is an integer, by using a regex expression.
-	 * This expression will check if the text is either one, two or three digits between zero and nine, with or without a plus sign at the beginning.
+	 * Checks if a string is an integer, by checking each character.
+	 * The text must be either one, two or three digits between zero and nine, with or without a plus sign at the beginning.
 	 *
 	 * @param text the string to be checked
 	 * @return true, if the text is an integer
 	 */
 	private boolean isInteger(String text){
-		// Learnt from https://www.regular-expressions.info/tutorial.html
-		return text.matches("^(\\+)?[0-9][0-9]?[0-9]?$");
+		
+		// Skips the plus sign, if there is one
+		int start = text.startsWith("+") ? 1 : 0;
+		int digits = text.length() - start;
+		
+		if(digits < 1 || digits > 3){
+			return false;
+		}
+		
+		for(int i = start; i < text.length(); i++){
+			if(text.charAt(i) < '0' || text.charAt(i) > '9'){
+				return false;
+			}
+		}
+		
+		return true;
 	}
 } 
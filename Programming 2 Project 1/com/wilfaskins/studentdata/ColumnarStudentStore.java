@@ -0,0 +1,565 @@
+package com.wilfaskins.studentdata;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import com.wilfaskins.studentdata.students.CreditedStudent;
+import com.wilfaskins.studentdata.students.PostgraduateResearchStudent;
+import com.wilfaskins.studentdata.students.Student;
+import com.wilfaskins.studentdata.students.StudentType;
+import com.wilfaskins.studentdata.students.id.StudentID;
+import com.wilfaskins.studentdata.students.id.StudentName;
+
+/**
+ * A copy of many students, stored column by column in primitive arrays rather than as one object graph per student.
+ *
+ * Each student is a row. The type, date of birth, ID number and credits of every student are each kept in one array,
+ * and the modules a student takes are kept as a bit for each of the store's modules, so counting or totalling
+ * over every student reads a few arrays from start to end without following any references. A student's row can still be read as a {@link Student} through
+ * a {@link Row}, which reads straight from the columns.
+ *
+ * The store is a copy: changes made to a student after they were added aren't seen. It isn't safe to add students from
+ * several threads at once, but once it has been filled it can be read from any number of threads.
+ *
+ * @author Wilfrid Askins
+ */
+public final class ColumnarStudentStore {
+
+	/** The number of rows the columns have space for when the store is created. */
+	private static final int INITIAL_CAPACITY = 64;
+
+	/** Used in the ID column for a student without an ID. */
+	private static final int NO_ID = -1;
+
+	/** Every student type, indexed by its ordinal. */
+	private static final StudentType[] TYPES = StudentType.values();
+
+	/** The modules students can take, in the order of their bits. */
+	private final Module[] modules;
+
+	/** The bit of each module students can take. */
+	private final Map<Module,Integer> moduleColumns;
+
+	/** The catalogue the store's modules are, in the same order, or null if they aren't a whole catalogue. */
+	private final List<Module> catalogue;
+
+	/** The number of longs each row's module bits use. */
+	private final int moduleWords;
+
+	/** The number of rows in the store. */
+	private int size;
+
+	/** The ordinal of each student's type. */
+	private byte[] types;
+
+	/** Each student's date of birth, as the number of days since 1970-01-01. */
+	private int[] birthDays;
+
+	/** The number of each student's ID, or {@value #NO_ID} if they don't have one. */
+	private int[] ids;
+
+	/** The total credits of the modules each student takes. */
+	private int[] credits;
+
+	/** Whether each student was registered correctly, one bit per row. */
+	private long[] correct;
+
+	/** The modules each student takes, {@link #moduleWords} longs per row. */
+	private long[] moduleBits;
+
+	/** Each student's name. */
+	private StudentName[] names;
+
+	/** Each research student's supervisor, or null for other types of student. */
+	private Supervisor[] supervisors;
+
+	/**
+	 * Instantiates a new, empty store.
+	 *
+	 * @param modules the modules which the students can take
+	 */
+	public ColumnarStudentStore(Collection<Module> modules) {
+		super();
+
+		Objects.requireNonNull(modules, "The modules cannot be null");
+
+		this.modules = modules.toArray(new Module[0]);
+		this.moduleColumns = new HashMap<>(this.modules.length * 2);
+		this.moduleWords = this.modules.length / Long.SIZE + 1;
+
+		List<Module> shared = this.modules.length > 0 ? this.modules[0].getCatalogue() : null;
+
+		for(int i = 0; i < this.modules.length; i++){ // Give each module the next bit
+
+			moduleColumns.putIfAbsent(this.modules[i], i);
+
+			if(this.modules[i].getOrdinal() != i || this.modules[i].getCatalogue() != shared){ // If the bits don't match the catalogue's ordinals
+				shared = null;
+			}
+		}
+
+		this.catalogue = shared != null && shared.size() == this.modules.length ? shared : null;
+
+		this.types = new byte[INITIAL_CAPACITY];
+		this.birthDays = new int[INITIAL_CAPACITY];
+		this.ids = new int[INITIAL_CAPACITY];
+		this.credits = new int[INITIAL_CAPACITY];
+		this.correct = new long[INITIAL_CAPACITY / Long.SIZE];
+		this.moduleBits = new long[INITIAL_CAPACITY * moduleWords];
+		this.names = new StudentName[INITIAL_CAPACITY];
+		this.supervisors = new Supervisor[INITIAL_CAPACITY];
+	}
+
+	/**
+	 * Adds a copy of a student to the store.
+	 *
+	 * @param student the student to be added
+	 * @return the row the student was added as
+	 * @throws IllegalArgumentException if the student takes a module the store doesn't know about
+	 */
+	public int add(Student student) {
+
+		Objects.requireNonNull(student, "You can't add a null student");
+
+		if(size == types.length){ // If the columns are full
+			grow();
+		}
+
+		int row = size;
+		int total = 0;
+
+		if(student instanceof CreditedStudent){
+
+			CreditedStudent credited = (CreditedStudent) student;
+
+			if(catalogue != null && credited.getModuleCatalogue() == catalogue && credited.hasOnlyCatalogueModules()){ // Copy the student's module bits, which are indexed the same way
+				long[] bits = credited.getModuleBits();
+				System.arraycopy(bits, 0, moduleBits, row * moduleWords, bits.length);
+			}else{
+
+				for(Module module : credited.getModules()){ // Set the bit of each module one at a time
+
+					int column = columnOf(module);
+
+					if(column < 0){
+						Arrays.fill(moduleBits, row * moduleWords, (row + 1) * moduleWords, 0L); // Don't leave half a row behind
+						throw new IllegalArgumentException("The student takes a module which isn't in this store");
+					}
+
+					moduleBits[row * moduleWords + (column >>> 6)] |= 1L << column;
+				}
+			}
+
+			total = credited.getRegisteredCredits();
+		}
+
+		StudentID studentID = student.getStudentID();
+
+		types[row] = (byte) student.getStudentType().ordinal();
+		birthDays[row] = (int) epochDay(student.getDateOfBirth());
+		ids[row] = studentID == null ? NO_ID : studentID.toInt();
+		credits[row] = total;
+		names[row] = student.getName();
+
+		if(student.isRegisteredCorrectly()){
+			correct[row >>> 6] |= 1L << row;
+		}
+
+		if(student instanceof PostgraduateResearchStudent){
+			supervisors[row] = ((PostgraduateResearchStudent) student).getSupervisor();
+		}
+
+		size++;
+
+		return row;
+	}
+
+	/**
+	 * Adds a copy of several students to the store.
+	 *
+	 * @param students the students to be added
+	 */
+	public void addAll(Collection<? extends Student> students) {
+
+		Objects.requireNonNull(students, "You can't add a null collection of students");
+
+		for(Student student : students){
+			add(student);
+		}
+	}
+
+	/**
+	 * Doubles the space in every column.
+	 */
+	private void grow() {
+
+		int capacity = types.length * 2;
+
+		types = Arrays.copyOf(types, capacity);
+		birthDays = Arrays.copyOf(birthDays, capacity);
+		ids = Arrays.copyOf(ids, capacity);
+		credits = Arrays.copyOf(credits, capacity);
+		correct = Arrays.copyOf(correct, capacity / Long.SIZE);
+		moduleBits = Arrays.copyOf(moduleBits, capacity * moduleWords);
+		names = Arrays.copyOf(names, capacity);
+		supervisors = Arrays.copyOf(supervisors, capacity);
+	}
+
+	/**
+	 * Finds the bit of a module in each row.
+	 *
+	 * @param module the module
+	 * @return the module's bit, or -1 if the store doesn't know about the module
+	 */
+	private int columnOf(Module module) {
+
+		if(catalogue != null && module.getCatalogue() == catalogue){ // The bits are the catalogue's ordinals
+			return module.getOrdinal();
+		}
+
+		Integer column = moduleColumns.get(module);
+
+		return column == null ? -1 : column;
+	}
+
+	/**
+	 * Gets the number of students in the store.
+	 *
+	 * @return the number of students
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Gets a view of one student in the store.
+	 *
+	 * @param row the row of the student
+	 * @return a view of the student
+	 */
+	public Row get(int row) {
+
+		Row view = new Row();
+		view.moveTo(row);
+
+		return view;
+	}
+
+	/**
+	 * Passes every student in the store to a consumer, in the order they were added.
+	 * The same view is moved from row to row, so the consumer must not keep it.
+	 *
+	 * @param consumer the consumer to receive each student
+	 */
+	public void forEach(Consumer<? super Row> consumer) {
+
+		Objects.requireNonNull(consumer, "The consumer cannot be null");
+
+		Row view = new Row();
+
+		for(int row = 0; row < size; row++){
+			view.moveTo(row);
+			consumer.accept(view);
+		}
+	}
+
+	/**
+	 * Counts the students of a type.
+	 *
+	 * @param type the type of student
+	 * @return the number of students
+	 */
+	public int count(StudentType type) {
+
+		byte ordinal = (byte) Objects.requireNonNull(type, "The type of student cannot be null").ordinal();
+		int count = 0;
+
+		for(int row = 0; row < size; row++){
+			if(types[row] == ordinal){
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Counts the students of a type who were registered correctly.
+	 *
+	 * @param type the type of student
+	 * @return the number of correctly registered students
+	 */
+	public int countRegisteredCorrectly(StudentType type) {
+
+		byte ordinal = (byte) Objects.requireNonNull(type, "The type of student cannot be null").ordinal();
+		int count = 0;
+
+		for(int row = 0; row < size; row++){
+			if(types[row] == ordinal && (correct[row >>> 6] & (1L << row)) != 0){
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Totals the credits taken by the students of a type.
+	 *
+	 * @param type the type of student
+	 * @return the total credits
+	 */
+	public long totalCredits(StudentType type) {
+
+		byte ordinal = (byte) Objects.requireNonNull(type, "The type of student cannot be null").ordinal();
+		long total = 0;
+
+		for(int row = 0; row < size; row++){
+			if(types[row] == ordinal){
+				total += credits[row];
+			}
+		}
+
+		return total;
+	}
+
+	/**
+	 * Counts the students taking a module.
+	 *
+	 * @param module the module
+	 * @return the number of students taking the module, which is zero if the store doesn't know about the module
+	 */
+	public int countTaking(Module module) {
+
+		int column = columnOf(Objects.requireNonNull(module, "The module cannot be null"));
+
+		if(column < 0){ // If the module isn't in the store
+			return 0;
+		}
+
+		int word = column >>> 6;
+		long bit = 1L << column;
+
+		int count = 0;
+
+		for(int row = 0; row < size; row++){
+			if((moduleBits[row * moduleWords + word] & bit) != 0){
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Counts the students born between two dates.
+	 *
+	 * @param from the earliest date of birth, inclusive
+	 * @param to the latest date of birth, inclusive
+	 * @return the number of students born between the dates
+	 */
+	public int countBornBetween(LocalDate from, LocalDate to) {
+
+		long first = Objects.requireNonNull(from, "The first date cannot be null").toEpochDay();
+		long last = Objects.requireNonNull(to, "The last date cannot be null").toEpochDay();
+		int count = 0;
+
+		for(int row = 0; row < size; row++){
+			if(birthDays[row] >= first && birthDays[row] <= last){
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Converts a date to the number of days since 1970-01-01, in the system's time zone.
+	 *
+	 * @param date the date to convert
+	 * @return the number of days
+	 */
+	private static long epochDay(Date date) {
+		return Instant.ofEpochMilli(date.getTime()).atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+	}
+
+	/**
+	 * A view of one row of the store as a student. A view can be moved between rows, so scanning the store needs only one view.
+	 * The view can't be changed: the student's ID and modules are fixed when they are added to the store.
+	 */
+	public final class Row implements Student {
+
+		/** The row this view is looking at. */
+		private int row;
+
+		/**
+		 * Instantiates a new view. Views are created by the store.
+		 */
+		private Row() {
+			super();
+		}
+
+		/**
+		 * Moves the view to another row.
+		 *
+		 * @param row the row to look at
+		 * @throws IndexOutOfBoundsException if there is no such row
+		 */
+		public void moveTo(int row) {
+
+			if(row < 0 || row >= size){
+				throw new IndexOutOfBoundsException("There is no row " + row);
+			}
+
+			this.row = row;
+		}
+
+		/**
+		 * Gets the row this view is looking at.
+		 *
+		 * @return the row
+		 */
+		public int getRow() {
+			return row;
+		}
+
+		/**
+		 * Gets the student's date of birth as a local date, without creating a Date.
+		 *
+		 * @return the date of birth
+		 */
+		public LocalDate getBirthDate() {
+			return LocalDate.ofEpochDay(birthDays[row]);
+		}
+
+		/**
+		 * Gets the total credits of the modules the student takes.
+		 *
+		 * @return the credits
+		 */
+		public int getRegisteredCredits() {
+			return credits[row];
+		}
+
+		/**
+		 * Checks whether the student takes a module, without creating the set of modules.
+		 *
+		 * @param module the module
+		 * @return true, if the student takes the module
+		 */
+		public boolean takes(Module module) {
+
+			int column = columnOf(Objects.requireNonNull(module, "The module cannot be null"));
+
+			return column >= 0 && (moduleBits[row * moduleWords + (column >>> 6)] & (1L << column)) != 0;
+		}
+
+		/**
+		 * Gets the supervisor of a research student.
+		 *
+		 * @return the supervisor, or null if the student isn't a research student
+		 */
+		public Supervisor getSupervisor() {
+			return supervisors[row];
+		}
+
+		/* (non-Javadoc)
+		 * @see com.wilfaskins.studentdata.students.Student#getName()
+		 */
+		@Override
+		public StudentName getName() {
+			return names[row];
+		}
+
+		/* (non-Javadoc)
+		 * @see com.wilfaskins.studentdata.students.Student#getDateOfBirth()
+		 */
+		@Override
+		public Date getDateOfBirth() {
+			return Date.from(getBirthDate().atStartOfDay(ZoneId.systemDefault()).toInstant());
+		}
+
+		/* (non-Javadoc)
+		 * @see com.wilfaskins.studentdata.students.Student#getStudentType()
+		 */
+		@Override
+		public StudentType getStudentType() {
+			return TYPES[types[row]];
+		}
+
+		/* (non-Javadoc)
+		 * @see com.wilfaskins.studentdata.students.Student#getStudentID()
+		 */
+		@Override
+		public StudentID getStudentID() {
+			return ids[row] == NO_ID ? null : StudentID.viewOf(ids[row]); // Reading a row mustn't change which IDs are issued
+		}
+
+		/* (non-Javadoc)
+		 * @see com.wilfaskins.studentdata.students.Student#setStudentID(com.wilfaskins.studentdata.students.id.StudentID)
+		 */
+		@Override
+		public void setStudentID(StudentID studentID) {
+			throw new UnsupportedOperationException("A student in a columnar store can't be changed");
+		}
+
+		/* (non-Javadoc)
+		 * @see com.wilfaskins.studentdata.students.Student#getModules()
+		 */
+		@Override
+		public Set<Module> getModules() {
+
+			Set<Module> taken = new HashSet<>();
+			int start = row * moduleWords;
+
+			for(int word = 0; word < moduleWords; word++){ // Find every set bit
+
+				long bits = moduleBits[start + word];
+
+				while(bits != 0){
+					taken.add(modules[word * Long.SIZE + Long.numberOfTrailingZeros(bits)]);
+					bits &= bits - 1; // Clear the lowest set bit
+				}
+			}
+
+			return Collections.unmodifiableSet(taken);
+		}
+
+		/* (non-Javadoc)
+		 * @see com.wilfaskins.studentdata.students.Student#addModule(com.wilfaskins.studentdata.Module)
+		 */
+		@Override
+		public void addModule(Module m) {
+			throw new UnsupportedOperationException("A student in a columnar store can't be changed");
+		}
+
+		/* (non-Javadoc)
+		 * @see com.wilfaskins.studentdata.students.Student#isRegisteredCorrectly()
+		 */
+		@Override
+		public boolean isRegisteredCorrectly() {
+			return (correct[row >>> 6] & (1L << row)) != 0;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+			return "Row [row=" + row + ", name=" + getName() + ", type=" + getStudentType() + "]";
+		}
+	}
+
+}
@@ -1,62 +1,186 @@
 package com.wilfaskins.studentdata;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.RandomAccess;
 import java.util.Set;
-import java.util.function.Function;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
 
+import com.wilfaskins.studentdata.io.CatalogueLoader;
+import com.wilfaskins.studentdata.io.ExportReader;
+import com.wilfaskins.studentdata.io.ExportWriter;
+import com.wilfaskins.studentdata.io.Journal;
+import com.wilfaskins.studentdata.io.Registration;
+import com.wilfaskins.studentdata.io.Snapshot;
+import com.wilfaskins.studentdata.students.CreditedStudent;
+import com.wilfaskins.studentdata.students.PostgraduateResearchStudent;
 import com.wilfaskins.studentdata.students.Student;
 import com.wilfaskins.studentdata.students.StudentType;
+import com.wilfaskins.studentdata.students.id.Eligibility;
 import com.wilfaskins.studentdata.students.id.SmartCard;
+import com.wilfaskins.studentdata.students.id.SmartCardNumber;
 import com.wilfaskins.studentdata.students.id.StudentID;
+import com.wilfaskins.studentdata.students.id.StudentName;
 
 /**
  * 
  * This is the main class of the system.
  * This class will load modules and supervisors.
  * This class will handle students and smartcards.
+ * 
+ * Students can be registered and terminated from many threads at once, so the student indexes are concurrent maps
+ * and student IDs and smart card numbers are allocated atomically.
+ * 
+ * A DataSystem opened with {@link #open(File, File, File)} saves every change to a journal before applying it, and
+ * takes a snapshot every so often so that reopening it doesn't have to replay every change ever made.
  *
  * @author Wilfrid Askins
  */
 public final class DataSystem {
 	
-	/** All the modules in the system. */
-	private final Set<Module> modules;
+	/** All the modules in the system. These never change after loading, so the same unmodifiable list is shared by every caller. */
+	private final List<Module> modules;
+	
+	/** The modules, indexed by their code. */
+	private final ModuleIndex moduleIndex;
+	
+	/** All the supervisors in the system. These never change after loading, so the same unmodifiable list is shared by every caller. */
+	private final List<Supervisor> supervisors;
+	
+	/**
+	 * The record of every registered student, indexed by the number of their student ID.
+	 * The number never changes once it is issued, so looking a student up never hashes the student or their ID.
+	 */
+	private final StudentTable<Record> records;
+	
+	/** The students which have been added, grouped by their student type. */
+	private final Map<StudentType,Map<StudentID,Student>> studentsByType;
+	
+	/** The students taking each module in the catalogue, indexed by the module's ordinal. */
+	private final List<Map<StudentID,Student>> studentsByModule;
+	
+	/**
+	 * The students ordered by date of birth. Each key is the day of birth in the upper half and the student ID's number
+	 * in the lower half, so students born on the same day don't clash and a range of days is one sub map.
+	 */
+	private final ConcurrentSkipListMap<Long,Student> studentsByBirth;
+	
+	/** The research students of each supervisor, and which supervisor is least loaded. */
+	private final SupervisorIndex studentsBySupervisor;
+	
+	/** The IDs of the students who own each smart card number. */
+	private final Map<SmartCardNumber,StudentID> smartCardOwners;
+	
+	/** Live counters for each type of student, updated as students are added and removed. */
+	private final Map<StudentType,TypeCounters> counters;
+	
+	/** The number of changes the event stream can hold before publishing waits for its subscribers. */
+	private static final int EVENT_CAPACITY = 4096;
 	
-	/** All the supervisors in the system. */
-	private final Set<Supervisor> supervisors;
+	/** The stream every change is published to. */
+	private final RegistryEventStream events;
 	
-	/** The students which have been added. */
-	private final Set<Student> students;
+	/** The number of journal entries after which a snapshot is taken. */
+	private static final long SNAPSHOT_INTERVAL = 100000;
 	
-	/** The smart cards and the students who own them. */
-	private final Map<StudentID,SmartCard> smartCards;
+	/** Stops a snapshot being taken while students are being changed. Changes share the read lock, and snapshots take the write lock. */
+	private final ReadWriteLock snapshotLock;
+	
+	/** The snapshot of the students and smartcards, which is replaced as each student is added or removed and shared by every reader. */
+	private final AtomicReference<Views> views;
+	
+	/** Stops two validations running at once, and guards the results of the last validation. */
+	private final Object validationLock;
+	
+	/** The results of the last validation, which a revalidation builds on, or null if the students haven't been validated. */
+	private Validation validation;
+	
+	/** Whether students are being validated, so the records which change need to be remembered. */
+	private volatile boolean trackingChanges;
+	
+	/** The records added, removed or marked as changed since the last validation. */
+	private final Set<Record> changed;
+	
+	/** The journal changes are saved to, or null if changes aren't saved. */
+	private Journal journal;
+	
+	/** The file snapshots are saved to, or null if changes aren't saved. */
+	private File snapshotFile;
 	
 	/**
 	 * Instantiates a new data system.
 	 *
 	 * @param moduleFile the file from which the modules are loaded
 	 * @param supervisorFile the file from which the supervisors are loaded
+	 * @throws UncheckedIOException if either file couldn't be read or contains malformed lines
 	 */
 	public DataSystem(File moduleFile, File supervisorFile){
+		// Read the files and load them into lists
+		this(read(moduleFile, row -> new Module(row.getString(0), row.getString(1), row.getInt(2))),
+				read(supervisorFile, row -> new Supervisor(row.getString(0), row.getString(1))));
+	}
+	
+	/**
+	 * Instantiates a new data system with modules and supervisors which have already been loaded.
+	 *
+	 * @param modules the modules, which must be unmodifiable
+	 * @param supervisors the supervisors, which must be unmodifiable
+	 */
+	private DataSystem(List<Module> modules, List<Supervisor> supervisors){
 		super();
 		// Instantiate the needed lists and maps
-		this.modules = new HashSet<>();
-		this.supervisors = new HashSet<>();
-		this.students = new HashSet<>();
-		this.smartCards = new HashMap<StudentID,SmartCard>();
+		this.records = new StudentTable<>();
+		this.studentsByType = new EnumMap<>(StudentType.class);
+		this.studentsByBirth = new ConcurrentSkipListMap<>();
+		this.smartCardOwners = new ConcurrentHashMap<>();
+		this.snapshotLock = new ReentrantReadWriteLock();
+		this.counters = new EnumMap<>(StudentType.class);
+		this.views = new AtomicReference<>(Views.empty());
+		this.validationLock = new Object();
+		this.changed = ConcurrentHashMap.newKeySet();
+		this.events = new RegistryEventStream(EVENT_CAPACITY);
 		
-		// Read the files and load them into lists
-		read(modules, moduleFile, Module::valueOf);
-		read(supervisors, supervisorFile, Supervisor::valueOf);
+		for(StudentType type : StudentType.values()){ // Give every student type its own index and counters
+			studentsByType.put(type, new ConcurrentHashMap<>());
+			counters.put(type, new TypeCounters());
+		}
+		
+		this.modules = modules;
+		this.moduleIndex = new ModuleIndex(modules);
+		this.studentsByModule = new ArrayList<>(modules.size());
+		
+		for(int i = 0; i < modules.size(); i++){ // Give every module its own index
+			studentsByModule.add(new ConcurrentHashMap<>());
+		}
+		this.supervisors = supervisors;
+		this.studentsBySupervisor = new SupervisorIndex(supervisors);
 	}
 	
 	/**
@@ -74,6 +198,123 @@ public final class DataSystem {
 		return new DataSystem(modules, supervisors); // Return a new instance of DataSystem
 	}
 	
+	/**
+	 * Opens a DataSystem which saves its students in a directory. The latest snapshot is loaded and the journal is
+	 * replayed on top of it, restoring the students, their smart cards and the ID and smart card number counters.
+	 * Every later change is saved to the journal.
+	 *
+	 * @param moduleFile the file from which the modules are loaded
+	 * @param supervisorFile the file from which the supervisors are loaded
+	 * @param directory the directory the journal and snapshots are saved in, which is created if it doesn't exist
+	 * @return the opened instance
+	 * @throws IOException if the saved students couldn't be loaded
+	 */
+	public static DataSystem open(File moduleFile, File supervisorFile, File directory) throws IOException {
+		
+		Objects.requireNonNull(directory, "The directory cannot be null");
+		
+		if(!directory.isDirectory() && !directory.mkdirs()){
+			throw new IOException("Couldn't create " + directory);
+		}
+		
+		DataSystem ds = new DataSystem(moduleFile, supervisorFile);
+		
+		ds.snapshotFile = new File(directory, "snapshot.dat");
+		
+		long sequence = Snapshot.read(ds.snapshotFile, ds::getModule, ds::add); // Load the latest snapshot
+		
+		// Replay the changes made since the snapshot, then keep the journal open for new changes
+		ds.journal = Journal.open(new File(directory, "journal.dat"), sequence, ds::getModule, new Journal.Listener() {
+			
+			@Override
+			public void registered(Registration registration) {
+				ds.add(registration);
+			}
+			
+			@Override
+			public void terminated(StudentID studentID) {
+				if(ds.records.get(studentID.toInt()) != null){
+					ds.remove(studentID).getStudent().setStudentID(null);
+				}
+			}
+			
+			@Override
+			public void modulesChanged(StudentID studentID, List<Module> modules) {
+				
+				Record record = ds.records.get(studentID.toInt());
+				
+				if(record != null){ // Unless the student was terminated while the change was being saved
+					
+					for(Module module : modules){
+						record.registration.getStudent().addModule(module);
+					}
+					
+					ds.recount(record);
+				}
+			}
+		});
+		
+		return ds;
+	}
+	
+	/**
+	 * Loads a DataSystem written by {@link #exportTo(OutputStream)}, such as one exported by another process.
+	 * The modules and supervisors are loaded from the export, along with every student, their smart card and the ID
+	 * and smart card number counters. Students are read one at a time, so the export is never held in memory at once.
+	 * 
+	 * The loaded system doesn't save its students. The input is closed once it has been read.
+	 *
+	 * @param in the input to read the export from
+	 * @return the loaded instance
+	 * @throws IOException if the export couldn't be read
+	 */
+	public static DataSystem importFrom(InputStream in) throws IOException {
+		
+		try(ExportReader reader = new ExportReader(in)){
+			
+			DataSystem ds = new DataSystem(reader.getModules(), reader.getSupervisors());
+			
+			// Restore the counters, so numbers issued before the export aren't issued again
+			StudentID.restoreLastIssued(reader.getLastIssued());
+			SmartCardNumber.restoreSerialCounters(reader.getSerialCounters());
+			
+			for(Registration registration = reader.next(); registration != null; registration = reader.next()){
+				ds.add(registration);
+			}
+			
+			return ds;
+		}
+	}
+	
+	/**
+	 * Writes the whole system, with its modules, supervisors, students, smart cards and counters, in a compact
+	 * binary form which can be loaded with {@link #importFrom(InputStream)}. The students are taken from the system
+	 * all at once, between changes, then written without stopping students being changed while the output is slow.
+	 * The output is closed once the export has been written.
+	 *
+	 * @param out the output to write the export to
+	 * @throws IOException if the export couldn't be written
+	 */
+	public void exportTo(OutputStream out) throws IOException {
+		
+		SnapshotTable<Record> exported;
+		
+		snapshotLock.writeLock().lock();
+		
+		try{
+			exported = views.get().all; // No change is half made while the lock is held, and the table won't change after
+		}finally{
+			snapshotLock.writeLock().unlock();
+		}
+		
+		try(ExportWriter writer = new ExportWriter(out, modules, supervisors)){ // The counters are read after the students are taken, so they are never behind them
+			
+			for(Record record : exported){ // Write each student in order of their ID
+				writer.write(record.registration);
+			}
+		}
+	}
+	
 	/**
 	 * This method returns the number of students of the specified type that are currently
 	 * enrolled.
@@ -85,41 +326,215 @@ public final class DataSystem {
 		
 		Objects.requireNonNull(typeOfStudent, "The type of student cannot be null");
 		
-		int counter = 0;
+		return (int) counters.get(typeOfStudent).students.sum(); // Return the live count for this type
+	}
+	
+	/**
+	 * Gets a snapshot of the live counters: the number of students of each type, how many of them are registered
+	 * correctly, and the total credits they are registered for. This doesn't look at any students, so it takes the
+	 * same time however many students there are.
+	 * 
+	 * A student is counted as they were when they were registered. Modules added to a student afterwards are counted
+	 * once {@link #studentChanged(StudentID)} has been called for them.
+	 *
+	 * @return the counters
+	 */
+	public RegistryCounters getCounters(){
+		
+		int types = StudentType.values().length;
 		
-		for(Student student : students){ // Loop through all students
-			if(student.getStudentType().equals(typeOfStudent)){ // If this student is the correct type
-				counter++; // Increment the counter
-			}
+		long[] students = new long[types];
+		long[] correctlyRegistered = new long[types];
+		long[] credits = new long[types];
+		
+		for(StudentType type : StudentType.values()){ // Read the counters for each type
+			
+			TypeCounters typeCounters = counters.get(type);
+			
+			students[type.ordinal()] = typeCounters.students.sum();
+			correctlyRegistered[type.ordinal()] = typeCounters.correctlyRegistered.sum();
+			credits[type.ordinal()] = typeCounters.credits.sum();
 		}
 		
-		return counter; // Return the counter
+		return new RegistryCounters(students, correctlyRegistered, credits);
 	}
 	
 	/**
 	 * 	This method registers a new student onto the system and allocates a student ID and SmartCard.
 	 *
 	 * @param student the student to be registered
+	 * @throws UncheckedIOException if the registration couldn't be saved to the journal
 	 */
 	public void registerStudent (Student student){
 		
 		Objects.requireNonNull(student, "You can't register a null student");
 		
-		if(student.getStudentID() != null){
-			throw new IllegalArgumentException("This student is already registered");
+		Registration registration;
+		long sequence;
+		
+		snapshotLock.readLock().lock();
+		
+		try{
+			registration = issue(student); // Give the student an ID and smartcard
+			
+			if(journal != null){
+				try{
+					journal.sync(journal.register(registration)); // Save the registration before applying it
+				}catch(IOException e){
+					student.setStudentID(null); // Undo the registration
+					throw new UncheckedIOException("The registration couldn't be saved", e);
+				}
+			}
+			
+			sequence = add(registration, true); // Add the student to the indexes
+			
+		}finally{
+			snapshotLock.readLock().unlock();
 		}
 		
-		StudentID studentID = StudentID.createStudentID(); // Create a new student id
-		student.setStudentID(studentID); // Give the student the id
+		events.publish(sequence, RegistryEvent.Type.REGISTERED, registration, null); // Tell the subscribers, outside the lock in case they are behind
+		snapshotIfNeeded();
+	}
+	
+	/**
+	 * Registers several students at once, such as when importing offers.
+	 * The student IDs and smart card numbers for the whole batch are reserved together, and every student's age is
+	 * checked before anything is registered. Either every student is registered, or none are.
+	 *
+	 * @param batch the students to be registered
+	 * @throws UncheckedIOException if the registrations couldn't be saved to the journal
+	 */
+	public void registerAll(Collection<? extends Student> batch){
 		
-		// Create a new smartcard
-		SmartCard smartCard = SmartCard.createSmartCard(student.getName(), studentID, student.getStudentType(), student.getDateOfBirth());
+		Objects.requireNonNull(batch, "You can't register a null collection of students");
+		
+		Student[] toRegister = batch.toArray(new Student[0]);
+		int count = toRegister.length;
+		
+		StudentName[] names = new StudentName[count];
+		StudentType[] types = new StudentType[count];
+		Date[] datesOfBirth = new Date[count];
+		
+		Set<Student> seen = Collections.newSetFromMap(new IdentityHashMap<>(count * 2));
+		
+		for(int i = 0; i < count; i++){ // Check the whole batch before allocating anything
+			
+			Student student = Objects.requireNonNull(toRegister[i], "You can't register a null student");
+			
+			if(student.getStudentID() != null){
+				throw new IllegalArgumentException("This student is already registered");
+			}
+			
+			if(!seen.add(student)){
+				throw new IllegalArgumentException("This student appears more than once in the batch");
+			}
+			
+			names[i] = student.getName();
+			types[i] = student.getStudentType();
+			datesOfBirth[i] = student.getDateOfBirth();
+		}
+		
+		int[] tooYoung = Eligibility.findTooYoung(types, datesOfBirth); // Check every age before any ID or serial number is used up
+		
+		if(tooYoung.length > 0){
+			throw new IllegalArgumentException("Student " + tooYoung[0] + " is not old enough to be this type of student.");
+		}
+		
+		List<Registration> registrations = new ArrayList<>(count);
+		long[] sequences = new long[count];
+		
+		snapshotLock.readLock().lock();
+		
+		try{
+			StudentID[] ids = StudentID.createStudentIDs(count); // Reserve the IDs for the whole batch
+			SmartCard[] smartCards = SmartCard.createSmartCards(names, ids, types, datesOfBirth); // Issue the cards, which checks the ages again in case the date has changed
+			
+			int claimed = 0;
+			
+			try{
+				for(; claimed < count; claimed++){ // Give each student their ID
+					
+					Student student = toRegister[claimed];
+					
+					synchronized(student){ // Stop another thread registering the same student at once
+						
+						if(student.getStudentID() != null){
+							throw new IllegalArgumentException("This student is already registered");
+						}
+						
+						student.setStudentID(ids[claimed]);
+					}
+					
+					registrations.add(new Registration(student, smartCards[claimed]));
+				}
+				
+				if(journal != null){
+					journal.sync(journal.registerAll(registrations)); // Save the whole batch as one entry, so it is replayed all or nothing
+				}
+				
+			}catch(IOException e){
+				unclaim(toRegister, claimed);
+				throw new UncheckedIOException("The registrations couldn't be saved", e);
+			}catch(RuntimeException e){
+				unclaim(toRegister, claimed);
+				throw e;
+			}
+			
+			for(int i = 0; i < count; i++){ // Add every student to the indexes
+				sequences[i] = add(registrations.get(i), true);
+			}
+			
+		}finally{
+			snapshotLock.readLock().unlock();
+		}
+		
+		for(int i = 0; i < count; i++){
+			events.publish(sequences[i], RegistryEvent.Type.REGISTERED, registrations.get(i), null);
+		}
+		
+		snapshotIfNeeded();
+	}
+	
+	/**
+	 * Removes the IDs given to the first students of a batch, after the batch failed to register.
+	 *
+	 * @param students the students in the batch
+	 * @param claimed the number of students which were given IDs
+	 */
+	private static void unclaim(Student[] students, int claimed){
+		for(int i = 0; i < claimed; i++){
+			students[i].setStudentID(null);
+		}
+	}
+	
+	/**
+	 * Registers a new research student with the supervisor who has the fewest research students, so students are
+	 * spread evenly across the supervisors. Supervisors with the same number of students are picked in the order they
+	 * were loaded. Students registered at the same time from other threads are spread across supervisors too.
+	 *
+	 * @param name the student's name
+	 * @param dateOfBirth the student's date of birth
+	 * @return the registered student
+	 * @throws IllegalStateException if there are no supervisors
+	 * @throws UncheckedIOException if the registration couldn't be saved to the journal
+	 */
+	public PostgraduateResearchStudent registerResearchStudent(StudentName name, Date dateOfBirth){
+		
+		Supervisor supervisor = studentsBySupervisor.reserve(); // Hold a place, so other threads pick someone else
 		
-		// Put the smartcard in the smartcard map
-		smartCards.put(student.getStudentID(), smartCard);
+		if(supervisor == null){
+			throw new IllegalStateException("There are no supervisors to allocate");
+		}
 		
-		// Add the student to the students list
-		students.add(student);
+		try{
+			PostgraduateResearchStudent student = new PostgraduateResearchStudent(name, dateOfBirth, supervisor);
+			registerStudent(student);
+			
+			return student;
+			
+		}finally{
+			studentsBySupervisor.release(supervisor); // The student now counts instead, if they were registered
+		}
 	}
 	
 	/**
@@ -127,17 +542,66 @@ public final class DataSystem {
 	 *  I've made assumptions about the data type of StudentData and how the removal of the student instance from the student list, as this wasn't in the specification.
 	 *  
 	 *  Due to how StudentIDs and SmartCards are unique to an instance of Student, I've chosen to delete all old data on the student and re-register them.
+	 *  If the new student can't be registered, the old student is kept.
 	 *
 	 * @param studentID the student ID to be changed
 	 * @param studentData the student object to be added in
+	 * @throws UncheckedIOException if the change couldn't be saved to the journal
 	 */
 	public void amendStudentData(StudentID studentID, Student studentData){
 		
 		Objects.requireNonNull(studentID, "A studentID can't be null");
 		Objects.requireNonNull(studentData, "A student can't be null");
 		
-		terminateStudent(studentID); // Terminate the old student instance
-		registerStudent(studentData); // Register the new student instance
+		Registration old;
+		Registration registration;
+		long sequence;
+		
+		snapshotLock.readLock().lock();
+		
+		try{
+			old = remove(studentID); // Take the old student instance out of the indexes
+			
+			boolean sameStudent = studentData == old.getStudent(); // The student may have been changed and passed back in
+			
+			if(sameStudent){ // Free the student to be registered again
+				studentData.setStudentID(null);
+			}
+			
+			try{
+				registration = issue(studentData); // Register the new student instance
+			}catch(RuntimeException e){
+				
+				if(sameStudent){
+					studentData.setStudentID(studentID);
+				}
+				
+				add(old); // Put the old student back
+				throw e;
+			}
+			
+			if(journal != null){
+				try{
+					journal.sync(journal.amend(studentID, registration)); // Save the change before applying it
+				}catch(IOException e){
+					studentData.setStudentID(sameStudent ? studentID : null); // Undo the change
+					add(old);
+					throw new UncheckedIOException("The change couldn't be saved", e);
+				}
+			}
+			
+			sequence = add(registration, true);
+			
+			if(!sameStudent){
+				old.getStudent().setStudentID(null); // Remove the old student's id
+			}
+			
+		}finally{
+			snapshotLock.readLock().unlock();
+		}
+		
+		events.publish(sequence, RegistryEvent.Type.AMENDED, registration, old);
+		snapshotIfNeeded();
 	}
 	
 	/**
@@ -145,104 +609,1293 @@ public final class DataSystem {
 	 * effect, the student is leaving the University.
 	 *
 	 * @param studentID the ID of the student to be removed
+	 * @throws UncheckedIOException if the termination couldn't be saved to the journal
 	 */
 	public void terminateStudent (StudentID studentID){
 		
 		Objects.requireNonNull(studentID, "A studentID can't be null");
 		
-		Student terminated = null; // The student to be terminated
+		Registration terminated;
+		long sequence;
 		
-		for(Student student : students){ // Loop through all students
-			if(student.getStudentID().equals(studentID)){ // If this is the correct student
-				terminated = student; // Set to this student
-				break; // End loop
-			}
-		}
+		snapshotLock.readLock().lock();
 		
-		if(terminated == null){ // If the student was not found
-			throw new IllegalArgumentException("This student is not registered");
+		try{
+			terminated = remove(studentID); // Remove the student with that id
+			
+			if(journal != null){
+				try{
+					journal.sync(journal.terminate(studentID)); // Save the termination
+				}catch(IOException e){
+					add(terminated); // Undo the termination
+					throw new UncheckedIOException("The termination couldn't be saved", e);
+				}
+			}
+			
+			terminated.getStudent().setStudentID(null); // Remove the student's id
+			sequence = events.claim(); // The student was added, and their event claimed, before they could be removed
+			
+		}finally{
+			snapshotLock.readLock().unlock();
 		}
 		
-		students.remove(terminated); // Remove the student with that id
-		smartCards.remove(studentID); // Remove the SmartCard which the student had
-		terminated.setStudentID(null); // Remove the student's id
+		events.publish(sequence, RegistryEvent.Type.TERMINATED, terminated, null);
+		snapshotIfNeeded();
 	}
 	
 	/**
-	 * Reads a file line by line, converting each line to an object, then puts the objects into a list.
+	 * Allocates a student ID and SmartCard for a student, then gives the student the ID.
+	 * The student isn't added to the indexes.
 	 *
-	 * @param <T> the generic type of the objects to be created
-	 * @param set the set to be loaded into
-	 * @param file the file to be loaded from
-	 * @param readable the function to convert a line to an object
+	 * @param student the student to be registered
+	 * @return the student and their new smartcard
 	 */
-	private static <T> void read(Set<T> set, File file, Function<String,T> readable){
+	private Registration issue(Student student){
+		
+		if(student.getStudentID() != null){ // Check before allocating anything for the student
+			throw new IllegalArgumentException("This student is already registered");
+		}
+		
+		StudentID studentID = StudentID.createStudentID(); // Create a new student id
+		
+		// Create a new smartcard
+		SmartCard smartCard = SmartCard.createSmartCard(student.getName(), studentID, student.getStudentType(), student.getDateOfBirth());
 		
-		try(BufferedReader reader = new BufferedReader(new FileReader(file))){ // Open the file to read it
+		synchronized(student){ // Stop two threads registering the same student at once
 			
-			reader.lines().forEach(line -> { // Go through each line in the file
-				
-				T result = readable.apply(line); // Apply the function to each
-				set.add(result); // Put the returned value into the list
-				
-			});
+			if(student.getStudentID() != null){ // Check again in case another thread registered the student
+				throw new IllegalArgumentException("This student is already registered");
+			}
 			
-		}catch (IOException e) { // If reading the file failed
-			e.printStackTrace(); // Print an exception
+			student.setStudentID(studentID); // Give the student the id
 		}
+		
+		return new Registration(student, smartCard);
 	}
-
+	
 	/**
-	 * Gets all the modules in the system.
+	 * Adds a registered student and their smartcard to the indexes, such as when they are loaded or a change is undone.
+	 * No event is claimed for them.
 	 *
-	 * @return the modules
+	 * @param registration the student and their smartcard
 	 */
-	public List<Module> getModules() {
-		return new ArrayList<>(modules); // Return a copy of the modules list
+	private void add(Registration registration){
+		add(registration, false);
 	}
 	
 	/**
-	 * Gets a module object by code. Used in debugging and testing.
-	 * 
-	 * @param code the code of the module to find
-	 * @return the module of that code
+	 * Adds a registered student and their smartcard to the indexes.
+	 *
+	 * @param registration the student and their smartcard
+	 * @param claimEvent whether to claim the sequence number of an event for the student, while they are being added
+	 * @return the sequence number of the event, or -1 if none was claimed, which must be published once the locks are released
 	 */
-	public Module getModule(String code){
+	private long add(Registration registration, boolean claimEvent){
+		
+		Student student = registration.getStudent();
+		SmartCard smartCard = registration.getSmartCard();
+		StudentID studentID = smartCard.getStudentID();
 		
-		for(Module m  : modules){ // Loop through all modules
-			if(m.getCode().equalsIgnoreCase(code)){ // If it has the right code
-				return m; // Return the module
+		long birthKey = (epochDay(student.getDateOfBirth()) << 32) | (studentID.toInt() & 0xFFFFFFFFL);
+		Record record = new Record(registration, birthKey);
+		long sequence;
+		
+		synchronized(record){ // A removal of the student waits until they are in every index, so it can't be undone by this
+			
+			if(!records.putIfAbsent(studentID.toInt(), record)){ // Add the student's record
+				throw new IllegalStateException("Student ID " + studentID + " is already in use");
+			}
+			
+			// Add the student to the other indexes
+			smartCardOwners.put(smartCard.getSmartCardNumber(), studentID);
+			studentsByType.get(student.getStudentType()).put(studentID, student);
+			studentsByBirth.put(birthKey, student);
+			
+			if(student instanceof PostgraduateResearchStudent){
+				studentsBySupervisor.add(studentID, (PostgraduateResearchStudent) student);
 			}
+			
+			record.count(counters.get(student.getStudentType())); // Count the student
+			indexModules(record, true);
+			views.updateAndGet(current -> current.with(record)); // Give readers a new snapshot with the student
+			
+			// The event is claimed before the student can be removed, so it comes before the event for their removal
+			sequence = claimEvent ? events.claim() : -1;
+		}
+		
+		if(trackingChanges){ // The next revalidation needs to check the new student
+			changed.add(record);
 		}
 		
-		return null; // Return null if no code matched
+		return sequence;
 	}
 	
 	/**
-	 * Gets all the supervisors in the system.
+	 * Adds a student to, or removes them from, the index of every module they take from the catalogue.
+	 * The record's lock must be held, so the student isn't indexed again after they have been removed.
 	 *
-	 * @return the supervisors
+	 * @param record the student's record
+	 * @param taking true to add the student, or false to remove them
 	 */
-	public List<Supervisor> getSupervisors() {
-		return new ArrayList<>(supervisors); // Return a copy of the supervisors list
+	private void indexModules(Record record, boolean taking){
+		
+		Student student = record.registration.getStudent();
+		StudentID studentID = record.registration.getSmartCard().getStudentID();
+		
+		for(Module module : student.getModules()){
+			
+			int ordinal = ordinalOf(module);
+			
+			if(ordinal < 0){ // The module isn't in the catalogue, so it has no index
+				continue;
+			}
+			
+			if(taking){
+				studentsByModule.get(ordinal).put(studentID, student);
+			}else{
+				studentsByModule.get(ordinal).remove(studentID);
+			}
+		}
 	}
-
+	
 	/**
-	 * Gets all the students in the system.
+	 * Finds a module's position in the catalogue. A module from another catalogue, or one created on its own, is found if an equal module was loaded.
 	 *
-	 * @return the students
+	 * @param module the module
+	 * @return the ordinal, or -1 if the module isn't in the catalogue
 	 */
-	public List<Student> getStudents() {
-		return new ArrayList<>(students); // Return a copy of the students list
+	private int ordinalOf(Module module){
+		return module.getCatalogue() == modules ? module.getOrdinal() : modules.indexOf(module);
 	}
-
+	
 	/**
-	 * Gets the studentID->smartcard map.
+	 * Removes a student and their smartcard from the indexes. The student keeps their ID.
 	 *
-	 * @return the smart cards
+	 * @param studentID the ID of the student
+	 * @return the student and their smartcard
 	 */
-	public Map<StudentID, SmartCard> getSmartCards() {
-		return new HashMap<>(smartCards); // Return a copy of the studentID->smartcard map
+	private Registration remove(StudentID studentID){
+		
+		Record removed = records.remove(studentID.toInt()); // Remove the student with that id
+		
+		if(removed == null){ // If the student was not found
+			throw new IllegalArgumentException("This student is not registered");
+		}
+		
+		StudentType type = removed.registration.getStudent().getStudentType();
+		
+		synchronized(removed){ // Wait for the student to finish being added, if they are still being added
+			
+			studentsByType.get(type).remove(studentID); // Remove the student from its type's index
+			studentsByBirth.remove(removed.birthKey);
+			smartCardOwners.remove(removed.registration.getSmartCard().getSmartCardNumber()); // Remove the SmartCard's number from the index
+			
+			if(removed.registration.getStudent() instanceof PostgraduateResearchStudent){
+				studentsBySupervisor.remove(studentID, (PostgraduateResearchStudent) removed.registration.getStudent());
+			}
+			
+			removed.uncount(counters.get(type)); // Stop counting the student
+			indexModules(removed, false);
+			views.updateAndGet(current -> current.without(removed)); // Give readers a new snapshot without the student
+		}
+		
+		if(trackingChanges){ // The next revalidation needs to stop counting the student
+			changed.add(removed);
+		}
+		
+		return removed.registration;
+	}
+	
+	/**
+	 * Takes a snapshot of every registered student, then clears the journal.
+	 * Students can't be changed while the snapshot is being taken.
+	 *
+	 * @throws IOException if the snapshot couldn't be saved
+	 * @throws IllegalStateException if this system doesn't save its students
+	 */
+	public void snapshot() throws IOException {
+		
+		if(journal == null){
+			throw new IllegalStateException("This system doesn't save its students");
+		}
+		
+		snapshotLock.writeLock().lock();
+		
+		try{
+			List<Registration> registrations = new ArrayList<>(records.size());
+			
+			records.forEach(record -> registrations.add(record.registration)); // Every record already pairs the student with their smartcard
+			
+			Snapshot.write(snapshotFile, journal.getLastSequence(), registrations);
+			journal.reset(); // The snapshot now holds everything in the journal
+			
+		}finally{
+			snapshotLock.writeLock().unlock();
+		}
+	}
+	
+	/**
+	 * Takes a snapshot if the journal has grown too long since the last one.
+	 */
+	private void snapshotIfNeeded(){
+		
+		if(journal == null || journal.size() < SNAPSHOT_INTERVAL){ // If a snapshot isn't needed yet
+			return;
+		}
+		
+		try{
+			snapshotLock.writeLock().lock();
+			
+			try{
+				if(journal.size() >= SNAPSHOT_INTERVAL){ // Check again, in case another thread has just taken a snapshot
+					snapshot();
+				}
+			}finally{
+				snapshotLock.writeLock().unlock();
+			}
+			
+		}catch(IOException e){
+			throw new UncheckedIOException("The snapshot couldn't be saved", e);
+		}
+	}
+	
+	/**
+	 * Saves any pending changes and closes the journal. Systems which don't save their students don't need to be closed.
+	 *
+	 * @throws IOException if the journal couldn't be closed
+	 */
+	public void close() throws IOException {
+		
+		if(journal != null){
+			journal.close();
+		}
+	}
+	
+	/**
+	 * Converts a date to the number of days since 1970-01-01, in the system's time zone.
+	 *
+	 * @param date the date to convert
+	 * @return the number of days
+	 */
+	private static long epochDay(Date date){
+		return Instant.ofEpochMilli(date.getTime()).atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+	}
+	
+	/**
+	 * Reads a file line by line, converting each line to an object, then puts the objects into a list.
+	 * Repeated lines are only included once.
+	 *
+	 * @param <T> the generic type of the objects to be created
+	 * @param file the file to be loaded from
+	 * @param mapper the function to convert a line to an object
+	 * @return an unmodifiable list of the objects
+	 * @throws UncheckedIOException if the file couldn't be read or contains malformed lines
+	 */
+	private static <T> List<T> read(File file, CatalogueLoader.RowMapper<T> mapper){
+		
+		try{
+			Set<T> set = new LinkedHashSet<>(CatalogueLoader.load(file, mapper)); // Load every line of the file into a set, removing repeats
+			
+			return Collections.unmodifiableList(new ArrayList<>(set));
+			
+		}catch (IOException e) { // If reading the file failed, or any of its lines were malformed
+			throw new UncheckedIOException("Couldn't load " + file, e);
+		}
+	}
+
+	/**
+	 * Gets all the modules in the system.
+	 *
+	 * @return the modules
+	 */
+	public List<Module> getModules() {
+		return modules; // The list can't be changed, so it doesn't need to be copied
+	}
+	
+	/**
+	 * Gets a module object by code, ignoring case.
+	 * 
+	 * @param code the code of the module to find
+	 * @return the module of that code, or null if no code matched
+	 */
+	public Module getModule(String code){
+		return code == null ? null : moduleIndex.get(code); // Look the code up in the index
+	}
+	
+	/**
+	 * Finds the modules for several codes at once, such as when importing the modules students are enrolled on.
+	 * 
+	 * @param codes the codes of the modules, ignoring case
+	 * @return the modules, in the same order as the codes
+	 * @throws IllegalArgumentException if any code doesn't match a module, listing every code which didn't match
+	 */
+	public Module[] resolveModules(String... codes){
+		
+		Objects.requireNonNull(codes, "The codes cannot be null");
+		
+		Module[] resolved = new Module[codes.length];
+		List<String> unknown = null;
+		
+		for(int i = 0; i < codes.length; i++){
+			
+			resolved[i] = getModule(Objects.requireNonNull(codes[i], "A module's code cannot be null"));
+			
+			if(resolved[i] == null){ // Collect every unknown code, so they can all be fixed at once
+				
+				if(unknown == null){
+					unknown = new ArrayList<>();
+				}
+				
+				unknown.add(codes[i]);
+			}
+		}
+		
+		if(unknown != null){
+			throw new IllegalArgumentException("No module has the code " + String.join(", ", unknown));
+		}
+		
+		return resolved;
+	}
+	
+	/**
+	 * Gets all the supervisors in the system.
+	 *
+	 * @return the supervisors
+	 */
+	public List<Supervisor> getSupervisors() {
+		return supervisors; // The list can't be changed, so it doesn't need to be copied
+	}
+
+	/**
+	 * Gets all the students in the system.
+	 * The list is an unmodifiable snapshot, which is shared with other callers until a student is registered or terminated.
+	 * A new snapshot is made as each student is registered or terminated, so reading the students never waits for a change.
+	 *
+	 * @return the students
+	 */
+	public List<Student> getStudents() {
+		return views.get().students;
+	}
+	
+	/**
+	 * Gets the number of research students a supervisor has. This is kept up to date as students are registered and
+	 * terminated, so no students are looked at.
+	 *
+	 * @param supervisor the supervisor
+	 * @return the number of research students
+	 */
+	public int getSupervisorLoad(Supervisor supervisor) {
+		
+		Objects.requireNonNull(supervisor, "A supervisor cannot be null");
+		
+		return studentsBySupervisor.getLoad(supervisor);
+	}
+	
+	/**
+	 * Gets the research students a supervisor has.
+	 *
+	 * @param supervisor the supervisor
+	 * @return a copy of the students
+	 */
+	public List<PostgraduateResearchStudent> getStudentsSupervisedBy(Supervisor supervisor) {
+		
+		Objects.requireNonNull(supervisor, "A supervisor cannot be null");
+		
+		return new ArrayList<>(studentsBySupervisor.getStudents(supervisor));
+	}
+	
+	/**
+	 * Gets a lazy stream of the research students a supervisor has, for queries.
+	 *
+	 * @param supervisor the supervisor
+	 * @return the students
+	 */
+	Stream<Student> streamSupervisedBy(Supervisor supervisor) {
+		return studentsBySupervisor.getStudents(supervisor).stream().map(Student.class::cast);
+	}
+	
+	/**
+	 * Gets the stream every registration, amendment and termination is published to, with the smart card issued or
+	 * cancelled. Changes replayed from the journal when the system is opened aren't published.
+	 *
+	 * @return the event stream
+	 */
+	public RegistryEventStream getEvents() {
+		return events;
+	}
+	
+	/**
+	 * Starts a query for students. The query matches every student until filters are added to it.
+	 *
+	 * @return the new query
+	 */
+	public StudentQuery query() {
+		return new StudentQuery(this);
+	}
+	
+	/**
+	 * Gets a lazy stream of every student, for queries.
+	 *
+	 * @return the students
+	 */
+	Stream<Student> streamAll() {
+		return records.stream().map(record -> record.registration.getStudent());
+	}
+	
+	/**
+	 * Gets a lazy stream of the students of a type, for queries.
+	 *
+	 * @param typeOfStudent the type of the students
+	 * @return the students
+	 */
+	Stream<Student> streamOfType(StudentType typeOfStudent) {
+		return studentsByType.get(typeOfStudent).values().stream();
+	}
+	
+	/**
+	 * Gets a lazy stream of the students taking a module, for queries. Like {@link #getStudentsTaking(Module)}, the
+	 * module's index is read if it is in the catalogue, otherwise every student is checked.
+	 *
+	 * @param module the module
+	 * @return the students
+	 */
+	Stream<Student> streamTaking(Module module) {
+		
+		int ordinal = ordinalOf(module);
+		
+		if(ordinal >= 0){ // Read the module's index
+			return studentsByModule.get(ordinal).values().stream();
+		}
+		
+		return streamAll().filter(student -> student instanceof CreditedStudent && ((CreditedStudent) student).takesModule(module));
+	}
+	
+	/**
+	 * Gets a lazy stream of the students born between two days, in order of date of birth, for queries.
+	 *
+	 * @param fromDay the earliest day of birth, as the number of days since 1970-01-01
+	 * @param toDay the latest day of birth, as the number of days since 1970-01-01
+	 * @return the students
+	 */
+	Stream<Student> streamBornBetween(long fromDay, long toDay) {
+		return studentsByBirth.subMap(fromDay << 32, true, (toDay << 32) | 0xFFFFFFFFL, true).values().stream();
+	}
+	
+	/**
+	 * Gets every student taking a module. Students are indexed by module as they are registered, and when they are
+	 * marked as changed with {@link #studentChanged(StudentID)}, so only the students taking the module are looked at.
+	 * A module which isn't in the catalogue has no index, so every student is checked with a single bit test instead.
+	 *
+	 * @param module the module
+	 * @return the students taking the module
+	 */
+	public List<Student> getStudentsTaking(Module module) {
+		
+		Objects.requireNonNull(module, "The module cannot be null");
+		
+		int ordinal = ordinalOf(module);
+		
+		if(ordinal >= 0){ // Read the module's index
+			return new ArrayList<>(studentsByModule.get(ordinal).values());
+		}
+		
+		List<Student> taking = new ArrayList<>();
+		
+		records.forEach(record -> {
+			
+			Student student = record.registration.getStudent();
+			
+			if(student instanceof CreditedStudent && ((CreditedStudent) student).takesModule(module)){
+				taking.add(student);
+			}
+		});
+		
+		return taking;
+	}
+	
+	/**
+	 * Copies every student in the system into a columnar store, for counting and totalling over many students.
+	 * The store is a copy, so students registered or terminated afterwards aren't included.
+	 *
+	 * @return the store
+	 */
+	public ColumnarStudentStore getColumnarStore() {
+		
+		ColumnarStudentStore store = new ColumnarStudentStore(modules);
+		records.forEach(record -> store.add(record.registration.getStudent())); // Copy every student into the store
+		
+		return store;
+	}
+	
+	/**
+	 * Checks whether every student is registered correctly, such as before each term. The students are split between
+	 * the threads of the common fork join pool, so a large system is checked in parallel.
+	 * 
+	 * Unlike the live counters, this checks each student as they are now, so modules added to a student after they
+	 * were registered are counted. Students registered or terminated while the check runs may or may not be included,
+	 * and are checked again by the next {@link #revalidate()}.
+	 *
+	 * @return the report of how many students are registered correctly, and which students aren't
+	 */
+	public ValidationReport validate() {
+		
+		synchronized(validationLock){
+			
+			int run = validation == null ? 1 : validation.run + 1; // Results from earlier runs no longer count
+			
+			trackingChanges = true; // Remember changes made from now on, including those made while checking
+			changed.clear();
+			
+			validation = new ValidationTask(records, 0, records.pageCount(), run).invoke();
+			
+			return validation.report(validation.checked);
+		}
+	}
+	
+	/**
+	 * Checks only the students registered, amended or terminated since the last validation, and any students
+	 * marked with {@link #studentChanged(StudentID)}, then updates the last validation's results with them.
+	 * If the students haven't been validated yet, every student is checked.
+	 *
+	 * @return the report of how many students are registered correctly, and which students aren't
+	 */
+	public ValidationReport revalidate() {
+		
+		synchronized(validationLock){
+			
+			if(validation == null){ // There are no results to build on
+				return validate();
+			}
+			
+			long checked = 0;
+			
+			for(Iterator<Record> iterator = changed.iterator(); iterator.hasNext();){
+				
+				Record record = iterator.next();
+				iterator.remove(); // A record changed again after this is added back
+				
+				validation.uncount(record); // Take away what the record added last time
+				
+				if(records.get(record.handle()) == record){ // If the record is still in the system, check it again
+					validation.check(record);
+					checked++;
+				}
+			}
+			
+			return validation.report(checked);
+		}
+	}
+	
+	/**
+	 * Marks a registered student as changed, such as after adding modules to them. The live counters and the index of
+	 * students taking each module are updated with the student as they are now, and the next {@link #revalidate()} checks them again.
+	 * If the system saves its students, the student's modules are saved to the journal first.
+	 *
+	 * @param studentID the ID of the student
+	 */
+	public void studentChanged(StudentID studentID) {
+		
+		Objects.requireNonNull(studentID, "A studentID can't be null");
+		
+		snapshotLock.readLock().lock();
+		
+		try{
+			Record record = records.get(studentID.toInt());
+			
+			if(record == null){ // If the student was not found
+				throw new IllegalArgumentException("This student is not registered");
+			}
+			
+			if(journal != null){
+				try{
+					// Modules given after registering are only in memory until they are saved here
+					journal.sync(journal.modulesChanged(studentID, record.registration.getStudent().getModules()));
+				}catch(IOException e){
+					throw new UncheckedIOException("The change couldn't be saved", e);
+				}
+			}
+			
+			recount(record);
+			
+		}finally{
+			snapshotLock.readLock().unlock();
+		}
+		
+		snapshotIfNeeded();
+	}
+	
+	/**
+	 * Updates the live counters and the index of students taking each module with a changed student as they are now,
+	 * and marks them to be checked by the next {@link #revalidate()}.
+	 *
+	 * @param record the record of the student
+	 */
+	private void recount(Record record) {
+		
+		synchronized(record){ // Replace what the student added to the counters, and index any modules they have been given
+			
+			record.recount(counters.get(record.registration.getStudent().getStudentType()));
+			
+			if(record.counted){ // Unless the student was removed while this was waiting
+				indexModules(record, true);
+			}
+		}
+		
+		if(trackingChanges){
+			changed.add(record);
+		}
+	}
+	
+	/**
+	 * Gets all the students of a type in the system.
+	 * The list is an unmodifiable snapshot, like {@link #getStudents()}.
+	 *
+	 * @param typeOfStudent the type of the students
+	 * @return the students of that type
+	 */
+	public List<Student> getStudents(StudentType typeOfStudent) {
+		
+		Objects.requireNonNull(typeOfStudent, "The type of student cannot be null");
+		
+		return views.get().studentsByType.get(typeOfStudent);
+	}
+	
+	/**
+	 * Gets the student registered with a student ID.
+	 *
+	 * @param studentID the ID of the student
+	 * @return the student with that ID, or null if no student has that ID
+	 */
+	public Student getStudent(StudentID studentID) {
+		
+		Objects.requireNonNull(studentID, "A studentID can't be null");
+		
+		return student(studentID);
+	}
+	
+	/**
+	 * Gets the student who owns a smart card.
+	 *
+	 * @param smartCardNumber the number of the smart card
+	 * @return the owner of the smart card, or null if no student owns the card
+	 */
+	public Student getStudent(SmartCardNumber smartCardNumber) {
+		
+		Objects.requireNonNull(smartCardNumber, "A smart card number can't be null");
+		
+		StudentID owner = smartCardOwners.get(smartCardNumber); // Find the ID of the card's owner
+		
+		return owner == null ? null : student(owner); // Return the owner, if there is one
+	}
+	
+	/**
+	 * Gets the student registered with a student ID.
+	 *
+	 * @param studentID the ID of the student
+	 * @return the student with that ID, or null if no student has that ID
+	 */
+	private Student student(StudentID studentID) {
+		
+		Record record = records.get(studentID.toInt());
+		
+		return record == null ? null : record.registration.getStudent();
+	}
+
+	/**
+	 * Gets the studentID->smartcard map.
+	 * The map is an unmodifiable snapshot, like {@link #getStudents()}.
+	 *
+	 * @return the smart cards
+	 */
+	public Map<StudentID, SmartCard> getSmartCards() {
+		return views.get().smartCards;
+	}
+	
+	/**
+	 * The live counters for one type of student. Each counter is a LongAdder, so threads registering students
+	 * don't contend with each other or with threads reading the counters.
+	 */
+	private static final class TypeCounters {
+		
+		/** The number of students. */
+		private final LongAdder students = new LongAdder();
+		
+		/** The number of correctly registered students. */
+		private final LongAdder correctlyRegistered = new LongAdder();
+		
+		/** The total credits the students are registered for. */
+		private final LongAdder credits = new LongAdder();
+		
+		/**
+		 * Adds or removes a student from the counters. This is only called while holding the record's lock.
+		 *
+		 * @param record the student's record, which holds what they add to the counters
+		 * @param sign one to add the student, or minus one to remove them
+		 */
+		private void add(Record record, int sign){
+			students.add(sign);
+			correctlyRegistered.add(record.correctlyRegistered ? sign : 0);
+			credits.add((long) sign * record.credits);
+		}
+	}
+	
+	/**
+	 * An unmodifiable snapshot of every student and smartcard, shared by readers until a student is added or removed.
+	 * Adding or removing a student gives a new snapshot which shares everything that didn't change with the old one.
+	 */
+	private static final class Views {
+		
+		/** Every record, indexed by the number of its student ID. */
+		private final SnapshotTable<Record> all;
+		
+		/** The records of each type of student. */
+		private final Map<StudentType,SnapshotTable<Record>> byType;
+		
+		/** Every student. */
+		private final List<Student> students;
+		
+		/** The students of each type. */
+		private final Map<StudentType,List<Student>> studentsByType;
+		
+		/** Every smartcard, indexed by the ID of its owner. */
+		private final Map<StudentID,SmartCard> smartCards;
+		
+		/**
+		 * Instantiates a new snapshot.
+		 *
+		 * @param all every record
+		 * @param byType the records of each type of student
+		 * @param studentsByType the lists of the students of each type, which are reused for the types which didn't change
+		 */
+		private Views(SnapshotTable<Record> all, Map<StudentType,SnapshotTable<Record>> byType, Map<StudentType,List<Student>> studentsByType){
+			this.all = all;
+			this.byType = byType;
+			this.students = Collections.unmodifiableList(new StudentList(all));
+			this.studentsByType = Collections.unmodifiableMap(studentsByType);
+			this.smartCards = Collections.unmodifiableMap(new SmartCardMap(all));
+		}
+		
+		/**
+		 * Gets the snapshot with no students.
+		 *
+		 * @return the empty snapshot
+		 */
+		private static Views empty(){
+			
+			Map<StudentType,SnapshotTable<Record>> byType = new EnumMap<>(StudentType.class);
+			Map<StudentType,List<Student>> studentsByType = new EnumMap<>(StudentType.class);
+			
+			for(StudentType type : StudentType.values()){
+				byType.put(type, SnapshotTable.empty());
+				studentsByType.put(type, Collections.emptyList());
+			}
+			
+			return new Views(SnapshotTable.empty(), byType, studentsByType);
+		}
+		
+		/**
+		 * Gets a snapshot with a student added.
+		 *
+		 * @param record the student's record
+		 * @return the new snapshot
+		 */
+		private Views with(Record record){
+			return replace(record, all.with(record.handle(), record), byType.get(type(record)).with(record.handle(), record));
+		}
+		
+		/**
+		 * Gets a snapshot with a student removed.
+		 *
+		 * @param record the student's record
+		 * @return the new snapshot
+		 */
+		private Views without(Record record){
+			return replace(record, all.without(record.handle()), byType.get(type(record)).without(record.handle()));
+		}
+		
+		/**
+		 * Gets a snapshot with the records of every student and of one type of student replaced.
+		 *
+		 * @param record the record which changed
+		 * @param changedAll the new table of every record
+		 * @param changedType the new table of the records of the student's type
+		 * @return the new snapshot
+		 */
+		private Views replace(Record record, SnapshotTable<Record> changedAll, SnapshotTable<Record> changedType){
+			
+			StudentType type = type(record);
+			
+			Map<StudentType,SnapshotTable<Record>> changedByType = new EnumMap<>(byType);
+			changedByType.put(type, changedType);
+			
+			Map<StudentType,List<Student>> changedStudentsByType = new EnumMap<>(studentsByType);
+			changedStudentsByType.put(type, Collections.unmodifiableList(new StudentList(changedType))); // The other types' lists are shared
+			
+			return new Views(changedAll, changedByType, changedStudentsByType);
+		}
+		
+		/**
+		 * Gets the type of the student in a record.
+		 *
+		 * @param record the record
+		 * @return the type of student
+		 */
+		private static StudentType type(Record record){
+			return record.registration.getStudent().getStudentType();
+		}
+	}
+	
+	/**
+	 * A list of the students in a table of records, in order of their IDs. The list is read straight from the table,
+	 * and the students are only copied into an array the first time one is asked for by its position.
+	 */
+	private static final class StudentList extends AbstractList<Student> implements RandomAccess {
+		
+		/** The records of the students. */
+		private final SnapshotTable<Record> table;
+		
+		/** The students in order, or null if none have been asked for by position yet. */
+		private volatile Student[] byPosition;
+		
+		/**
+		 * Instantiates a new list.
+		 *
+		 * @param table the records of the students
+		 */
+		private StudentList(SnapshotTable<Record> table){
+			this.table = table;
+		}
+		
+		/* (non-Javadoc)
+		 * @see java.util.AbstractList#get(int)
+		 */
+		@Override
+		public Student get(int index){
+			
+			Student[] students = byPosition;
+			
+			if(students == null){ // Copy the students the first time, as the table can only be read in order
+				
+				students = new Student[table.size()];
+				int i = 0;
+				
+				for(Record record : table){
+					students[i++] = record.registration.getStudent();
+				}
+				
+				byPosition = students;
+			}
+			
+			return students[index];
+		}
+		
+		/* (non-Javadoc)
+		 * @see java.util.AbstractCollection#size()
+		 */
+		@Override
+		public int size(){
+			return table.size();
+		}
+		
+		/* (non-Javadoc)
+		 * @see java.util.AbstractList#iterator()
+		 */
+		@Override
+		public Iterator<Student> iterator(){
+			
+			Iterator<Record> records = table.iterator();
+			
+			return new Iterator<Student>(){
+				
+				@Override
+				public boolean hasNext(){
+					return records.hasNext();
+				}
+				
+				@Override
+				public Student next(){
+					return records.next().registration.getStudent();
+				}
+			};
+		}
+	}
+	
+	/**
+	 * A map of the smartcards in a table of records, indexed by the ID of their owner. A smartcard is looked up by the
+	 * number of the ID, without hashing anything.
+	 */
+	private static final class SmartCardMap extends AbstractMap<StudentID,SmartCard> {
+		
+		/** The records of the owners of the smartcards. */
+		private final SnapshotTable<Record> table;
+		
+		/** The entries of the map, read straight from the table. */
+		private final Set<Map.Entry<StudentID,SmartCard>> entries;
+		
+		/**
+		 * Instantiates a new map.
+		 *
+		 * @param table the records of the owners of the smartcards
+		 */
+		private SmartCardMap(SnapshotTable<Record> table){
+			
+			this.table = table;
+			this.entries = new AbstractSet<Map.Entry<StudentID,SmartCard>>(){
+				
+				@Override
+				public Iterator<Map.Entry<StudentID,SmartCard>> iterator(){
+					
+					Iterator<Record> records = table.iterator();
+					
+					return new Iterator<Map.Entry<StudentID,SmartCard>>(){
+						
+						@Override
+						public boolean hasNext(){
+							return records.hasNext();
+						}
+						
+						@Override
+						public Map.Entry<StudentID,SmartCard> next(){
+							
+							SmartCard smartCard = records.next().registration.getSmartCard();
+							
+							return new AbstractMap.SimpleImmutableEntry<>(smartCard.getStudentID(), smartCard);
+						}
+					};
+				}
+				
+				@Override
+				public int size(){
+					return table.size();
+				}
+			};
+		}
+		
+		/* (non-Javadoc)
+		 * @see java.util.AbstractMap#get(java.lang.Object)
+		 */
+		@Override
+		public SmartCard get(Object key){
+			
+			if(!(key instanceof StudentID)){
+				return null;
+			}
+			
+			Record record = table.get(((StudentID) key).toInt()); // The table is indexed by the number of the ID
+			
+			return record == null ? null : record.registration.getSmartCard();
+		}
+		
+		/* (non-Javadoc)
+		 * @see java.util.AbstractMap#containsKey(java.lang.Object)
+		 */
+		@Override
+		public boolean containsKey(Object key){
+			return get(key) != null;
+		}
+		
+		/* (non-Javadoc)
+		 * @see java.util.AbstractMap#size()
+		 */
+		@Override
+		public int size(){
+			return table.size();
+		}
+		
+		/* (non-Javadoc)
+		 * @see java.util.AbstractMap#entrySet()
+		 */
+		@Override
+		public Set<Map.Entry<StudentID,SmartCard>> entrySet(){
+			return entries;
+		}
+	}
+	
+	/**
+	 * Everything the system holds about one registered student: the student, their smartcard, and what they
+	 * added to the counters, so the same amounts can be taken away when they are removed or changed.
+	 */
+	private static final class Record {
+		
+		/** The student and their smartcard. */
+		private final Registration registration;
+		
+		/** The credits the student was registered for when they were last counted. Guarded by the record's lock. */
+		private int credits;
+		
+		/** Whether the student was registered correctly when they were last counted. Guarded by the record's lock. */
+		private boolean correctlyRegistered;
+		
+		/** Whether the student is in the counters. Guarded by the record's lock. */
+		private boolean counted;
+		
+		/** The student's key in the date of birth index. This is kept as the student's Date could be changed. */
+		private final long birthKey;
+		
+		/** The validation run the student was last counted in, or zero if they aren't counted. Only changed while validating. */
+		private int validatedIn;
+		
+		/** Whether the student was registered correctly when they were last validated. */
+		private boolean valid;
+		
+		/** The credits the student was over their expected credits when they were last validated. */
+		private int creditDelta;
+		
+		/**
+		 * Instantiates a new record, which isn't counted yet.
+		 *
+		 * @param registration the student and their smartcard
+		 * @param birthKey the student's key in the date of birth index
+		 */
+		private Record(Registration registration, long birthKey){
+			this.registration = registration;
+			this.birthKey = birthKey;
+		}
+		
+		/**
+		 * Adds the student, as they are now, to their type's counters.
+		 *
+		 * @param typeCounters the counters for the student's type
+		 */
+		private synchronized void count(TypeCounters typeCounters){
+			
+			Student student = registration.getStudent();
+			
+			credits = student instanceof CreditedStudent ? ((CreditedStudent) student).getRegisteredCredits() : 0;
+			correctlyRegistered = student.isRegisteredCorrectly();
+			counted = true;
+			
+			typeCounters.add(this, 1);
+		}
+		
+		/**
+		 * Takes away what the student added to their type's counters, if they are counted.
+		 *
+		 * @param typeCounters the counters for the student's type
+		 */
+		private synchronized void uncount(TypeCounters typeCounters){
+			
+			if(counted){
+				typeCounters.add(this, -1);
+				counted = false;
+			}
+		}
+		
+		/**
+		 * Replaces what the student added to their type's counters with the student as they are now. A student who has
+		 * been removed isn't counted again.
+		 *
+		 * @param typeCounters the counters for the student's type
+		 */
+		private synchronized void recount(TypeCounters typeCounters){
+			
+			if(counted){
+				uncount(typeCounters);
+				count(typeCounters);
+			}
+		}
+		
+		/**
+		 * Gets the student's handle in the table of records, which is the number of their student ID.
+		 *
+		 * @return the handle
+		 */
+		private int handle(){
+			return (int) birthKey; // The lower half of the key is the number
+		}
+	}
+	
+	/**
+	 * The results of validating the students: how many of each type were counted, and which students failed.
+	 * Each record remembers what it added here, so it can be taken away again when the record changes.
+	 */
+	private static final class Validation {
+		
+		/** The run these results belong to. Records counted in an earlier run aren't part of these results. */
+		private final int run;
+		
+		/** The number of students of each type, indexed by the type's ordinal. */
+		private final long[] students;
+		
+		/** The number of correctly registered students of each type, indexed by the type's ordinal. */
+		private final long[] correctlyRegistered;
+		
+		/** The total credits the failed students of each type are over their expected credits, indexed by the type's ordinal. */
+		private final long[] creditDeltas;
+		
+		/** The records of the students who failed, indexed by the number of their student ID. */
+		private final TreeMap<Integer,Record> failures;
+		
+		/** The number of students checked. */
+		private long checked;
+		
+		/**
+		 * Instantiates new, empty results.
+		 *
+		 * @param run the run the results belong to
+		 */
+		private Validation(int run){
+			this.run = run;
+			this.students = new long[StudentType.values().length];
+			this.correctlyRegistered = new long[students.length];
+			this.creditDeltas = new long[students.length];
+			this.failures = new TreeMap<>();
+		}
+		
+		/**
+		 * Checks whether a student is registered correctly, and counts them.
+		 *
+		 * @param record the student's record
+		 */
+		private void check(Record record){
+			
+			Student student = record.registration.getStudent();
+			
+			record.valid = student.isRegisteredCorrectly();
+			record.creditDelta = student instanceof CreditedStudent
+					? ((CreditedStudent) student).getRegisteredCredits() - ((CreditedStudent) student).getExpectedCredits() : 0;
+			record.validatedIn = run;
+			
+			count(record, 1);
+			checked++;
+		}
+		
+		/**
+		 * Stops counting a student, if they were counted in this run.
+		 *
+		 * @param record the student's record
+		 */
+		private void uncount(Record record){
+			
+			if(record.validatedIn == run){
+				count(record, -1);
+				record.validatedIn = 0;
+			}
+		}
+		
+		/**
+		 * Adds or removes what a student was last validated as.
+		 *
+		 * @param record the student's record
+		 * @param sign one to add the student, or minus one to remove them
+		 */
+		private void count(Record record, int sign){
+			
+			int type = record.registration.getStudent().getStudentType().ordinal();
+			
+			students[type] += sign;
+			
+			if(record.valid){
+				correctlyRegistered[type] += sign;
+			}else{
+				
+				creditDeltas[type] += (long) sign * record.creditDelta;
+				
+				if(sign > 0){
+					failures.put(record.handle(), record);
+				}else{
+					failures.remove(record.handle(), record); // A record put back with the same ID may have replaced it
+				}
+			}
+		}
+		
+		/**
+		 * Adds the results of another part of the same run to these results.
+		 *
+		 * @param other the other results
+		 */
+		private void addAll(Validation other){
+			
+			for(int type = 0; type < students.length; type++){
+				students[type] += other.students[type];
+				correctlyRegistered[type] += other.correctlyRegistered[type];
+				creditDeltas[type] += other.creditDeltas[type];
+			}
+			
+			failures.putAll(other.failures);
+			checked += other.checked;
+		}
+		
+		/**
+		 * Makes a report of the current results.
+		 *
+		 * @param checked the number of students checked to make the report
+		 * @return the report
+		 */
+		private ValidationReport report(long checked){
+			
+			StudentID[] failed = new StudentID[failures.size()];
+			int[] failedCreditDeltas = new int[failed.length];
+			int i = 0;
+			
+			for(Record record : failures.values()){ // The failures are in order of their numbers
+				failed[i] = record.registration.getSmartCard().getStudentID();
+				failedCreditDeltas[i++] = record.creditDelta;
+			}
+			
+			return new ValidationReport(students.clone(), correctlyRegistered.clone(), creditDeltas.clone(), failed, failedCreditDeltas, checked);
+		}
+	}
+	
+	/**
+	 * Validates the records in a range of pages of the table, splitting the range in half until each task has one page.
+	 */
+	private static final class ValidationTask extends RecursiveTask<Validation> {
+		
+		/** The serial version UID. */
+		private static final long serialVersionUID = 1L;
+		
+		/** The table of records. */
+		private final transient StudentTable<Record> records;
+		
+		/** The first page, inclusive. */
+		private final int fromPage;
+		
+		/** The last page, exclusive. */
+		private final int toPage;
+		
+		/** The run the results belong to. */
+		private final int run;
+		
+		/**
+		 * Instantiates a new task.
+		 *
+		 * @param records the table of records
+		 * @param fromPage the first page, inclusive
+		 * @param toPage the last page, exclusive
+		 * @param run the run the results belong to
+		 */
+		private ValidationTask(StudentTable<Record> records, int fromPage, int toPage, int run){
+			this.records = records;
+			this.fromPage = fromPage;
+			this.toPage = toPage;
+			this.run = run;
+		}
+		
+		/* (non-Javadoc)
+		 * @see java.util.concurrent.RecursiveTask#compute()
+		 */
+		@Override
+		protected Validation compute(){
+			
+			if(toPage - fromPage <= 1){ // A page is small enough to check on one thread
+				
+				Validation validation = new Validation(run);
+				records.forEach(fromPage, toPage, validation::check);
+				
+				return validation;
+			}
+			
+			int middle = (fromPage + toPage) >>> 1;
+			
+			ValidationTask left = new ValidationTask(records, fromPage, middle, run);
+			left.fork(); // Let another thread take the first half
+			
+			Validation validation = new ValidationTask(records, middle, toPage, run).compute();
+			validation.addAll(left.join());
+			
+			return validation;
+		}
 	}
 	
 }
@@ -1,9 +1,14 @@
 package com.wilfaskins.studentdata;
 
+import java.util.List;
 import java.util.Objects;
 
 /**
  * This class represents a Module and it's details.
+ * 
+ * When a data system loads its modules, each one is given its position in that catalogue as its ordinal, counting up
+ * from zero, so a set of modules from the catalogue can be stored as the bits of a long array. A module which was
+ * created on its own, outside of a catalogue, has no ordinal.
  *
  * @author Wilfrid Askins
  */
@@ -18,6 +23,12 @@ public final class Module{
 	/** The module's credits. */
 	private final int credits;
 	
+	/** The module's position in its catalogue, or -1 if it isn't in one. */
+	private int ordinal;
+	
+	/** The catalogue the module was loaded in, or null if it isn't in one. */
+	private List<Module> catalogue;
+	
 	/**
 	 * Instantiates a new module.
 	 *
@@ -39,6 +50,24 @@ public final class Module{
 		this.code = code;
 		this.name = name;
 		this.credits = credits;
+		this.ordinal = -1; // The module isn't in a catalogue until one is loaded with it
+	}
+	
+	/**
+	 * Puts the module in a catalogue. This is done once, while the catalogue is being loaded and before the module is shared.
+	 *
+	 * @param catalogue the catalogue, which must be unmodifiable
+	 * @param ordinal the module's position in the catalogue
+	 * @throws IllegalStateException if the module is already in a catalogue
+	 */
+	void setCatalogue(List<Module> catalogue, int ordinal){
+		
+		if(this.catalogue != null){ // A module's ordinal can only mean one thing
+			throw new IllegalStateException("The module " + code + " is already in a catalogue");
+		}
+		
+		this.catalogue = catalogue;
+		this.ordinal = ordinal;
 	}
 	
 	/**
@@ -67,6 +96,24 @@ public final class Module{
 	public int getCredits() {
 		return credits;
 	}
+	
+	/**
+	 * Gets the module's ordinal, which is its position in its catalogue.
+	 *
+	 * @return the ordinal, or -1 if the module isn't in a catalogue
+	 */
+	public int getOrdinal() {
+		return ordinal;
+	}
+	
+	/**
+	 * Gets the catalogue the module was loaded in. The module is at its ordinal in the catalogue.
+	 *
+	 * @return the catalogue, or null if the module isn't in one
+	 */
+	public List<Module> getCatalogue() {
+		return catalogue;
+	}
 
 	/**
 	 * Finds the Module value of a string.
@@ -0,0 +1,110 @@
+package com.wilfaskins.studentdata;
+
+import java.util.List;
+
+/**
+ * A case insensitive index of modules by code, built once when the modules are loaded. Building the index also
+ * gives each module its position in the catalogue as its ordinal.
+ *
+ * The modules are kept in an open addressing table, so finding a module hashes the code as it is given, without
+ * making an upper or lower case copy of it, and compares it with the codes in the table in place.
+ *
+ * @author Wilfrid Askins
+ */
+final class ModuleIndex {
+
+	/** The modules, at the slot their code hashes to or the next free slot after it. */
+	private final Module[] slots;
+
+	/** The hash of the code of the module in each slot. */
+	private final int[] hashes;
+
+	/** Used to find a slot from a hash. The table's size is a power of two. */
+	private final int mask;
+
+	/**
+	 * Builds an index of a catalogue of modules. If two modules have the same code, the first is kept.
+	 *
+	 * @param modules the catalogue, which must be unmodifiable
+	 * @throws IllegalStateException if any of the modules are already in another catalogue
+	 */
+	ModuleIndex(List<Module> modules) {
+		super();
+
+		int size = Integer.highestOneBit(Math.max(2, modules.size() * 2 - 1)) << 1; // Keep the table at most half full
+
+		this.slots = new Module[size];
+		this.hashes = new int[size];
+		this.mask = size - 1;
+
+		for(int i = 0; i < modules.size(); i++){
+
+			Module module = modules.get(i);
+
+			module.setCatalogue(modules, i); // The ordinals count up from zero, in the order the modules were loaded
+			add(module);
+		}
+	}
+
+	/**
+	 * Adds a module to the table, unless a module with the same code is already there.
+	 *
+	 * @param module the module to add
+	 */
+	private void add(Module module) {
+
+		String code = module.getCode();
+		int hash = hash(code);
+
+		for(int slot = hash & mask; ; slot = (slot + 1) & mask){
+
+			if(slots[slot] == null){ // If the slot is free
+				slots[slot] = module;
+				hashes[slot] = hash;
+				return;
+			}
+
+			if(hashes[slot] == hash && slots[slot].getCode().equalsIgnoreCase(code)){ // If the code is already taken
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Finds a module by its code, ignoring case.
+	 *
+	 * @param code the code of the module
+	 * @return the module with that code, or null if there isn't one
+	 */
+	Module get(String code) {
+
+		int hash = hash(code);
+
+		for(int slot = hash & mask; slots[slot] != null; slot = (slot + 1) & mask){ // Stop at the first free slot
+			if(hashes[slot] == hash && slots[slot].getCode().equalsIgnoreCase(code)){
+				return slots[slot];
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Hashes a code so that codes which are equal ignoring case have the same hash.
+	 * Each character is folded the same way as {@link String#equalsIgnoreCase(String)} compares them.
+	 *
+	 * @param code the code
+	 * @return the hash
+	 */
+	private static int hash(String code) {
+
+		int hash = 0;
+
+		for(int i = 0; i < code.length(); i++){
+			hash = 31 * hash + Character.toLowerCase(Character.toUpperCase(code.charAt(i)));
+		}
+
+		return hash ^ (hash >>> 16); // Spread the upper bits into the ones used to pick a slot
+	}
+
+}
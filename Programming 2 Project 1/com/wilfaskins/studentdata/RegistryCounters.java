@@ -0,0 +1,98 @@
+package com.wilfaskins.studentdata;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import com.wilfaskins.studentdata.students.StudentType;
+
+/**
+ * A snapshot of the live counters kept by a DataSystem.
+ * The counters are read without stopping students being registered, so a snapshot taken while students are being
+ * registered may count some of the changes made during the snapshot and not others.
+ *
+ * @author Wilfrid Askins
+ */
+public final class RegistryCounters {
+
+	/** The number of students of each type, indexed by the type's ordinal. */
+	private final long[] students;
+
+	/** The number of correctly registered students of each type, indexed by the type's ordinal. */
+	private final long[] correctlyRegistered;
+
+	/** The total credits the students of each type are registered for, indexed by the type's ordinal. */
+	private final long[] credits;
+
+	/**
+	 * Instantiates a new counters snapshot.
+	 *
+	 * @param students the number of students of each type
+	 * @param correctlyRegistered the number of correctly registered students of each type
+	 * @param credits the total credits the students of each type are registered for
+	 */
+	RegistryCounters(long[] students, long[] correctlyRegistered, long[] credits) {
+		super();
+		this.students = students;
+		this.correctlyRegistered = correctlyRegistered;
+		this.credits = credits;
+	}
+
+	/**
+	 * Gets the number of students of a type.
+	 *
+	 * @param type the type of student
+	 * @return the number of students
+	 */
+	public long getStudents(StudentType type) {
+		return students[Objects.requireNonNull(type, "The type of student cannot be null").ordinal()];
+	}
+
+	/**
+	 * Gets the number of students of every type.
+	 *
+	 * @return the number of students
+	 */
+	public long getTotalStudents() {
+		return Arrays.stream(students).sum();
+	}
+
+	/**
+	 * Gets the number of students of a type who were registered correctly.
+	 *
+	 * @param type the type of student
+	 * @return the number of correctly registered students
+	 */
+	public long getCorrectlyRegistered(StudentType type) {
+		return correctlyRegistered[Objects.requireNonNull(type, "The type of student cannot be null").ordinal()];
+	}
+
+	/**
+	 * Gets the number of students of a type who were not registered correctly.
+	 *
+	 * @param type the type of student
+	 * @return the number of incorrectly registered students
+	 */
+	public long getIncorrectlyRegistered(StudentType type) {
+		return getStudents(type) - getCorrectlyRegistered(type);
+	}
+
+	/**
+	 * Gets the total credits the students of a type are registered for.
+	 *
+	 * @param type the type of student
+	 * @return the total credits
+	 */
+	public long getCredits(StudentType type) {
+		return credits[Objects.requireNonNull(type, "The type of student cannot be null").ordinal()];
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "RegistryCounters [students=" + Arrays.toString(students) + ", correctlyRegistered="
+				+ Arrays.toString(correctlyRegistered) + ", credits=" + Arrays.toString(credits) + "]";
+	}
+
+}
@@ -0,0 +1,100 @@
+package com.wilfaskins.studentdata;
+
+import com.wilfaskins.studentdata.io.Registration;
+
+/**
+ * A change made to the students in a DataSystem, delivered to subscribers of its {@link RegistryEventStream}.
+ *
+ * @author Wilfrid Askins
+ */
+public final class RegistryEvent {
+
+	/**
+	 * The kinds of change.
+	 */
+	public enum Type {
+
+		/** A student was registered and issued a smart card. */
+		REGISTERED,
+
+		/** A student's details were changed, so they were issued a new ID and smart card. */
+		AMENDED,
+
+		/** A student was terminated, so their smart card is no longer valid. */
+		TERMINATED
+	}
+
+	/** The kind of change. */
+	private final Type type;
+
+	/** The position of the event in the stream. */
+	private final long sequence;
+
+	/** The student and smart card the change is about. */
+	private final Registration registration;
+
+	/** The student and smart card which were replaced, or null if nothing was replaced. */
+	private final Registration previous;
+
+	/**
+	 * Instantiates a new event.
+	 *
+	 * @param type the kind of change
+	 * @param sequence the position of the event in the stream
+	 * @param registration the student and smart card the change is about
+	 * @param previous the student and smart card which were replaced, or null if nothing was replaced
+	 */
+	RegistryEvent(Type type, long sequence, Registration registration, Registration previous) {
+		super();
+		this.type = type;
+		this.sequence = sequence;
+		this.registration = registration;
+		this.previous = previous;
+	}
+
+	/**
+	 * Gets the kind of change.
+	 *
+	 * @return the kind of change
+	 */
+	public Type getType() {
+		return type;
+	}
+
+	/**
+	 * Gets the position of the event in the stream. Each event is one after the event before it.
+	 *
+	 * @return the position of the event
+	 */
+	public long getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * Gets the student and smart card the change is about. For a registration or amendment this is the new student
+	 * and their new smart card, and for a termination it is the student who was terminated and their old smart card.
+	 *
+	 * @return the student and their smart card
+	 */
+	public Registration getRegistration() {
+		return registration;
+	}
+
+	/**
+	 * Gets the student and smart card which an amendment replaced.
+	 *
+	 * @return the old student and their old smart card, or null if this event isn't an amendment
+	 */
+	public Registration getPrevious() {
+		return previous;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "RegistryEvent [type=" + type + ", sequence=" + sequence + ", registration=" + registration + ", previous=" + previous + "]";
+	}
+
+}
@@ -0,0 +1,248 @@
+package com.wilfaskins.studentdata;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import com.wilfaskins.studentdata.io.Registration;
+
+/**
+ * A stream of every change made to the students in a DataSystem, for systems which need to hear about them,
+ * such as the library, IT accounts and door access.
+ *
+ * Events are kept in a fixed size ring buffer. Each subscriber has its own cursor, and reads the events after it in
+ * batches, so a slow subscriber doesn't hold up the others until it is a whole buffer behind. When the buffer is full,
+ * publishing waits for the slowest subscriber to catch up, so events are never lost or overwritten. A subscriber which
+ * stops reading must be closed, or registering students will eventually wait for it forever.
+ *
+ * Publishing is done in two steps. The sequence number is claimed with one atomic increment while the change is being
+ * made, so events are numbered in the order their changes were made. The event is written to its slot afterwards,
+ * once the change's locks have been released, so a publisher waiting for a slow subscriber doesn't hold anything up.
+ * Subscribers stop at a slot which hasn't been written yet, so they always read the events in order. No lock is taken,
+ * and when nobody is subscribed nothing is published at all.
+ *
+ * @author Wilfrid Askins
+ */
+public final class RegistryEventStream {
+
+	/** How long a waiting publisher or subscriber sleeps between checks, in nanoseconds. */
+	private static final long PAUSE_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+	/** The events, each in the slot picked by its sequence number. A slot holds an older event until it is overwritten. */
+	private final AtomicReferenceArray<RegistryEvent> buffer;
+
+	/** Used to find an event's slot from its sequence number. The buffer's size is a power of two. */
+	private final int mask;
+
+	/** The sequence number the next event will be given. */
+	private final AtomicLong nextSequence;
+
+	/** The open subscriptions. */
+	private final List<Subscription> subscriptions;
+
+	/** The lowest cursor of any subscriber, the last time it was worked out. The real lowest cursor can only be higher. */
+	private volatile long gatingSequence;
+
+	/**
+	 * Instantiates a new stream.
+	 *
+	 * @param capacity the number of events the buffer holds, which is rounded up to a power of two
+	 */
+	RegistryEventStream(int capacity) {
+		super();
+
+		if(capacity < 1 || capacity > 1 << 30){
+			throw new IllegalArgumentException("The capacity must be between 1 and 2^30");
+		}
+
+		int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+
+		this.buffer = new AtomicReferenceArray<>(size);
+		this.mask = size - 1;
+		this.nextSequence = new AtomicLong();
+		this.subscriptions = new CopyOnWriteArrayList<>();
+	}
+
+	/**
+	 * Gets the number of events the buffer holds.
+	 *
+	 * @return the capacity
+	 */
+	public int getCapacity() {
+		return mask + 1;
+	}
+
+	/**
+	 * Subscribes to the stream. The subscriber receives every event published after it subscribed.
+	 *
+	 * @return the subscription, which must be closed when the subscriber stops reading
+	 */
+	public Subscription subscribe() {
+
+		Subscription subscription = new Subscription(nextSequence.get());
+		subscriptions.add(subscription);
+
+		return subscription;
+	}
+
+	/**
+	 * Claims the sequence number of the next event. This is called while the change is being made, so that the events
+	 * are numbered in the same order as the changes. Every sequence number claimed must then be published, or the
+	 * subscribers will stop at it.
+	 *
+	 * @return the sequence number, or -1 if nobody is subscribed, so there is nothing to publish
+	 */
+	long claim() {
+
+		if(subscriptions.isEmpty()){ // Nobody would read the event
+			return -1;
+		}
+
+		return nextSequence.getAndIncrement();
+	}
+
+	/**
+	 * Publishes an event with a sequence number which has been claimed, waiting if the buffer is full until the slowest
+	 * subscriber has made room.
+	 *
+	 * @param sequence the sequence number from {@link #claim()}, or -1 if there is nothing to publish
+	 * @param type the kind of change
+	 * @param registration the student and smart card the change is about
+	 * @param previous the student and smart card which were replaced, or null if nothing was replaced
+	 */
+	void publish(long sequence, RegistryEvent.Type type, Registration registration, Registration previous) {
+
+		if(sequence < 0){ // Nobody was subscribed when the change was made
+			return;
+		}
+
+		while(sequence - getCapacity() >= gatingSequence){ // If the slot still holds an event a subscriber hasn't read
+
+			gatingSequence = lowestCursor(sequence);
+
+			if(sequence - getCapacity() >= gatingSequence){ // Wait for the slowest subscriber to read it
+				LockSupport.parkNanos(PAUSE_NANOS);
+			}
+		}
+
+		buffer.set((int) sequence & mask, new RegistryEvent(type, sequence, registration, previous));
+	}
+
+	/**
+	 * Works out the lowest cursor of any subscriber.
+	 *
+	 * @param sequence the sequence number being published, which is used if there are no subscribers
+	 * @return the lowest cursor
+	 */
+	private long lowestCursor(long sequence) {
+
+		long lowest = sequence;
+
+		for(Subscription subscription : subscriptions){
+			lowest = Math.min(lowest, subscription.cursor);
+		}
+
+		return lowest;
+	}
+
+	/**
+	 * A subscriber's place in the stream. A subscription should only be read by one thread at a time.
+	 */
+	public final class Subscription implements AutoCloseable {
+
+		/** The sequence number of the next event to read. */
+		private volatile long cursor;
+
+		/**
+		 * Instantiates a new subscription.
+		 *
+		 * @param cursor the sequence number of the first event to read
+		 */
+		private Subscription(long cursor) {
+			super();
+			this.cursor = cursor;
+		}
+
+		/**
+		 * Reads the events which have been published since the last read, without waiting.
+		 *
+		 * @param maxEvents the largest number of events to read
+		 * @return the events, in order, which is empty if there are none
+		 */
+		public List<RegistryEvent> poll(int maxEvents) {
+
+			if(maxEvents < 1){
+				throw new IllegalArgumentException("At least one event must be read");
+			}
+
+			List<RegistryEvent> batch = new ArrayList<>();
+			long next = cursor;
+
+			while(batch.size() < maxEvents){
+
+				RegistryEvent event = buffer.get((int) next & mask);
+
+				if(event == null || event.getSequence() != next){ // If the next event hasn't been written yet
+					break;
+				}
+
+				batch.add(event);
+				next++;
+			}
+
+			cursor = next; // Free the slots which have been read
+
+			return batch;
+		}
+
+		/**
+		 * Reads the events which have been published since the last read, waiting until there is at least one.
+		 *
+		 * @param maxEvents the largest number of events to read
+		 * @param timeout the longest time to wait
+		 * @param unit the unit of the timeout
+		 * @return the events, in order, which is empty if none were published before the timeout
+		 * @throws InterruptedException if the thread was interrupted while waiting
+		 */
+		public List<RegistryEvent> await(int maxEvents, long timeout, TimeUnit unit) throws InterruptedException {
+
+			long deadline = System.nanoTime() + unit.toNanos(timeout);
+			List<RegistryEvent> batch = poll(maxEvents);
+
+			while(batch.isEmpty() && System.nanoTime() < deadline){
+
+				LockSupport.parkNanos(PAUSE_NANOS);
+
+				if(Thread.interrupted()){
+					throw new InterruptedException();
+				}
+
+				batch = poll(maxEvents);
+			}
+
+			return batch;
+		}
+
+		/**
+		 * Gets the sequence number of the next event this subscriber will read.
+		 *
+		 * @return the sequence number
+		 */
+		public long getCursor() {
+			return cursor;
+		}
+
+		/**
+		 * Stops the subscription, so publishing no longer waits for it.
+		 */
+		@Override
+		public void close() {
+			subscriptions.remove(this);
+		}
+	}
+
+}
@@ -0,0 +1,198 @@
+package com.wilfaskins.studentdata;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An unmodifiable table of records indexed by a dense integer handle, such as the number of a student ID.
+ *
+ * Adding or removing a record gives a new table and leaves the old one as it was, so a table can be shared with any
+ * number of readers without locking. The table is split into fixed size pages, and a new table only copies the list of
+ * pages and the one page which changed, sharing every other page with the old table.
+ *
+ * @param <T> the type of the records
+ * @author Wilfrid Askins
+ */
+final class SnapshotTable<T> implements Iterable<T> {
+
+	/** The number of bits of a handle which pick the slot within a page. */
+	private static final int PAGE_BITS = 9;
+
+	/** The number of records in each page. */
+	private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+	/** Used to find the slot within a page from a handle. */
+	private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+	/** The table with no records, which every empty table shares. */
+	private static final SnapshotTable<Object> EMPTY = new SnapshotTable<>(new Object[0][], new int[0], 0);
+
+	/** The pages of the table, or null for a page with no records. Neither the array nor the pages are changed once the table has been created. */
+	private final Object[][] pages;
+
+	/** The number of records in each page. */
+	private final int[] counts;
+
+	/** The number of records in the table. */
+	private final int size;
+
+	/**
+	 * Instantiates a new table.
+	 *
+	 * @param pages the pages, which mustn't be changed afterwards
+	 * @param counts the number of records in each page
+	 * @param size the number of records in the table
+	 */
+	private SnapshotTable(Object[][] pages, int[] counts, int size) {
+		super();
+		this.pages = pages;
+		this.counts = counts;
+		this.size = size;
+	}
+
+	/**
+	 * Gets the table with no records.
+	 *
+	 * @param <T> the type of the records
+	 * @return the empty table
+	 */
+	@SuppressWarnings("unchecked")
+	static <T> SnapshotTable<T> empty() {
+		return (SnapshotTable<T>) EMPTY;
+	}
+
+	/**
+	 * Gets the record with a handle.
+	 *
+	 * @param handle the handle of the record
+	 * @return the record, or null if there is no record with that handle
+	 */
+	@SuppressWarnings("unchecked")
+	T get(int handle) {
+
+		int page = handle >>> PAGE_BITS;
+
+		if(handle < 0 || page >= pages.length || pages[page] == null){ // If the handle is outside the table
+			return null;
+		}
+
+		return (T) pages[page][handle & PAGE_MASK];
+	}
+
+	/**
+	 * Gets a table with a record added, or replacing the record with the same handle. This table isn't changed.
+	 *
+	 * @param handle the handle of the record
+	 * @param record the record to be added
+	 * @return the new table
+	 */
+	SnapshotTable<T> with(int handle, T record) {
+
+		if(handle < 0){
+			throw new IllegalArgumentException("A handle can't be negative");
+		}
+
+		int page = handle >>> PAGE_BITS;
+
+		Object[][] copied = Arrays.copyOf(pages, Math.max(pages.length, page + 1));
+		int[] copiedCounts = Arrays.copyOf(counts, copied.length);
+		Object[] slots = copied[page] == null ? new Object[PAGE_SIZE] : copied[page].clone(); // Only the page being changed is copied
+
+		boolean added = slots[handle & PAGE_MASK] == null;
+
+		slots[handle & PAGE_MASK] = record;
+		copied[page] = slots;
+
+		if(added){
+			copiedCounts[page]++;
+		}
+
+		return new SnapshotTable<>(copied, copiedCounts, added ? size + 1 : size);
+	}
+
+	/**
+	 * Gets a table with the record with a handle removed. This table isn't changed.
+	 *
+	 * @param handle the handle of the record
+	 * @return the new table, or this table if there is no record with that handle
+	 */
+	SnapshotTable<T> without(int handle) {
+
+		if(get(handle) == null){ // If there is nothing to remove
+			return this;
+		}
+
+		int page = handle >>> PAGE_BITS;
+
+		Object[][] copied = pages.clone();
+		int[] copiedCounts = counts.clone();
+
+		if(--copiedCounts[page] == 0){ // Drop the page once it is empty
+			copied[page] = null;
+		}else{
+			copied[page] = pages[page].clone();
+			copied[page][handle & PAGE_MASK] = null;
+		}
+
+		return new SnapshotTable<>(copied, copiedCounts, size - 1);
+	}
+
+	/**
+	 * Gets the number of records in the table.
+	 *
+	 * @return the number of records
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Gets an iterator over the records in the table, in order of their handles.
+	 *
+	 * @return the iterator
+	 */
+	@Override
+	public Iterator<T> iterator() {
+
+		return new Iterator<T>() {
+
+			/** The handle of the next slot to look at. */
+			private int handle;
+
+			/** The next record, or null if it hasn't been found yet. */
+			private T next;
+
+			@Override
+			public boolean hasNext() {
+
+				while(next == null && handle < pages.length * PAGE_SIZE){
+
+					if(pages[handle >>> PAGE_BITS] == null){ // Skip a whole empty page
+						handle = (handle | PAGE_MASK) + 1;
+						continue;
+					}
+
+					next = get(handle);
+					handle++;
+				}
+
+				return next != null;
+			}
+
+			@Override
+			public T next() {
+
+				if(!hasNext()){
+					throw new NoSuchElementException();
+				}
+
+				T record = next;
+				next = null;
+
+				return record;
+			}
+		};
+	}
+
+}
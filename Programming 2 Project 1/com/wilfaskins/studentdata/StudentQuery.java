@@ -0,0 +1,252 @@
+package com.wilfaskins.studentdata;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.wilfaskins.studentdata.students.CreditedStudent;
+import com.wilfaskins.studentdata.students.PostgraduateResearchStudent;
+import com.wilfaskins.studentdata.students.Student;
+import com.wilfaskins.studentdata.students.StudentType;
+
+/**
+ * A query for the students in a DataSystem, created by {@link DataSystem#query()}.
+ *
+ * Filters are added one at a time, then the results are read with {@link #stream()}, {@link #list()} or
+ * {@link #count()}. The query starts from the narrowest index which matches one of its filters: the date of birth
+ * index if a range of dates is given, the supervisor index if a supervisor is given, the module index if a module is
+ * given, or the student type index if a type is given. Only the students from that index
+ * are checked against the other filters, and they are checked as the results are read, so nothing is copied up front.
+ *
+ * A query isn't safe to build from several threads, but its results can be read while students are being registered.
+ * Students registered or terminated while the results are read may or may not be included.
+ *
+ * @author Wilfrid Askins
+ */
+public final class StudentQuery {
+
+	/** The system being queried. */
+	private final DataSystem dataSystem;
+
+	/** The type of student to find, or null for every type. */
+	private StudentType type;
+
+	/** The module the students must take, or null for any module. */
+	private Module module;
+
+	/** Whether a module was asked for which doesn't exist, so no students can match. */
+	private boolean unknownModule;
+
+	/** The supervisor the students must have, or null for any supervisor. */
+	private Supervisor supervisor;
+
+	/** Whether the students must be registered correctly, or null for either. */
+	private Boolean registeredCorrectly;
+
+	/** The earliest date of birth, or null for no limit. */
+	private LocalDate bornFrom;
+
+	/** The latest date of birth, or null for no limit. */
+	private LocalDate bornTo;
+
+	/** The number of matching students to skip. */
+	private long offset;
+
+	/** The largest number of students to return. */
+	private long limit;
+
+	/**
+	 * Instantiates a new query which matches every student.
+	 *
+	 * @param dataSystem the system being queried
+	 */
+	StudentQuery(DataSystem dataSystem) {
+		super();
+		this.dataSystem = dataSystem;
+		this.limit = Long.MAX_VALUE;
+	}
+
+	/**
+	 * Only finds students of a type.
+	 *
+	 * @param type the type of student
+	 * @return this query
+	 */
+	public StudentQuery ofType(StudentType type) {
+		this.type = Objects.requireNonNull(type, "The type of student cannot be null");
+		return this;
+	}
+
+	/**
+	 * Only finds students taking a module.
+	 *
+	 * @param code the code of the module, which isn't case sensitive
+	 * @return this query
+	 */
+	public StudentQuery takingModule(String code) {
+
+		Objects.requireNonNull(code, "A module's code cannot be null");
+
+		this.module = dataSystem.getModule(code);
+		this.unknownModule = module == null; // No students can take a module which doesn't exist
+
+		return this;
+	}
+
+	/**
+	 * Only finds research students with a supervisor.
+	 *
+	 * @param supervisor the supervisor
+	 * @return this query
+	 */
+	public StudentQuery supervisedBy(Supervisor supervisor) {
+		this.supervisor = Objects.requireNonNull(supervisor, "A supervisor cannot be null");
+		return this;
+	}
+
+	/**
+	 * Only finds students who are, or aren't, registered correctly.
+	 *
+	 * @param registeredCorrectly whether the students must be registered correctly
+	 * @return this query
+	 */
+	public StudentQuery registeredCorrectly(boolean registeredCorrectly) {
+		this.registeredCorrectly = registeredCorrectly;
+		return this;
+	}
+
+	/**
+	 * Only finds students born between two dates.
+	 *
+	 * @param from the earliest date of birth, inclusive
+	 * @param to the latest date of birth, inclusive
+	 * @return this query
+	 */
+	public StudentQuery bornBetween(LocalDate from, LocalDate to) {
+
+		Objects.requireNonNull(from, "The first date cannot be null");
+		Objects.requireNonNull(to, "The last date cannot be null");
+
+		if(from.isAfter(to)){
+			throw new IllegalArgumentException("The first date can't be after the last date");
+		}
+
+		this.bornFrom = from;
+		this.bornTo = to;
+
+		return this;
+	}
+
+	/**
+	 * Skips a number of matching students, for reading the results a page at a time.
+	 *
+	 * @param offset the number of students to skip
+	 * @return this query
+	 */
+	public StudentQuery offset(long offset) {
+
+		if(offset < 0){
+			throw new IllegalArgumentException("The offset can't be negative");
+		}
+
+		this.offset = offset;
+
+		return this;
+	}
+
+	/**
+	 * Limits the number of students found, for reading the results a page at a time.
+	 *
+	 * @param limit the largest number of students to find
+	 * @return this query
+	 */
+	public StudentQuery limit(long limit) {
+
+		if(limit < 0){
+			throw new IllegalArgumentException("The limit can't be negative");
+		}
+
+		this.limit = limit;
+
+		return this;
+	}
+
+	/**
+	 * Gets a lazy stream of the matching students. Students are found as the stream is read.
+	 *
+	 * @return the matching students
+	 */
+	public Stream<Student> stream() {
+
+		if(unknownModule || (supervisor != null && type != null && type != StudentType.POSTGRADUATE_RESEARCH)){
+			return Stream.empty(); // No student can match
+		}
+
+		StudentType indexType = supervisor != null ? StudentType.POSTGRADUATE_RESEARCH : type; // Only research students have supervisors
+		Stream<Student> candidates;
+		Predicate<Student> filter = student -> true;
+
+		if(bornFrom != null){ // Start from the date of birth index, then check the type
+
+			candidates = dataSystem.streamBornBetween(bornFrom.toEpochDay(), bornTo.toEpochDay());
+
+			if(indexType != null){
+				filter = filter.and(student -> student.getStudentType() == indexType);
+			}
+
+		}else if(supervisor != null){ // Start from the supervisor's students, who are all research students
+			candidates = dataSystem.streamSupervisedBy(supervisor);
+		}else if(module != null){ // Start from the students taking the module, then check the type
+
+			candidates = dataSystem.streamTaking(module);
+
+			if(indexType != null){
+				filter = filter.and(student -> student.getStudentType() == indexType);
+			}
+
+		}else if(indexType != null){ // Start from the type index
+			candidates = dataSystem.streamOfType(indexType);
+		}else{
+			candidates = dataSystem.streamAll();
+		}
+
+		if(module != null && (bornFrom != null || supervisor != null)){ // Unless the students were taken from the module's index
+			Module taken = module;
+			filter = filter.and(student -> student instanceof CreditedStudent && ((CreditedStudent) student).takesModule(taken));
+		}
+
+		if(supervisor != null){
+			Supervisor supervising = supervisor;
+			filter = filter.and(student -> supervising.equals(((PostgraduateResearchStudent) student).getSupervisor()));
+		}
+
+		if(registeredCorrectly != null){
+			boolean correct = registeredCorrectly;
+			filter = filter.and(student -> student.isRegisteredCorrectly() == correct);
+		}
+
+		return candidates.filter(filter).skip(offset).limit(limit);
+	}
+
+	/**
+	 * Gets the matching students in a list.
+	 *
+	 * @return the matching students
+	 */
+	public List<Student> list() {
+		return stream().collect(Collectors.toList());
+	}
+
+	/**
+	 * Counts the matching students.
+	 *
+	 * @return the number of matching students
+	 */
+	public long count() {
+		return stream().count();
+	}
+
+}
@@ -0,0 +1,247 @@
+package com.wilfaskins.studentdata;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A table of records indexed by a dense integer handle, such as the number of a student ID.
+ *
+ * The table is split into fixed size pages which are only added, never moved, so a record can be read or replaced
+ * without locking and without hashing anything. Only adding a page takes a lock.
+ *
+ * @param <T> the type of the records
+ * @author Wilfrid Askins
+ */
+final class StudentTable<T> {
+
+	/** The number of bits of a handle which pick the slot within a page. */
+	private static final int PAGE_BITS = 12;
+
+	/** The number of records in each page. */
+	private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+	/** Used to find the slot within a page from a handle. */
+	private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+	/** The pages of the table. The array is replaced, never changed, when a page is added. */
+	private volatile AtomicReferenceArray<T>[] pages;
+
+	/** The number of records in the table. */
+	private final LongAdder size;
+
+	/**
+	 * Instantiates a new, empty table.
+	 */
+	@SuppressWarnings("unchecked")
+	StudentTable() {
+		super();
+		this.pages = (AtomicReferenceArray<T>[]) new AtomicReferenceArray<?>[0];
+		this.size = new LongAdder();
+	}
+
+	/**
+	 * Gets the record with a handle.
+	 *
+	 * @param handle the handle of the record
+	 * @return the record, or null if there is no record with that handle
+	 */
+	T get(int handle) {
+
+		AtomicReferenceArray<T>[] current = pages;
+		int page = handle >>> PAGE_BITS;
+
+		if(handle < 0 || page >= current.length){ // If the handle is outside the table
+			return null;
+		}
+
+		return current[page].get(handle & PAGE_MASK);
+	}
+
+	/**
+	 * Adds a record, unless there is already a record with its handle.
+	 *
+	 * @param handle the handle of the record
+	 * @param record the record to be added
+	 * @return true, if the record was added
+	 */
+	boolean putIfAbsent(int handle, T record) {
+
+		if(handle < 0){
+			throw new IllegalArgumentException("A handle can't be negative");
+		}
+
+		boolean added = page(handle).compareAndSet(handle & PAGE_MASK, null, record);
+
+		if(added){
+			size.increment();
+		}
+
+		return added;
+	}
+
+	/**
+	 * Removes the record with a handle.
+	 *
+	 * @param handle the handle of the record
+	 * @return the record which was removed, or null if there was no record with that handle
+	 */
+	T remove(int handle) {
+
+		AtomicReferenceArray<T>[] current = pages;
+		int page = handle >>> PAGE_BITS;
+
+		if(handle < 0 || page >= current.length){ // If the handle is outside the table
+			return null;
+		}
+
+		T removed = current[page].getAndSet(handle & PAGE_MASK, null);
+
+		if(removed != null){
+			size.decrement();
+		}
+
+		return removed;
+	}
+
+	/**
+	 * Gets the number of records in the table.
+	 *
+	 * @return the number of records
+	 */
+	int size() {
+		return (int) size.sum();
+	}
+
+	/**
+	 * Passes every record in the table to a consumer, in order of their handles.
+	 * Records added or removed while this runs may or may not be seen.
+	 *
+	 * @param consumer the consumer to receive each record
+	 */
+	void forEach(Consumer<? super T> consumer) {
+		forEach(0, pageCount(), consumer);
+	}
+
+	/**
+	 * Gets the number of pages in the table. Pages are only ever added, so a range of pages can be handed to another
+	 * thread to read, such as when splitting work across a fork join pool.
+	 *
+	 * @return the number of pages
+	 */
+	int pageCount() {
+		return pages.length;
+	}
+
+	/**
+	 * Passes every record in a range of pages to a consumer, in order of their handles.
+	 * Records added or removed while this runs may or may not be seen.
+	 *
+	 * @param fromPage the first page, inclusive
+	 * @param toPage the last page, exclusive
+	 * @param consumer the consumer to receive each record
+	 */
+	void forEach(int fromPage, int toPage, Consumer<? super T> consumer) {
+
+		AtomicReferenceArray<T>[] current = pages;
+
+		for(int page = fromPage; page < toPage && page < current.length; page++){
+			for(int i = 0; i < PAGE_SIZE; i++){
+
+				T record = current[page].get(i);
+
+				if(record != null){
+					consumer.accept(record);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets a lazy stream of the records in the table, in order of their handles.
+	 * Records are read as the stream reaches them, so records added or removed while the stream is used may or may not be seen.
+	 *
+	 * @return the stream of records
+	 */
+	Stream<T> stream() {
+
+		AtomicReferenceArray<T>[] current = pages;
+
+		Iterator<T> iterator = new Iterator<T>() {
+
+			/** The handle of the next slot to look at. */
+			private int handle;
+
+			/** The next record, or null if it hasn't been found yet. */
+			private T next;
+
+			@Override
+			public boolean hasNext() {
+
+				while(next == null && handle < current.length * PAGE_SIZE){ // Skip the empty slots
+					next = current[handle >>> PAGE_BITS].get(handle & PAGE_MASK);
+					handle++;
+				}
+
+				return next != null;
+			}
+
+			@Override
+			public T next() {
+
+				if(!hasNext()){
+					throw new NoSuchElementException();
+				}
+
+				T record = next;
+				next = null;
+
+				return record;
+			}
+		};
+
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+	}
+
+	/**
+	 * Gets the page a handle belongs to, adding pages if the table isn't big enough yet.
+	 *
+	 * @param handle the handle
+	 * @return the page
+	 */
+	private AtomicReferenceArray<T> page(int handle) {
+
+		int page = handle >>> PAGE_BITS;
+		AtomicReferenceArray<T>[] current = pages;
+
+		if(page < current.length){ // If the page already exists
+			return current[page];
+		}
+
+		synchronized(this){ // Only one thread can add pages at once
+
+			current = pages;
+
+			if(page >= current.length){
+
+				AtomicReferenceArray<T>[] grown = Arrays.copyOf(current, Math.max(page + 1, current.length * 2));
+
+				for(int i = current.length; i < grown.length; i++){
+					grown[i] = new AtomicReferenceArray<>(PAGE_SIZE);
+				}
+
+				pages = current = grown; // Publish the new pages
+			}
+
+			return current[page];
+		}
+	}
+
+}
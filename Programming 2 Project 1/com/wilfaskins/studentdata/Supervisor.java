@@ -14,6 +14,9 @@ public final class Supervisor{
 	/** The supervisor's last name. */
 	private final String lastName;
 	
+	/** The supervisor's full name. This is checked each time a research student is validated, so it is only built once. */
+	private final String fullName;
+	
 	/**
 	 * Instantiates a new supervisor.
 	 *
@@ -23,6 +26,7 @@ public final class Supervisor{
 	public Supervisor(String firstName, String lastName){
 		this.firstName = firstName;
 		this.lastName = lastName;
+		this.fullName = firstName + " " + lastName;
 	}
 
 	/**
@@ -49,7 +53,7 @@ public final class Supervisor{
 	 * @return the full name
 	 */
 	public String getFullName() {
-		return firstName + " " + lastName;
+		return fullName;
 	}
 	
 	/**
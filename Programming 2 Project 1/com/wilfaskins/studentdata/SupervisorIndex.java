@@ -0,0 +1,262 @@
+package com.wilfaskins.studentdata;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.wilfaskins.studentdata.students.PostgraduateResearchStudent;
+import com.wilfaskins.studentdata.students.id.StudentID;
+
+/**
+ * The research students of each supervisor, with the supervisors from the catalogue kept in a heap ordered by how many
+ * students they have, so the least loaded supervisor is always at the top.
+ *
+ * Each supervisor's entry remembers where it is in the heap, so when one of their students is added or removed only
+ * that entry is moved up or down, which takes time in proportion to the log of the number of supervisors. Supervisors
+ * who aren't in the catalogue are indexed, but never allocated students.
+ *
+ * @author Wilfrid Askins
+ */
+final class SupervisorIndex {
+
+	/** The entry for each supervisor with students, and every supervisor in the catalogue. These can be read without the lock. */
+	private final Map<Supervisor,Entry> entries;
+
+	/** The catalogue's supervisors, ordered so that each entry's load is no more than its children's. Only changed while holding the lock. */
+	private final Entry[] heap;
+
+	/**
+	 * Builds an index with no students.
+	 *
+	 * @param catalogue the supervisors who can be allocated students
+	 */
+	SupervisorIndex(Collection<Supervisor> catalogue) {
+		super();
+
+		this.entries = new ConcurrentHashMap<>(catalogue.size() * 2);
+
+		Entry[] heap = new Entry[catalogue.size()];
+
+		for(Supervisor supervisor : catalogue){ // Every load is zero, so the catalogue's order is already a heap
+
+			Entry entry = new Entry(supervisor, entries.size());
+
+			if(entries.putIfAbsent(supervisor, entry) == null){ // Only keep the first of any repeated supervisor
+				heap[entry.order] = entry;
+			}
+		}
+
+		this.heap = Arrays.copyOf(heap, entries.size());
+	}
+
+	/**
+	 * Adds a research student to their supervisor's students.
+	 *
+	 * @param studentID the ID of the student
+	 * @param student the student
+	 */
+	synchronized void add(StudentID studentID, PostgraduateResearchStudent student) {
+
+		Entry entry = entries.computeIfAbsent(student.getSupervisor(), supervisor -> new Entry(supervisor, -1));
+
+		entry.students.put(studentID, student);
+		entry.load++;
+		siftDown(entry);
+	}
+
+	/**
+	 * Removes a research student from their supervisor's students.
+	 *
+	 * @param studentID the ID of the student
+	 * @param student the student
+	 */
+	synchronized void remove(StudentID studentID, PostgraduateResearchStudent student) {
+
+		Entry entry = entries.get(student.getSupervisor());
+
+		if(entry != null && entry.students.remove(studentID) != null){
+			entry.load--;
+			siftUp(entry);
+		}
+	}
+
+	/**
+	 * Gets the number of research students a supervisor has.
+	 *
+	 * @param supervisor the supervisor
+	 * @return the number of students
+	 */
+	int getLoad(Supervisor supervisor) {
+
+		Entry entry = entries.get(supervisor);
+
+		return entry == null ? 0 : entry.students.size();
+	}
+
+	/**
+	 * Gets a supervisor's research students.
+	 *
+	 * @param supervisor the supervisor
+	 * @return a live view of the students, which is empty if the supervisor has none
+	 */
+	Collection<PostgraduateResearchStudent> getStudents(Supervisor supervisor) {
+
+		Entry entry = entries.get(supervisor);
+
+		return entry == null ? Collections.emptyList() : Collections.unmodifiableCollection(entry.students.values());
+	}
+
+	/**
+	 * Reserves a place with the least loaded supervisor in the catalogue. The reservation counts towards the
+	 * supervisor's load until it is released, so supervisors reserved at the same time by other threads are spread out.
+	 * Supervisors with the same load are picked in the catalogue's order.
+	 *
+	 * @return the supervisor, or null if the catalogue is empty
+	 */
+	synchronized Supervisor reserve() {
+
+		if(heap.length == 0){
+			return null;
+		}
+
+		Entry least = heap[0];
+
+		least.load++;
+		siftDown(least);
+
+		return least.supervisor;
+	}
+
+	/**
+	 * Releases a reservation made by {@link #reserve()}, once the student has been registered or failed to register.
+	 *
+	 * @param supervisor the supervisor who was reserved
+	 */
+	synchronized void release(Supervisor supervisor) {
+
+		Entry entry = entries.get(supervisor);
+
+		entry.load--;
+		siftUp(entry);
+	}
+
+	/**
+	 * Moves an entry towards the top of the heap until its parent is no more loaded than it is.
+	 *
+	 * @param entry the entry, which does nothing if the supervisor isn't in the catalogue
+	 */
+	private void siftUp(Entry entry) {
+
+		int position = entry.position;
+
+		while(position > 0){
+
+			int parent = (position - 1) >>> 1;
+
+			if(!heap[parent].after(entry)){
+				break;
+			}
+
+			place(heap[parent], position); // Move the parent down into the entry's place
+			position = parent;
+		}
+
+		if(position >= 0){
+			place(entry, position);
+		}
+	}
+
+	/**
+	 * Moves an entry towards the bottom of the heap until neither of its children are less loaded than it is.
+	 *
+	 * @param entry the entry, which does nothing if the supervisor isn't in the catalogue
+	 */
+	private void siftDown(Entry entry) {
+
+		int position = entry.position;
+
+		if(position < 0){
+			return;
+		}
+
+		while(true){
+
+			int child = position * 2 + 1;
+
+			if(child >= heap.length){
+				break;
+			}
+
+			if(child + 1 < heap.length && heap[child].after(heap[child + 1])){ // Pick the less loaded child
+				child++;
+			}
+
+			if(!entry.after(heap[child])){
+				break;
+			}
+
+			place(heap[child], position); // Move the child up into the entry's place
+			position = child;
+		}
+
+		place(entry, position);
+	}
+
+	/**
+	 * Puts an entry at a position in the heap.
+	 *
+	 * @param entry the entry
+	 * @param position the position
+	 */
+	private void place(Entry entry, int position) {
+		heap[position] = entry;
+		entry.position = position;
+	}
+
+	/**
+	 * One supervisor's students and place in the heap.
+	 */
+	private static final class Entry {
+
+		/** The supervisor. */
+		private final Supervisor supervisor;
+
+		/** The supervisor's position in the catalogue, or -1 if they aren't in the catalogue. */
+		private final int order;
+
+		/** The supervisor's students, indexed by their IDs. */
+		private final Map<StudentID,PostgraduateResearchStudent> students;
+
+		/** The supervisor's students and reservations. */
+		private int load;
+
+		/** The supervisor's position in the heap, or -1 if they aren't in the catalogue. */
+		private int position;
+
+		/**
+		 * Instantiates a new entry with no students.
+		 *
+		 * @param supervisor the supervisor
+		 * @param order the supervisor's position in the catalogue, or -1 if they aren't in the catalogue
+		 */
+		private Entry(Supervisor supervisor, int order) {
+			this.supervisor = supervisor;
+			this.order = order;
+			this.students = new ConcurrentHashMap<>();
+			this.position = order;
+		}
+
+		/**
+		 * Checks whether this supervisor should be allocated students after another.
+		 *
+		 * @param other the other supervisor
+		 * @return true, if this supervisor is more loaded, or as loaded and later in the catalogue
+		 */
+		private boolean after(Entry other) {
+			return load != other.load ? load > other.load : order > other.order;
+		}
+	}
+
+}
@@ -0,0 +1,169 @@
+package com.wilfaskins.studentdata;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import com.wilfaskins.studentdata.students.StudentType;
+import com.wilfaskins.studentdata.students.id.StudentID;
+
+/**
+ * The result of checking whether every student in a DataSystem is registered correctly, made by
+ * {@link DataSystem#validate()} or {@link DataSystem#revalidate()}.
+ *
+ * Only the students who failed are listed, in order of their student IDs, with how many credits they are over or
+ * under the credits expected of them. Everyone else is only counted.
+ *
+ * @author Wilfrid Askins
+ */
+public final class ValidationReport {
+
+	/** The number of students of each type, indexed by the type's ordinal. */
+	private final long[] students;
+
+	/** The number of correctly registered students of each type, indexed by the type's ordinal. */
+	private final long[] correctlyRegistered;
+
+	/** The total credits the failed students of each type are over their expected credits, indexed by the type's ordinal. */
+	private final long[] creditDeltas;
+
+	/** The IDs of the students who aren't registered correctly, in order of their numbers. */
+	private final StudentID[] failed;
+
+	/** The credits each failed student is over their expected credits, in the same order as their IDs. */
+	private final int[] failedCreditDeltas;
+
+	/** The number of students checked to make this report. */
+	private final long checked;
+
+	/**
+	 * Instantiates a new report.
+	 *
+	 * @param students the number of students of each type
+	 * @param correctlyRegistered the number of correctly registered students of each type
+	 * @param creditDeltas the total credits the failed students of each type are over their expected credits
+	 * @param failed the IDs of the students who aren't registered correctly, in order of their numbers
+	 * @param failedCreditDeltas the credits each failed student is over their expected credits
+	 * @param checked the number of students checked to make this report
+	 */
+	ValidationReport(long[] students, long[] correctlyRegistered, long[] creditDeltas, StudentID[] failed, int[] failedCreditDeltas, long checked) {
+		super();
+		this.students = students;
+		this.correctlyRegistered = correctlyRegistered;
+		this.creditDeltas = creditDeltas;
+		this.failed = failed;
+		this.failedCreditDeltas = failedCreditDeltas;
+		this.checked = checked;
+	}
+
+	/**
+	 * Gets the number of students of a type.
+	 *
+	 * @param type the type of student
+	 * @return the number of students
+	 */
+	public long getStudents(StudentType type) {
+		return students[Objects.requireNonNull(type, "The type of student cannot be null").ordinal()];
+	}
+
+	/**
+	 * Gets the number of students of every type.
+	 *
+	 * @return the number of students
+	 */
+	public long getTotalStudents() {
+		return Arrays.stream(students).sum();
+	}
+
+	/**
+	 * Gets the number of students of a type who are registered correctly.
+	 *
+	 * @param type the type of student
+	 * @return the number of correctly registered students
+	 */
+	public long getCorrectlyRegistered(StudentType type) {
+		return correctlyRegistered[Objects.requireNonNull(type, "The type of student cannot be null").ordinal()];
+	}
+
+	/**
+	 * Gets the number of students of a type who are not registered correctly.
+	 *
+	 * @param type the type of student
+	 * @return the number of incorrectly registered students
+	 */
+	public long getIncorrectlyRegistered(StudentType type) {
+		return getStudents(type) - getCorrectlyRegistered(type);
+	}
+
+	/**
+	 * Gets the total credits the students of a type are over the credits expected of them. Students under their
+	 * expected credits count against the total, and research students don't take credits so never add to it.
+	 *
+	 * @param type the type of student
+	 * @return the total credits over, or a negative number if the students are under on the whole
+	 */
+	public long getCreditDelta(StudentType type) {
+		return creditDeltas[Objects.requireNonNull(type, "The type of student cannot be null").ordinal()];
+	}
+
+	/**
+	 * Gets the IDs of the students who aren't registered correctly.
+	 *
+	 * @return the IDs, in order of their numbers
+	 */
+	public List<StudentID> getFailedStudents() {
+		return Collections.unmodifiableList(Arrays.asList(failed));
+	}
+
+	/**
+	 * Gets the credits a student is over the credits expected of them.
+	 *
+	 * @param studentID the ID of the student
+	 * @return the credits over, a negative number if the student is under, or zero if the student didn't fail
+	 */
+	public int getCreditDelta(StudentID studentID) {
+
+		Objects.requireNonNull(studentID, "A studentID can't be null");
+
+		int low = 0;
+		int high = failed.length - 1;
+
+		while(low <= high){ // Search the failed students, which are in order of their numbers
+
+			int middle = (low + high) >>> 1;
+			int number = failed[middle].toInt();
+
+			if(number < studentID.toInt()){
+				low = middle + 1;
+			}else if(number > studentID.toInt()){
+				high = middle - 1;
+			}else{
+				return failedCreditDeltas[middle];
+			}
+		}
+
+		return 0;
+	}
+
+	/**
+	 * Gets the number of students which were checked to make this report. A full validation checks every student,
+	 * and a revalidation only checks the students changed since the last validation.
+	 *
+	 * @return the number of students checked
+	 */
+	public long getChecked() {
+		return checked;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "ValidationReport [students=" + Arrays.toString(students) + ", correctlyRegistered="
+				+ Arrays.toString(correctlyRegistered) + ", creditDeltas=" + Arrays.toString(creditDeltas)
+				+ ", failed=" + failed.length + ", checked=" + checked + "]";
+	}
+
+}
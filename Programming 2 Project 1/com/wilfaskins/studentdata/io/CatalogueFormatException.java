@@ -0,0 +1,77 @@
+package com.wilfaskins.studentdata.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Thrown when a catalogue file contains lines which can't be loaded.
+ * Every malformed line in the file is reported, not just the first.
+ *
+ * @author Wilfrid Askins
+ */
+public final class CatalogueFormatException extends IOException {
+
+	/** The serial version UID. */
+	private static final long serialVersionUID = 1L;
+
+	/** The line numbers of the malformed lines. */
+	private final List<Long> lineNumbers;
+
+	/** A description of the problem with each malformed line. */
+	private final List<String> errors;
+
+	/**
+	 * Instantiates a new catalogue format exception.
+	 *
+	 * @param file the file which was being loaded
+	 * @param lineNumbers the line numbers of the malformed lines
+	 * @param errors a description of the problem with each malformed line
+	 */
+	CatalogueFormatException(File file, List<Long> lineNumbers, List<String> errors) {
+		super(buildMessage(file, lineNumbers, errors));
+		this.lineNumbers = Collections.unmodifiableList(new ArrayList<>(lineNumbers));
+		this.errors = Collections.unmodifiableList(new ArrayList<>(errors));
+	}
+
+	/**
+	 * Builds the exception's message, listing each malformed line.
+	 *
+	 * @param file the file which was being loaded
+	 * @param lineNumbers the line numbers of the malformed lines
+	 * @param errors a description of the problem with each malformed line
+	 * @return the message
+	 */
+	private static String buildMessage(File file, List<Long> lineNumbers, List<String> errors) {
+
+		StringBuilder message = new StringBuilder();
+		message.append(file).append(" has ").append(errors.size()).append(" malformed line(s)");
+
+		for(int i = 0; i < errors.size(); i++){
+			message.append(System.lineSeparator()).append("  line ").append(lineNumbers.get(i)).append(": ").append(errors.get(i));
+		}
+
+		return message.toString();
+	}
+
+	/**
+	 * Gets the line numbers of the malformed lines, starting from one.
+	 *
+	 * @return the line numbers
+	 */
+	public List<Long> getLineNumbers() {
+		return lineNumbers;
+	}
+
+	/**
+	 * Gets a description of the problem with each malformed line.
+	 *
+	 * @return the errors, in the same order as the line numbers
+	 */
+	public List<String> getErrors() {
+		return errors;
+	}
+
+}
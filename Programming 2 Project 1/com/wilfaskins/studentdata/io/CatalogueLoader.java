@@ -0,0 +1,310 @@
+package com.wilfaskins.studentdata.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Loads catalogue files, such as modules.csv and supervisors.csv, into objects.
+ *
+ * The file is memory-mapped rather than read through a reader, and large files are split into chunks at line
+ * boundaries which are parsed in parallel. Fields are found in place without regular expressions, so the only
+ * strings created are the ones the objects keep.
+ *
+ * @author Wilfrid Askins
+ */
+public final class CatalogueLoader {
+
+	/** The smallest chunk worth parsing on its own thread. */
+	private static final long MIN_CHUNK_SIZE = 1 << 20;
+
+	/** The largest chunk which will be mapped at once. This keeps each mapping well within the limit of a buffer. */
+	private static final long MAX_CHUNK_SIZE = 1 << 28;
+
+	/** The number of bytes read at once when looking for the end of a line. */
+	private static final int SCAN_SIZE = 4096;
+
+	/**
+	 * Converts a row of a catalogue file to an object.
+	 *
+	 * @param <T> the type of the objects created
+	 */
+	@FunctionalInterface
+	public interface RowMapper<T> {
+
+		/**
+		 * Converts a row to an object.
+		 *
+		 * @param row the row to be converted
+		 * @return the object the row represents
+		 */
+		T map(CsvRow row);
+	}
+
+	/**
+	 * Instantiates a new catalogue loader. This class only has static methods.
+	 */
+	private CatalogueLoader() {
+		super();
+	}
+
+	/**
+	 * Loads every line of a file, choosing the number of chunks from the size of the file.
+	 *
+	 * @param <T> the type of the objects created
+	 * @param file the file to be loaded
+	 * @param mapper the function to convert a row to an object
+	 * @return the objects, in the order their lines appear in the file
+	 * @throws IOException if the file couldn't be read
+	 * @throws CatalogueFormatException if any lines of the file were malformed
+	 */
+	public static <T> List<T> load(File file, RowMapper<T> mapper) throws IOException {
+
+		long size = file.length();
+
+		// Use one chunk per processor, unless that would make the chunks too small or too large
+		long chunks = Math.min(Runtime.getRuntime().availableProcessors(), size / MIN_CHUNK_SIZE);
+		chunks = Math.max(chunks, (size + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE);
+
+		return load(file, mapper, (int) Math.max(1, chunks));
+	}
+
+	/**
+	 * Loads every line of a file, split into a number of chunks which are parsed in parallel.
+	 * Blank lines are skipped.
+	 *
+	 * @param <T> the type of the objects created
+	 * @param file the file to be loaded
+	 * @param mapper the function to convert a row to an object
+	 * @param chunks the number of chunks to split the file into
+	 * @return the objects, in the order their lines appear in the file
+	 * @throws IOException if the file couldn't be read
+	 * @throws CatalogueFormatException if any lines of the file were malformed
+	 */
+	public static <T> List<T> load(File file, RowMapper<T> mapper, int chunks) throws IOException {
+
+		if(chunks < 1){
+			throw new IllegalArgumentException("A file must be loaded in at least one chunk");
+		}
+
+		try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)){
+
+			long[] bounds = findChunkBounds(channel, chunks); // Find where each chunk starts and ends
+
+			List<Chunk<T>> parsed;
+
+			try{
+				// Parse each chunk on its own thread, keeping the chunks in order
+				parsed = IntStream.range(0, chunks).parallel()
+						.mapToObj(i -> parseChunk(channel, bounds[i], bounds[i + 1], mapper))
+						.collect(Collectors.toList());
+
+			}catch(UncheckedIOException e){ // If a chunk couldn't be mapped
+				throw e.getCause();
+			}
+
+			List<T> results = new ArrayList<>();
+			List<Long> errorLines = new ArrayList<>();
+			List<String> errors = new ArrayList<>();
+
+			long firstLine = 1; // The line number of the first line in the current chunk
+
+			for(Chunk<T> chunk : parsed){
+
+				results.addAll(chunk.results);
+
+				for(int i = 0; i < chunk.errors.size(); i++){ // Convert the chunk's line numbers to the file's line numbers
+					errorLines.add(firstLine + chunk.errorLines.get(i));
+					errors.add(chunk.errors.get(i));
+				}
+
+				firstLine += chunk.lines;
+			}
+
+			if(!errors.isEmpty()){ // If any lines were malformed, report them all
+				throw new CatalogueFormatException(file, errorLines, errors);
+			}
+
+			return results;
+		}
+	}
+
+	/**
+	 * Finds the positions the chunks should start and end at. Each chunk ends just after a line break, so no line is split between chunks.
+	 *
+	 * @param channel the channel of the file
+	 * @param chunks the number of chunks
+	 * @return an array of the chunk boundaries, one longer than the number of chunks
+	 * @throws IOException if the file couldn't be read
+	 */
+	private static long[] findChunkBounds(FileChannel channel, int chunks) throws IOException {
+
+		long size = channel.size();
+		long[] bounds = new long[chunks + 1];
+		bounds[chunks] = size;
+
+		ByteBuffer scan = ByteBuffer.allocate(SCAN_SIZE);
+
+		for(int i = 1; i < chunks; i++){
+
+			long position = Math.max(bounds[i - 1], size / chunks * i); // Start looking from an even split of the file
+			bounds[i] = size;
+
+			search:
+			while(position < size){ // Look for the next line break
+
+				scan.clear();
+				int read = channel.read(scan, position);
+
+				if(read <= 0){
+					break;
+				}
+
+				for(int j = 0; j < read; j++){
+					if(scan.get(j) == '\n'){
+						bounds[i] = position + j + 1; // Start the next chunk after the line break
+						break search;
+					}
+				}
+
+				position += read;
+			}
+		}
+
+		return bounds;
+	}
+
+	/**
+	 * Parses the lines of one chunk of a file.
+	 *
+	 * @param <T> the type of the objects created
+	 * @param channel the channel of the file
+	 * @param start the position the chunk starts at
+	 * @param end the position the chunk ends at
+	 * @param mapper the function to convert a row to an object
+	 * @return the parsed chunk
+	 */
+	private static <T> Chunk<T> parseChunk(FileChannel channel, long start, long end, RowMapper<T> mapper) {
+
+		Chunk<T> chunk = new Chunk<>();
+
+		if(start >= end){ // If this chunk is empty
+			return chunk;
+		}
+
+		MappedByteBuffer buffer;
+
+		try{
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+		}catch(IOException e){
+			throw new UncheckedIOException(e);
+		}
+
+		CsvRow row = new CsvRow();
+		byte[] line = new byte[256]; // Reused for every line in the chunk
+		int length = 0;
+
+		while(buffer.hasRemaining()){
+
+			byte b = buffer.get();
+
+			if(b != '\n'){ // If the line hasn't ended yet
+
+				if(length == line.length){ // Make room for long lines
+					line = Arrays.copyOf(line, length * 2);
+				}
+
+				line[length++] = b;
+
+				if(buffer.hasRemaining()){
+					continue;
+				}
+			}
+
+			parseLine(chunk, row, line, length, mapper); // Parse the line which just ended
+			length = 0;
+		}
+
+		return chunk;
+	}
+
+	/**
+	 * Parses a single line, recording either the object it represents or the reason it couldn't be parsed.
+	 *
+	 * @param <T> the type of the objects created
+	 * @param chunk the chunk the line belongs to
+	 * @param row the row to read the line through
+	 * @param line the bytes of the line
+	 * @param length the length of the line
+	 * @param mapper the function to convert a row to an object
+	 */
+	private static <T> void parseLine(Chunk<T> chunk, CsvRow row, byte[] line, int length, RowMapper<T> mapper) {
+
+		long lineNumber = chunk.lines++; // The line number within this chunk, starting from zero
+
+		if(length > 0 && line[length - 1] == '\r'){ // Ignore Windows line endings
+			length--;
+		}
+
+		if(isBlank(line, length)){ // Skip blank lines
+			return;
+		}
+
+		row.reset(line, length);
+
+		try{
+			chunk.results.add(mapper.map(row));
+		}catch(RuntimeException e){ // If the line was malformed
+			chunk.errorLines.add(lineNumber);
+			chunk.errors.add(e.getMessage() == null ? e.toString() : e.getMessage());
+		}
+	}
+
+	/**
+	 * Checks if a line is empty or only whitespace.
+	 *
+	 * @param line the bytes of the line
+	 * @param length the length of the line
+	 * @return true, if the line is blank
+	 */
+	private static boolean isBlank(byte[] line, int length) {
+
+		for(int i = 0; i < length; i++){
+			if(line[i] != ' ' && line[i] != '\t'){
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * The results of parsing one chunk of a file.
+	 *
+	 * @param <T> the type of the objects created
+	 */
+	private static final class Chunk<T> {
+
+		/** The objects created from the chunk's lines. */
+		private final List<T> results = new ArrayList<>();
+
+		/** The line numbers of malformed lines, relative to the start of the chunk. */
+		private final List<Long> errorLines = new ArrayList<>();
+
+		/** A description of the problem with each malformed line. */
+		private final List<String> errors = new ArrayList<>();
+
+		/** The number of lines in the chunk. */
+		private long lines;
+	}
+
+}
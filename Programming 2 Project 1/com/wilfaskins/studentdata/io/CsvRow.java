@@ -0,0 +1,174 @@
+package com.wilfaskins.studentdata.io;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A single line of a CSV file being loaded by the {@link CatalogueLoader}.
+ * The fields are read straight from the loader's line buffer, so a row is only valid until the next line is read.
+ *
+ * @author Wilfrid Askins
+ */
+public final class CsvRow {
+
+	/** The bytes of the current line. */
+	private byte[] line;
+
+	/** The start of each field in the line. */
+	private int[] starts;
+
+	/** The end of each field in the line. */
+	private int[] ends;
+
+	/** The number of fields in the line. */
+	private int size;
+
+	/**
+	 * Instantiates a new, empty CSV row.
+	 */
+	CsvRow() {
+		super();
+		this.starts = new int[8];
+		this.ends = new int[8];
+	}
+
+	/**
+	 * Splits a line into fields at each comma, trimming the spaces around each field.
+	 *
+	 * @param line the buffer holding the line
+	 * @param length the length of the line in the buffer
+	 */
+	void reset(byte[] line, int length) {
+
+		this.line = line;
+		this.size = 0;
+
+		int start = 0;
+
+		for(int i = 0; i <= length; i++){ // Go through each byte, treating the end of the line as a final comma
+			if(i == length || line[i] == ','){
+				addField(start, i);
+				start = i + 1;
+			}
+		}
+	}
+
+	/**
+	 * Records a field, trimming the whitespace at either end.
+	 *
+	 * @param start the start of the field
+	 * @param end the end of the field
+	 */
+	private void addField(int start, int end) {
+
+		while(start < end && isSpace(line[start])){ // Skip leading whitespace
+			start++;
+		}
+
+		while(end > start && isSpace(line[end - 1])){ // Skip trailing whitespace
+			end--;
+		}
+
+		if(size == starts.length){ // If there are more fields than expected, make room for them
+			starts = Arrays.copyOf(starts, size * 2);
+			ends = Arrays.copyOf(ends, size * 2);
+		}
+
+		starts[size] = start;
+		ends[size] = end;
+		size++;
+	}
+
+	/**
+	 * Checks whether a byte is a space or tab.
+	 *
+	 * @param b the byte to check
+	 * @return true, if the byte is whitespace
+	 */
+	private static boolean isSpace(byte b) {
+		return b == ' ' || b == '\t';
+	}
+
+	/**
+	 * Gets the number of fields in the row.
+	 *
+	 * @return the number of fields
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Gets a field as a string.
+	 *
+	 * @param index the index of the field
+	 * @return the field's text
+	 */
+	public String getString(int index) {
+
+		checkIndex(index);
+
+		return new String(line, starts[index], ends[index] - starts[index], StandardCharsets.UTF_8); // Decode only this field
+	}
+
+	/**
+	 * Gets a field as an integer, parsing the digits in place.
+	 *
+	 * @param index the index of the field
+	 * @return the field's value
+	 */
+	public int getInt(int index) {
+
+		checkIndex(index);
+
+		int position = starts[index];
+		int end = ends[index];
+		boolean negative = false;
+
+		if(position < end && (line[position] == '-' || line[position] == '+')){ // Read the sign, if there is one
+			negative = line[position] == '-';
+			position++;
+		}
+
+		if(position == end){
+			throw new IllegalArgumentException("Field " + (index + 1) + " is not a number");
+		}
+
+		long value = 0;
+
+		for(; position < end; position++){ // Build the number up one digit at a time
+
+			int digit = line[position] - '0';
+
+			if(digit < 0 || digit > 9){
+				throw new IllegalArgumentException("Field " + (index + 1) + " is not a number");
+			}
+
+			value = value * 10 + digit;
+
+			if(value > Integer.MAX_VALUE + 1L){
+				throw new IllegalArgumentException("Field " + (index + 1) + " is too large");
+			}
+		}
+
+		value = negative ? -value : value;
+
+		if(value > Integer.MAX_VALUE){
+			throw new IllegalArgumentException("Field " + (index + 1) + " is too large");
+		}
+
+		return (int) value;
+	}
+
+	/**
+	 * Checks that the row has a field at an index.
+	 *
+	 * @param index the index of the field
+	 */
+	private void checkIndex(int index) {
+		if(index < 0 || index >= size){
+			throw new IllegalArgumentException("Expected at least " + (index + 1) + " fields but found " + size);
+		}
+	}
+
+}
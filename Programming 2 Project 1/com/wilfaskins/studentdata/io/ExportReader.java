@@ -0,0 +1,332 @@
+package com.wilfaskins.studentdata.io;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import com.wilfaskins.studentdata.Module;
+import com.wilfaskins.studentdata.Supervisor;
+import com.wilfaskins.studentdata.students.PostgraduateResearchStudent;
+import com.wilfaskins.studentdata.students.PostgraduateTaughtStudent;
+import com.wilfaskins.studentdata.students.Student;
+import com.wilfaskins.studentdata.students.StudentType;
+import com.wilfaskins.studentdata.students.UndergraduateStudent;
+import com.wilfaskins.studentdata.students.id.SmartCard;
+import com.wilfaskins.studentdata.students.id.SmartCardNumber;
+import com.wilfaskins.studentdata.students.id.StudentID;
+import com.wilfaskins.studentdata.students.id.StudentName;
+
+/**
+ * Reads an export written by an {@link ExportWriter}.
+ *
+ * The counters and the catalogues of modules and supervisors are read as soon as the reader is opened. Students are
+ * then read one at a time with {@link #next()}, so the whole export never needs to be held in memory.
+ *
+ * @author Wilfrid Askins
+ */
+public final class ExportReader implements Closeable {
+
+	/** The input being read from. */
+	private final DataInputStream in;
+
+	/** Every string read so far, in the order they were first written. */
+	private final List<String> strings;
+
+	/** The number of the last student ID issued by the exporting system. */
+	private final int lastIssued;
+
+	/** The number of smart card serial numbers issued for each pair of initials and year by the exporting system. */
+	private final Map<String,Integer> serialCounters;
+
+	/** The modules, in the order they were written. */
+	private final List<Module> modules;
+
+	/** The supervisors, in the order they were written. */
+	private final List<Supervisor> supervisors;
+
+	/** The number of the last student ID read. */
+	private int lastStudentID;
+
+	/** The last date of issue read, in milliseconds. */
+	private long lastIssuedDate;
+
+	/** Whether the end of the export has been read. */
+	private boolean finished;
+
+	/**
+	 * Opens an export, reading the counters and the catalogues of modules and supervisors.
+	 *
+	 * @param in the input to read from, which is closed when the reader is closed
+	 * @throws IOException if the input isn't an export, or couldn't be read
+	 */
+	public ExportReader(InputStream in) throws IOException {
+		super();
+
+		Objects.requireNonNull(in, "The input cannot be null");
+
+		this.in = new DataInputStream(new BufferedInputStream(in));
+		this.strings = new ArrayList<>();
+
+		if(this.in.readInt() != ExportWriter.MAGIC || readVarint() != ExportWriter.VERSION){
+			throw new IOException("This is not an export");
+		}
+
+		this.lastIssued = readInt();
+
+		int counterCount = readInt();
+		this.serialCounters = new HashMap<>(counterCount * 2);
+
+		for(int i = 0; i < counterCount; i++){
+			serialCounters.put(readString(), readInt());
+		}
+
+		int moduleCount = readInt();
+		List<Module> modules = new ArrayList<>(moduleCount);
+
+		for(int i = 0; i < moduleCount; i++){
+			modules.add(new Module(readString(), readString(), readInt()));
+		}
+
+		int supervisorCount = readInt();
+		List<Supervisor> supervisors = new ArrayList<>(supervisorCount);
+
+		for(int i = 0; i < supervisorCount; i++){
+			supervisors.add(new Supervisor(readString(), readString()));
+		}
+
+		this.modules = Collections.unmodifiableList(modules);
+		this.supervisors = Collections.unmodifiableList(supervisors);
+	}
+
+	/**
+	 * Gets the number of the last student ID issued by the exporting system.
+	 *
+	 * @return the last number issued
+	 */
+	public int getLastIssued() {
+		return lastIssued;
+	}
+
+	/**
+	 * Gets the number of smart card serial numbers issued for each pair of initials and year by the exporting system.
+	 *
+	 * @return the counters, as returned by {@link SmartCardNumber#getSerialCounters()}
+	 */
+	public Map<String,Integer> getSerialCounters() {
+		return Collections.unmodifiableMap(serialCounters);
+	}
+
+	/**
+	 * Gets the modules. Students read from this export take these module instances.
+	 *
+	 * @return the modules, in the order they were written
+	 */
+	public List<Module> getModules() {
+		return modules;
+	}
+
+	/**
+	 * Gets the supervisors. Research students read from this export have these supervisor instances, if their
+	 * supervisor is in the catalogue.
+	 *
+	 * @return the supervisors, in the order they were written
+	 */
+	public List<Supervisor> getSupervisors() {
+		return supervisors;
+	}
+
+	/**
+	 * Reads the next student and their smart card. The student is given their ID.
+	 *
+	 * @return the registration, or null if every student has been read
+	 * @throws IOException if the student couldn't be read
+	 */
+	public Registration next() throws IOException {
+
+		if(finished){
+			return null;
+		}
+
+		int type = in.readUnsignedByte();
+
+		if(type == ExportWriter.END){ // If every student has been read
+			finished = true;
+			return null;
+		}
+
+		if(type >= StudentType.values().length){
+			throw new IOException("Unknown student type " + type);
+		}
+
+		lastStudentID += (int) readSignedVarint();
+		StudentID studentID = StudentID.valueOf(lastStudentID);
+
+		String firstName = readString();
+		String middleNames = readString();
+		StudentName name = new StudentName(firstName, readString(), middleNames);
+		Date dateOfBirth = new Date(readSignedVarint());
+
+		Student student;
+
+		switch(StudentType.values()[type]){
+
+		case POSTGRADUATE_RESEARCH:
+			student = new PostgraduateResearchStudent(name, dateOfBirth, readSupervisor());
+			break;
+
+		case POSTGRADUATE_TAUGHT:
+			student = new PostgraduateTaughtStudent(name, dateOfBirth);
+			break;
+
+		default:
+			student = new UndergraduateStudent(name, dateOfBirth);
+			break;
+		}
+
+		if(!(student instanceof PostgraduateResearchStudent)){
+
+			int moduleCount = readInt();
+
+			for(int i = 0; i < moduleCount; i++){
+				student.addModule(modules.get(readIndex(modules.size())));
+			}
+		}
+
+		SmartCardNumber number = SmartCardNumber.valueOf(readString(), readString(), readString(), readInt());
+
+		lastIssuedDate += readSignedVarint();
+		SmartCard smartCard = SmartCard.valueOf(name, studentID, dateOfBirth, number, new Date(lastIssuedDate));
+
+		student.setStudentID(studentID);
+
+		return new Registration(student, smartCard);
+	}
+
+	/**
+	 * Closes the input.
+	 *
+	 * @throws IOException if the input couldn't be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+	/**
+	 * Reads a research student's supervisor, either from the catalogue or written in full.
+	 *
+	 * @return the supervisor
+	 * @throws IOException if the supervisor couldn't be read
+	 */
+	private Supervisor readSupervisor() throws IOException {
+
+		int position = readIndex(supervisors.size() + 1);
+
+		if(position == 0){ // The supervisor isn't in the catalogue
+			return new Supervisor(readString(), readString());
+		}
+
+		return supervisors.get(position - 1);
+	}
+
+	/**
+	 * Reads a string, or looks it up in the table if it has been read before.
+	 *
+	 * @return the string
+	 * @throws IOException if the string couldn't be read
+	 */
+	private String readString() throws IOException {
+
+		int position = readIndex(strings.size() + 1);
+
+		if(position > 0){ // The string has been read before
+			return strings.get(position - 1);
+		}
+
+		String string = in.readUTF();
+		strings.add(string);
+
+		return string;
+	}
+
+	/**
+	 * Reads a position in a table.
+	 *
+	 * @param size the size of the table
+	 * @return the position
+	 * @throws IOException if the position couldn't be read or is outside the table
+	 */
+	private int readIndex(int size) throws IOException {
+
+		long index = readVarint();
+
+		if(index >= size){
+			throw new IOException("The position " + index + " is outside a table of " + size);
+		}
+
+		return (int) index;
+	}
+
+	/**
+	 * Reads a number which can't be negative and fits in an int.
+	 *
+	 * @return the number
+	 * @throws IOException if the number couldn't be read or is too large
+	 */
+	private int readInt() throws IOException {
+
+		long value = readVarint();
+
+		if(value > Integer.MAX_VALUE){
+			throw new IOException("The number " + value + " is too large");
+		}
+
+		return (int) value;
+	}
+
+	/**
+	 * Reads a number written by {@link ExportWriter} as a signed varint.
+	 *
+	 * @return the number
+	 * @throws IOException if the number couldn't be read
+	 */
+	private long readSignedVarint() throws IOException {
+
+		long value = readVarint();
+
+		return (value >>> 1) ^ -(value & 1); // Undo the interleaving of negative and positive numbers
+	}
+
+	/**
+	 * Reads a number written seven bits at a time.
+	 *
+	 * @return the number
+	 * @throws IOException if the number couldn't be read or is longer than a long
+	 */
+	private long readVarint() throws IOException {
+
+		long value = 0;
+
+		for(int shift = 0; shift < Long.SIZE; shift += 7){
+
+			int b = in.readUnsignedByte();
+			value |= (long) (b & 0x7F) << shift;
+
+			if((b & 0x80) == 0){ // If this is the last byte
+				return value;
+			}
+		}
+
+		throw new IOException("A number is longer than a long");
+	}
+
+}
@@ -0,0 +1,256 @@
+package com.wilfaskins.studentdata.io;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import com.wilfaskins.studentdata.Module;
+import com.wilfaskins.studentdata.Supervisor;
+import com.wilfaskins.studentdata.students.PostgraduateResearchStudent;
+import com.wilfaskins.studentdata.students.Student;
+import com.wilfaskins.studentdata.students.id.SmartCard;
+import com.wilfaskins.studentdata.students.id.SmartCardNumber;
+import com.wilfaskins.studentdata.students.id.StudentID;
+import com.wilfaskins.studentdata.students.id.StudentName;
+
+/**
+ * Writes a whole DataSystem in a compact binary form, so it can be loaded by another process with an {@link ExportReader}.
+ *
+ * The export starts with the ID and smart card number counters, the modules and the supervisors, then has one entry
+ * per student. Numbers are written as varints, using as few bytes as they need, and student IDs and dates of issue
+ * are written as the difference from the student before. Each string is written in full the first time it is used
+ * and as its position in the table of strings written so far after that, so repeated names and initials cost a byte
+ * or two. Modules and supervisors are written as their position in the catalogue written at the start.
+ *
+ * Students are written one at a time, so the whole export never needs to be held in memory.
+ *
+ * @author Wilfrid Askins
+ */
+public final class ExportWriter implements Closeable {
+
+	/** The number at the start of every export. */
+	static final int MAGIC = 0x57414558;
+
+	/** The version of the export format. */
+	static final int VERSION = 1;
+
+	/** The byte written in place of a student's type after the last student. */
+	static final int END = 0xFF;
+
+	/** The output being written to. */
+	private final DataOutputStream out;
+
+	/** The position of each string in the table of strings written so far. */
+	private final Map<String,Integer> strings;
+
+	/** The position of each module in the catalogue at the start of the export. */
+	private final Map<Module,Integer> modules;
+
+	/** The position of each supervisor in the catalogue at the start of the export. */
+	private final Map<Supervisor,Integer> supervisors;
+
+	/** The number of the last student ID written. */
+	private int lastStudentID;
+
+	/** The last date of issue written, in milliseconds. */
+	private long lastIssued;
+
+	/** Whether the end of the export has been written. */
+	private boolean finished;
+
+	/**
+	 * Starts an export, writing the counters and the catalogues of modules and supervisors.
+	 *
+	 * @param out the output to write to, which is closed when the export is closed
+	 * @param modules every module students can take
+	 * @param supervisors every supervisor
+	 * @throws IOException if the start of the export couldn't be written
+	 */
+	public ExportWriter(OutputStream out, Collection<Module> modules, Collection<Supervisor> supervisors) throws IOException {
+		super();
+
+		Objects.requireNonNull(out, "The output cannot be null");
+		Objects.requireNonNull(modules, "The modules cannot be null");
+		Objects.requireNonNull(supervisors, "The supervisors cannot be null");
+
+		this.out = new DataOutputStream(new BufferedOutputStream(out));
+		this.strings = new HashMap<>();
+		this.modules = new HashMap<>(modules.size() * 2);
+		this.supervisors = new HashMap<>(supervisors.size() * 2);
+
+		this.out.writeInt(MAGIC);
+		writeVarint(VERSION);
+
+		// Save the counters, so numbers issued before the export aren't issued again
+		writeVarint(StudentID.getLastIssued());
+
+		Map<String,Integer> counters = SmartCardNumber.getSerialCounters();
+		writeVarint(counters.size());
+
+		for(Map.Entry<String,Integer> counter : counters.entrySet()){
+			writeString(counter.getKey());
+			writeVarint(counter.getValue());
+		}
+
+		writeVarint(modules.size());
+
+		for(Module module : modules){
+			this.modules.putIfAbsent(module, this.modules.size());
+			writeString(module.getCode());
+			writeString(module.getName());
+			writeVarint(module.getCredits());
+		}
+
+		writeVarint(supervisors.size());
+
+		for(Supervisor supervisor : supervisors){
+			this.supervisors.putIfAbsent(supervisor, this.supervisors.size());
+			writeString(supervisor.getFirstName());
+			writeString(supervisor.getLastName());
+		}
+	}
+
+	/**
+	 * Writes a student and their smart card.
+	 *
+	 * @param registration the student and their smart card
+	 * @throws IOException if the student couldn't be written, or takes a module which isn't in the catalogue
+	 */
+	public void write(Registration registration) throws IOException {
+
+		Objects.requireNonNull(registration, "A registration cannot be null");
+
+		if(finished){
+			throw new IllegalStateException("The export has already been finished");
+		}
+
+		Student student = registration.getStudent();
+		SmartCard smartCard = registration.getSmartCard();
+		SmartCardNumber number = smartCard.getSmartCardNumber();
+		StudentName name = student.getName();
+		int studentID = smartCard.getStudentID().toInt();
+
+		out.writeByte(student.getStudentType().ordinal());
+		writeSignedVarint(studentID - lastStudentID); // Students are usually written in order, so this is small
+		lastStudentID = studentID;
+
+		// Write the student's details
+		writeString(name.getFirstName());
+		writeString(name.getMiddleNames());
+		writeString(name.getLastName());
+		writeSignedVarint(student.getDateOfBirth().getTime());
+
+		if(student instanceof PostgraduateResearchStudent){ // Research students have a supervisor instead of modules
+
+			Supervisor supervisor = ((PostgraduateResearchStudent) student).getSupervisor();
+			Integer position = supervisors.get(supervisor);
+
+			if(position != null){
+				writeVarint(position + 1);
+			}else{ // Supervisors who aren't in the catalogue are written in full
+				writeVarint(0);
+				writeString(supervisor.getFirstName());
+				writeString(supervisor.getLastName());
+			}
+
+		}else{
+
+			Collection<Module> taken = student.getModules();
+			writeVarint(taken.size());
+
+			for(Module module : taken){
+
+				Integer position = modules.get(module);
+
+				if(position == null){
+					throw new IOException("The module " + module.getCode() + " isn't in the exported catalogue");
+				}
+
+				writeVarint(position);
+			}
+		}
+
+		// Write the smart card's details
+		writeString(number.getFirstInitial());
+		writeString(number.getLastInitial());
+		writeString(number.getYear());
+		writeVarint(number.getSerialNumber());
+
+		long issued = smartCard.getDateOfIssue().getTime();
+		writeSignedVarint(issued - lastIssued); // Cards issued together have close dates, so this is small
+		lastIssued = issued;
+	}
+
+	/**
+	 * Writes the end of the export and closes the output.
+	 *
+	 * @throws IOException if the export couldn't be finished
+	 */
+	@Override
+	public void close() throws IOException {
+
+		try{
+			if(!finished){
+				finished = true;
+				out.writeByte(END);
+				out.flush();
+			}
+		}finally{
+			out.close();
+		}
+	}
+
+	/**
+	 * Writes a string, or its position in the table if it has been written before.
+	 * Zero means a new string follows, and any other number is one more than the string's position.
+	 *
+	 * @param string the string
+	 * @throws IOException if the string couldn't be written
+	 */
+	private void writeString(String string) throws IOException {
+
+		Integer position = strings.get(string);
+
+		if(position != null){
+			writeVarint(position + 1);
+			return;
+		}
+
+		strings.put(string, strings.size());
+		writeVarint(0);
+		out.writeUTF(string);
+	}
+
+	/**
+	 * Writes a number which can be negative, so that numbers close to zero either way take few bytes.
+	 *
+	 * @param value the number
+	 * @throws IOException if the number couldn't be written
+	 */
+	private void writeSignedVarint(long value) throws IOException {
+		writeVarint((value << 1) ^ (value >> 63)); // Interleave the negative numbers with the positive ones
+	}
+
+	/**
+	 * Writes a number which can't be negative, seven bits at a time, with the top bit of each byte set if more follow.
+	 *
+	 * @param value the number
+	 * @throws IOException if the number couldn't be written
+	 */
+	private void writeVarint(long value) throws IOException {
+
+		while((value & ~0x7FL) != 0){
+			out.writeByte((int) (value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+
+		out.writeByte((int) value);
+	}
+
+}
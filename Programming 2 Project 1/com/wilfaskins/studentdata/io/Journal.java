@@ -0,0 +1,536 @@
+package com.wilfaskins.studentdata.io;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+import com.wilfaskins.studentdata.Module;
+import com.wilfaskins.studentdata.students.id.StudentID;
+
+/**
+ * An append-only journal of the changes made to the students in a DataSystem.
+ *
+ * Each entry is written with its length, a sequence number and a checksum, so an entry which was only partly written
+ * before a crash is found and discarded when the journal is opened. Only the last entry can have been partly written,
+ * so a damaged entry with more of the journal after it means the file is corrupt, and the journal refuses to open
+ * rather than throw away the entries after it. Entries are buffered in memory and forced to disk
+ * in groups: a thread waiting for its entry to be saved also saves every entry added before it, so many threads
+ * registering students at once share each disk sync.
+ *
+ * @author Wilfrid Askins
+ */
+public final class Journal implements Closeable {
+
+	/** The entry type for a student being registered. */
+	private static final byte REGISTER = 1;
+
+	/** The entry type for a student being terminated. */
+	private static final byte TERMINATE = 2;
+
+	/** The entry type for a student's data being replaced. */
+	private static final byte AMEND = 3;
+
+	/** The entry type for a batch of students being registered together. */
+	private static final byte REGISTER_ALL = 4;
+
+	/** The entry type for modules being given to a student after they were registered. */
+	private static final byte MODULES = 5;
+
+	/** The largest entry which will be written or read back. Anything larger must be corrupt. This leaves room for a batch of many thousands of students. */
+	private static final int MAX_ENTRY_SIZE = 1 << 26;
+
+	/**
+	 * Receives the changes read back from a journal.
+	 */
+	public interface Listener {
+
+		/**
+		 * Called when a student was registered.
+		 *
+		 * @param registration the student and their smart card
+		 */
+		void registered(Registration registration);
+
+		/**
+		 * Called when a student was terminated.
+		 *
+		 * @param studentID the ID of the student
+		 */
+		void terminated(StudentID studentID);
+
+		/**
+		 * Called when a registered student was given modules.
+		 *
+		 * @param studentID the ID of the student
+		 * @param modules every module the student takes
+		 */
+		void modulesChanged(StudentID studentID, List<Module> modules);
+	}
+
+	/** The channel of the journal file. */
+	private final FileChannel channel;
+
+	/** The entries which have been added but not yet written to the file. */
+	private final ByteArrayOutputStream pending;
+
+	/** Used to build each entry before its checksum is known. */
+	private final ByteArrayOutputStream entry;
+
+	/** Used to write the fields of each entry. */
+	private final DataOutputStream entryOut;
+
+	/** Makes sure only one thread writes to the file at once. */
+	private final Object syncLock;
+
+	/** The sequence number of the last entry added. */
+	private long lastSequence;
+
+	/** The number of entries in the file. */
+	private long size;
+
+	/** The sequence number of the last entry which is safely on disk. */
+	private volatile long syncedSequence;
+
+	/** Whether writing to the file has failed. After a failure, the journal can't be trusted and refuses new entries. */
+	private volatile boolean failed;
+
+	/**
+	 * Instantiates a new journal.
+	 *
+	 * @param channel the channel of the journal file
+	 * @param lastSequence the sequence number of the last entry in the file
+	 * @param size the number of entries in the file
+	 */
+	private Journal(FileChannel channel, long lastSequence, long size) {
+		super();
+		this.channel = channel;
+		this.pending = new ByteArrayOutputStream();
+		this.entry = new ByteArrayOutputStream();
+		this.entryOut = new DataOutputStream(entry);
+		this.syncLock = new Object();
+		this.lastSequence = lastSequence;
+		this.syncedSequence = lastSequence;
+		this.size = size;
+	}
+
+	/**
+	 * Opens a journal, reading back every entry after a sequence number, then prepares it for new entries.
+	 * Any partly written entry at the end of the file is removed.
+	 *
+	 * @param file the journal file, which is created if it doesn't exist
+	 * @param afterSequence the sequence number of the last entry which has already been applied, such as by a snapshot
+	 * @param modules the function to find a module from its code
+	 * @param listener the listener to receive each entry
+	 * @return the opened journal
+	 * @throws IOException if the journal couldn't be read, or an entry before the end of the file is damaged
+	 */
+	public static Journal open(File file, long afterSequence, Function<String,Module> modules, Listener listener) throws IOException {
+
+		FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+		try{
+			long lastSequence = afterSequence;
+			long size = 0;
+			long validLength = 0; // The length of the file up to the end of the last complete entry
+			long fileLength = channel.size();
+
+			channel.position(0);
+			DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+
+			while(true){
+
+				byte[] body = readEntry(in, validLength, fileLength);
+
+				if(body == null){ // If there are no more complete entries
+					break;
+				}
+
+				DataInputStream entryIn = new DataInputStream(new ByteArrayInputStream(body));
+				long sequence = entryIn.readLong();
+
+				if(sequence > afterSequence){ // Only apply entries which haven't been applied already
+					apply(entryIn, modules, listener);
+				}
+
+				lastSequence = Math.max(lastSequence, sequence);
+				validLength += Integer.BYTES * 2 + body.length;
+				size++;
+			}
+
+			channel.truncate(validLength); // Remove anything after the last complete entry
+			channel.position(validLength);
+
+			return new Journal(channel, lastSequence, size);
+
+		}catch(IOException | RuntimeException e){
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Reads the body of the next entry, checking it is complete and unchanged.
+	 * An entry which runs past the end of the file, or is damaged and is the last thing in the file, was only partly
+	 * written before a crash. An entry which is damaged and has more of the file after it means the file is corrupt.
+	 *
+	 * @param dataIn the input to read from
+	 * @param offset the position of the entry in the file
+	 * @param fileLength the length of the file
+	 * @return the body of the entry, or null if there are no more complete entries
+	 * @throws IOException if the file couldn't be read, or the entry is damaged and isn't the last in the file
+	 */
+	private static byte[] readEntry(DataInputStream dataIn, long offset, long fileLength) throws IOException {
+
+		if(fileLength - offset < Integer.BYTES){ // If there is nothing left, or the length was only partly written
+			return null;
+		}
+
+		int length = dataIn.readInt();
+
+		if(length < Long.BYTES + 1 || length > MAX_ENTRY_SIZE){ // If the length is impossible, the entry is damaged
+
+			if(offset + Integer.BYTES == fileLength){
+				return null;
+			}
+
+			throw new IOException("The journal entry at offset " + offset + " has an impossible length of " + length);
+		}
+
+		long end = offset + Integer.BYTES * 2 + length;
+
+		if(end > fileLength){ // If the entry was only partly written
+			return null;
+		}
+
+		byte[] body = new byte[length];
+		dataIn.readFully(body);
+		int checksum = dataIn.readInt();
+
+		CRC32 crc = new CRC32();
+		crc.update(body, 0, body.length);
+
+		if((int) crc.getValue() != checksum){ // If the entry was damaged
+
+			if(end == fileLength){
+				return null;
+			}
+
+			throw new IOException("The journal entry at offset " + offset + " doesn't match its checksum");
+		}
+
+		return body;
+	}
+
+	/**
+	 * Passes an entry to the listener.
+	 *
+	 * @param in the input to read the entry from, positioned after its sequence number
+	 * @param modules the function to find a module from its code
+	 * @param listener the listener to receive the entry
+	 * @throws IOException if the entry couldn't be read
+	 */
+	private static void apply(DataInputStream in, Function<String,Module> modules, Listener listener) throws IOException {
+
+		byte type = in.readByte();
+
+		switch(type){
+
+		case REGISTER:
+			listener.registered(RegistrationCodec.read(in, modules));
+			break;
+
+		case TERMINATE:
+			listener.terminated(RegistrationCodec.readStudentID(in));
+			break;
+
+		case AMEND:
+			StudentID oldID = RegistrationCodec.readStudentID(in);
+			Registration registration = RegistrationCodec.read(in, modules);
+			listener.terminated(oldID);
+			listener.registered(registration);
+			break;
+
+		case REGISTER_ALL:
+			int count = in.readInt();
+
+			for(int i = 0; i < count; i++){
+				listener.registered(RegistrationCodec.read(in, modules));
+			}
+			break;
+
+		case MODULES:
+			StudentID studentID = RegistrationCodec.readStudentID(in);
+			listener.modulesChanged(studentID, RegistrationCodec.readModules(in, modules));
+			break;
+
+		default:
+			throw new IOException("Unknown journal entry type " + type);
+		}
+	}
+
+	/**
+	 * Adds a student's registration to the journal. The entry isn't safely saved until {@link #sync(long)} is called.
+	 *
+	 * @param registration the student and their smart card
+	 * @return the sequence number of the entry
+	 * @throws IOException if the entry couldn't be added
+	 */
+	public synchronized long register(Registration registration) throws IOException {
+
+		long sequence = startEntry(REGISTER);
+		RegistrationCodec.write(entryOut, registration);
+
+		return finishEntry(sequence);
+	}
+
+	/**
+	 * Adds the registration of a batch of students to the journal, as one entry so the batch can't be half applied.
+	 * The entry isn't safely saved until {@link #sync(long)} is called.
+	 *
+	 * @param registrations the students and their smart cards
+	 * @return the sequence number of the entry
+	 * @throws IOException if the entry couldn't be added, such as if the batch is too large for one entry
+	 */
+	public synchronized long registerAll(List<Registration> registrations) throws IOException {
+
+		long sequence = startEntry(REGISTER_ALL);
+		entryOut.writeInt(registrations.size());
+
+		for(Registration registration : registrations){
+			RegistrationCodec.write(entryOut, registration);
+		}
+
+		return finishEntry(sequence);
+	}
+
+	/**
+	 * Adds a student's termination to the journal. The entry isn't safely saved until {@link #sync(long)} is called.
+	 *
+	 * @param studentID the ID of the terminated student
+	 * @return the sequence number of the entry
+	 * @throws IOException if the entry couldn't be added
+	 */
+	public synchronized long terminate(StudentID studentID) throws IOException {
+
+		long sequence = startEntry(TERMINATE);
+		RegistrationCodec.writeStudentID(entryOut, studentID);
+
+		return finishEntry(sequence);
+	}
+
+	/**
+	 * Adds the replacement of a student's data to the journal, as one entry so it can't be half applied.
+	 * The entry isn't safely saved until {@link #sync(long)} is called.
+	 *
+	 * @param oldID the ID of the student being replaced
+	 * @param registration the new student and their smart card
+	 * @return the sequence number of the entry
+	 * @throws IOException if the entry couldn't be added
+	 */
+	public synchronized long amend(StudentID oldID, Registration registration) throws IOException {
+
+		long sequence = startEntry(AMEND);
+		RegistrationCodec.writeStudentID(entryOut, oldID);
+		RegistrationCodec.write(entryOut, registration);
+
+		return finishEntry(sequence);
+	}
+
+	/**
+	 * Adds the modules a registered student takes to the journal, after modules have been given to them.
+	 * The entry isn't safely saved until {@link #sync(long)} is called.
+	 *
+	 * @param studentID the ID of the student
+	 * @param modules every module the student takes
+	 * @return the sequence number of the entry
+	 * @throws IOException if the entry couldn't be added
+	 */
+	public synchronized long modulesChanged(StudentID studentID, Set<Module> modules) throws IOException {
+
+		long sequence = startEntry(MODULES);
+		RegistrationCodec.writeStudentID(entryOut, studentID);
+		RegistrationCodec.writeModules(entryOut, modules);
+
+		return finishEntry(sequence);
+	}
+
+	/**
+	 * Starts a new entry.
+	 *
+	 * @param type the type of the entry
+	 * @return the sequence number of the entry
+	 * @throws IOException if the journal has failed
+	 */
+	private long startEntry(byte type) throws IOException {
+
+		if(failed){
+			throw new IOException("The journal can't be written to after an earlier failure");
+		}
+
+		entry.reset();
+		entryOut.writeLong(lastSequence + 1);
+		entryOut.writeByte(type);
+
+		return lastSequence + 1;
+	}
+
+	/**
+	 * Finishes an entry, adding it to the pending entries with its length and checksum.
+	 *
+	 * @param sequence the sequence number of the entry
+	 * @return the sequence number of the entry
+	 * @throws IOException if the entry is too large to be read back
+	 */
+	private long finishEntry(long sequence) throws IOException {
+
+		byte[] body = entry.toByteArray();
+
+		if(body.length > MAX_ENTRY_SIZE){ // Nothing has been added yet, so the journal can carry on
+			throw new IOException("The journal entry is " + body.length + " bytes, which is larger than " + MAX_ENTRY_SIZE);
+		}
+
+		CRC32 crc = new CRC32();
+		crc.update(body, 0, body.length);
+
+		writeInt(pending, body.length);
+		pending.write(body, 0, body.length);
+		writeInt(pending, (int) crc.getValue());
+
+		lastSequence = sequence; // Only take the sequence number once the entry is complete
+		size++;
+
+		return sequence;
+	}
+
+	/**
+	 * Writes an integer to a stream, most significant byte first.
+	 *
+	 * @param out the stream to write to
+	 * @param value the integer to write
+	 */
+	private static void writeInt(ByteArrayOutputStream out, int value) {
+		out.write(value >>> 24);
+		out.write(value >>> 16);
+		out.write(value >>> 8);
+		out.write(value);
+	}
+
+	/**
+	 * Waits until an entry, and every entry before it, has been forced to disk.
+	 * If no other thread is already writing, this thread writes every pending entry at once.
+	 *
+	 * @param sequence the sequence number of the entry
+	 * @throws IOException if the entries couldn't be written
+	 */
+	public void sync(long sequence) throws IOException {
+
+		if(syncedSequence >= sequence){ // If another thread has already saved this entry
+			return;
+		}
+
+		synchronized(syncLock){
+
+			if(syncedSequence >= sequence){ // If another thread saved this entry while this one was waiting
+				return;
+			}
+
+			if(failed){
+				throw new IOException("The journal can't be written to after an earlier failure");
+			}
+
+			byte[] batch;
+			long batchSequence;
+
+			synchronized(this){ // Take every pending entry, so new entries can be added while these are written
+				batch = pending.toByteArray();
+				batchSequence = lastSequence;
+				pending.reset();
+			}
+
+			try{
+				ByteBuffer buffer = ByteBuffer.wrap(batch);
+
+				while(buffer.hasRemaining()){
+					channel.write(buffer);
+				}
+
+				channel.force(false); // Make sure the entries are on disk
+
+			}catch(IOException e){
+				failed = true; // The file may now be missing entries, so stop using it
+				throw e;
+			}
+
+			syncedSequence = batchSequence;
+		}
+	}
+
+	/**
+	 * Gets the sequence number of the last entry added.
+	 *
+	 * @return the sequence number
+	 */
+	public synchronized long getLastSequence() {
+		return lastSequence;
+	}
+
+	/**
+	 * Gets the number of entries in the journal, including ones which haven't been synced yet.
+	 *
+	 * @return the number of entries
+	 */
+	public synchronized long size() {
+		return size;
+	}
+
+	/**
+	 * Removes every entry from the journal, after they have been saved in a snapshot.
+	 * Sequence numbers carry on from where they were, so the snapshot can tell which entries it includes.
+	 * This must not be called while entries are being added.
+	 *
+	 * @throws IOException if the journal couldn't be cleared
+	 */
+	public void reset() throws IOException {
+
+		sync(getLastSequence()); // Make sure nothing pending is lost
+
+		synchronized(syncLock){
+			channel.truncate(0);
+			channel.position(0);
+			channel.force(true);
+
+			synchronized(this){
+				size = 0;
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() throws IOException {
+
+		try{
+			if(!failed){
+				sync(getLastSequence()); // Save any pending entries
+			}
+		}finally{
+			channel.close();
+		}
+	}
+
+}
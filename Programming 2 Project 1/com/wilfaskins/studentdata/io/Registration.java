@@ -0,0 +1,63 @@
+package com.wilfaskins.studentdata.io;
+
+import java.util.Objects;
+
+import com.wilfaskins.studentdata.students.Student;
+import com.wilfaskins.studentdata.students.id.SmartCard;
+
+/**
+ * A registered student, together with the smart card they were issued.
+ *
+ * @author Wilfrid Askins
+ */
+public final class Registration {
+
+	/** The registered student. */
+	private final Student student;
+
+	/** The smart card issued to the student. */
+	private final SmartCard smartCard;
+
+	/**
+	 * Instantiates a new registration.
+	 *
+	 * @param student the registered student
+	 * @param smartCard the smart card issued to the student
+	 */
+	public Registration(Student student, SmartCard smartCard) {
+		super();
+
+		Objects.requireNonNull(student, "A registration's student cannot be null");
+		Objects.requireNonNull(smartCard, "A registration's smart card cannot be null");
+
+		this.student = student;
+		this.smartCard = smartCard;
+	}
+
+	/**
+	 * Gets the registered student.
+	 *
+	 * @return the student
+	 */
+	public Student getStudent() {
+		return student;
+	}
+
+	/**
+	 * Gets the smart card issued to the student.
+	 *
+	 * @return the smart card
+	 */
+	public SmartCard getSmartCard() {
+		return smartCard;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "Registration [student=" + student + ", smartCard=" + smartCard + "]";
+	}
+
+}
@@ -0,0 +1,200 @@
+package com.wilfaskins.studentdata.io;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import com.wilfaskins.studentdata.Module;
+import com.wilfaskins.studentdata.Supervisor;
+import com.wilfaskins.studentdata.students.PostgraduateResearchStudent;
+import com.wilfaskins.studentdata.students.PostgraduateTaughtStudent;
+import com.wilfaskins.studentdata.students.Student;
+import com.wilfaskins.studentdata.students.StudentType;
+import com.wilfaskins.studentdata.students.UndergraduateStudent;
+import com.wilfaskins.studentdata.students.id.SmartCard;
+import com.wilfaskins.studentdata.students.id.SmartCardNumber;
+import com.wilfaskins.studentdata.students.id.StudentID;
+import com.wilfaskins.studentdata.students.id.StudentName;
+
+/**
+ * Converts registrations to and from a compact binary form, used by the journal and snapshots.
+ * Modules are written as their codes and looked up again when a registration is read.
+ *
+ * @author Wilfrid Askins
+ */
+final class RegistrationCodec {
+
+	/**
+	 * Instantiates a new registration codec. This class only has static methods.
+	 */
+	private RegistrationCodec() {
+		super();
+	}
+
+	/**
+	 * Writes a student ID.
+	 *
+	 * @param out the output to write to
+	 * @param studentID the student ID
+	 * @throws IOException if the ID couldn't be written
+	 */
+	static void writeStudentID(DataOutput out, StudentID studentID) throws IOException {
+		out.writeInt(studentID.toInt());
+	}
+
+	/**
+	 * Reads a student ID.
+	 *
+	 * @param in the input to read from
+	 * @return the student ID
+	 * @throws IOException if the ID couldn't be read
+	 */
+	static StudentID readStudentID(DataInput in) throws IOException {
+		return StudentID.valueOf(in.readInt());
+	}
+
+	/**
+	 * Writes a set of modules, as their codes.
+	 *
+	 * @param out the output to write to
+	 * @param modules the modules
+	 * @throws IOException if the modules couldn't be written
+	 */
+	static void writeModules(DataOutput out, Set<Module> modules) throws IOException {
+
+		out.writeShort(modules.size());
+
+		for(Module module : modules){
+			out.writeUTF(module.getCode());
+		}
+	}
+
+	/**
+	 * Reads a set of modules written by {@link #writeModules(DataOutput, Set)}.
+	 *
+	 * @param in the input to read from
+	 * @param modules the function to find a module from its code
+	 * @return the modules, in the order they were written
+	 * @throws IOException if the modules couldn't be read, or a module isn't in the catalogue
+	 */
+	static List<Module> readModules(DataInput in, Function<String,Module> modules) throws IOException {
+
+		int moduleCount = in.readUnsignedShort();
+		List<Module> read = new ArrayList<>(moduleCount);
+
+		for(int i = 0; i < moduleCount; i++){ // Find each module in the catalogue
+
+			String code = in.readUTF();
+			Module module = modules.apply(code);
+
+			if(module == null){
+				throw new IOException("Unknown module " + code);
+			}
+
+			read.add(module);
+		}
+
+		return read;
+	}
+
+	/**
+	 * Writes a registration.
+	 *
+	 * @param out the output to write to
+	 * @param registration the registration to be written
+	 * @throws IOException if the registration couldn't be written
+	 */
+	static void write(DataOutput out, Registration registration) throws IOException {
+
+		Student student = registration.getStudent();
+		SmartCard smartCard = registration.getSmartCard();
+		SmartCardNumber number = smartCard.getSmartCardNumber();
+		StudentName name = student.getName();
+
+		out.writeByte(student.getStudentType().ordinal());
+		writeStudentID(out, smartCard.getStudentID());
+
+		// Write the student's details
+		out.writeUTF(name.getFirstName());
+		out.writeUTF(name.getLastName());
+		out.writeUTF(name.getMiddleNames());
+		out.writeLong(student.getDateOfBirth().getTime());
+
+		if(student instanceof PostgraduateResearchStudent){ // Research students have a supervisor instead of modules
+
+			Supervisor supervisor = ((PostgraduateResearchStudent) student).getSupervisor();
+			out.writeUTF(supervisor.getFirstName());
+			out.writeUTF(supervisor.getLastName());
+
+		}else{
+
+			writeModules(out, student.getModules());
+		}
+
+		// Write the smart card's details
+		out.writeUTF(number.getFirstInitial());
+		out.writeUTF(number.getLastInitial());
+		out.writeUTF(number.getYear());
+		out.writeInt(number.getSerialNumber());
+		out.writeLong(smartCard.getDateOfIssue().getTime());
+	}
+
+	/**
+	 * Reads a registration, recreating the student and their smart card.
+	 *
+	 * @param in the input to read from
+	 * @param modules the function to find a module from its code
+	 * @return the registration
+	 * @throws IOException if the registration couldn't be read
+	 */
+	static Registration read(DataInput in, Function<String,Module> modules) throws IOException {
+
+		int type = in.readUnsignedByte();
+
+		if(type >= StudentType.values().length){
+			throw new IOException("Unknown student type " + type);
+		}
+
+		StudentID studentID = readStudentID(in);
+
+		StudentName name = new StudentName(in.readUTF(), in.readUTF(), in.readUTF());
+		Date dateOfBirth = new Date(in.readLong());
+
+		Student student;
+
+		switch(StudentType.values()[type]){
+
+		case POSTGRADUATE_RESEARCH:
+			student = new PostgraduateResearchStudent(name, dateOfBirth, new Supervisor(in.readUTF(), in.readUTF()));
+			break;
+
+		case POSTGRADUATE_TAUGHT:
+			student = new PostgraduateTaughtStudent(name, dateOfBirth);
+			break;
+
+		default:
+			student = new UndergraduateStudent(name, dateOfBirth);
+			break;
+		}
+
+		if(!(student instanceof PostgraduateResearchStudent)){
+
+			for(Module module : readModules(in, modules)){
+				student.addModule(module);
+			}
+		}
+
+		SmartCardNumber number = SmartCardNumber.valueOf(in.readUTF(), in.readUTF(), in.readUTF(), in.readInt());
+		SmartCard smartCard = SmartCard.valueOf(name, studentID, dateOfBirth, number, new Date(in.readLong()));
+
+		student.setStudentID(studentID);
+
+		return new Registration(student, smartCard);
+	}
+
+}
@@ -0,0 +1,137 @@
+package com.wilfaskins.studentdata.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import com.wilfaskins.studentdata.Module;
+import com.wilfaskins.studentdata.students.id.SmartCardNumber;
+import com.wilfaskins.studentdata.students.id.StudentID;
+
+/**
+ * Saves and loads snapshots of every registered student, so that only the journal entries made after the snapshot
+ * need to be replayed when a DataSystem is reopened.
+ *
+ * A snapshot also saves the student ID and smart card number counters, so numbers issued before the snapshot are
+ * never issued again.
+ *
+ * @author Wilfrid Askins
+ */
+public final class Snapshot {
+
+	/** The number at the start of every snapshot file. */
+	private static final int MAGIC = 0x534E4150;
+
+	/** The version of the snapshot format. */
+	private static final int VERSION = 1;
+
+	/**
+	 * Instantiates a new snapshot. This class only has static methods.
+	 */
+	private Snapshot() {
+		super();
+	}
+
+	/**
+	 * Writes a snapshot. The snapshot is written to a temporary file first, then moved into place, so a crash can't
+	 * leave a half written snapshot behind.
+	 *
+	 * @param file the snapshot file
+	 * @param sequence the sequence number of the last journal entry included in the snapshot
+	 * @param registrations every registered student and their smart card
+	 * @throws IOException if the snapshot couldn't be written
+	 */
+	public static void write(File file, long sequence, Collection<Registration> registrations) throws IOException {
+
+		File temporary = new File(file.getPath() + ".tmp");
+
+		try(FileOutputStream fileOut = new FileOutputStream(temporary)){
+
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut));
+
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(sequence);
+
+			// Save the counters, so the same numbers aren't issued again
+			out.writeInt(StudentID.getLastIssued());
+
+			Map<String,Integer> counters = SmartCardNumber.getSerialCounters();
+			out.writeInt(counters.size());
+
+			for(Map.Entry<String,Integer> counter : counters.entrySet()){
+				out.writeUTF(counter.getKey());
+				out.writeInt(counter.getValue());
+			}
+
+			out.writeInt(registrations.size());
+
+			for(Registration registration : registrations){
+				RegistrationCodec.write(out, registration);
+			}
+
+			out.flush();
+			fileOut.getFD().sync(); // Make sure the snapshot is on disk before it replaces the old one
+		}
+
+		Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Reads a snapshot, restoring the counters and passing each registration to a consumer.
+	 *
+	 * @param file the snapshot file
+	 * @param modules the function to find a module from its code
+	 * @param consumer the consumer to receive each registration
+	 * @return the sequence number of the last journal entry included in the snapshot, or zero if there is no snapshot
+	 * @throws IOException if the snapshot couldn't be read
+	 */
+	public static long read(File file, Function<String,Module> modules, Consumer<Registration> consumer) throws IOException {
+
+		if(!file.exists()){ // If no snapshot has been taken yet
+			return 0;
+		}
+
+		try(DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))){
+
+			if(in.readInt() != MAGIC || in.readInt() != VERSION){
+				throw new IOException(file + " is not a snapshot");
+			}
+
+			long sequence = in.readLong();
+
+			// Restore the counters
+			StudentID.restoreLastIssued(in.readInt());
+
+			int counterCount = in.readInt();
+			Map<String,Integer> counters = new HashMap<>();
+
+			for(int i = 0; i < counterCount; i++){
+				counters.put(in.readUTF(), in.readInt());
+			}
+
+			SmartCardNumber.restoreSerialCounters(counters);
+
+			int registrationCount = in.readInt();
+
+			for(int i = 0; i < registrationCount; i++){
+				consumer.accept(RegistrationCodec.read(in, modules));
+			}
+
+			return sequence;
+		}
+	}
+
+}
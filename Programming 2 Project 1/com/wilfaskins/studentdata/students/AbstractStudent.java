@@ -19,8 +19,8 @@ public abstract class AbstractStudent implements Student{
 	/** The student's date of birth. */
 	private final Date dateOfBirth;
 	
-	/** The student's ID. */
-	private StudentID studentID;
+	/** The student's ID. This is volatile as students may be registered and terminated from different threads. */
+	private volatile StudentID studentID;
 	
 	/**
 	 * Instantiates a new abstract student.
@@ -79,6 +79,9 @@ public abstract class AbstractStudent implements Student{
 	}
 
 	/* (non-Javadoc)
+	 * The student ID isn't included, as it changes when the student is registered and terminated,
+	 * which would lose the student if it was in a hash set at the time.
+	 * 
 	 * @see java.lang.Object#hashCode()
 	 */	
 	@Override
@@ -86,12 +89,13 @@ public abstract class AbstractStudent implements Student{
 		final int prime = 31;
 		int result = 1;
 		result = prime * result + ((dateOfBirth == null) ? 0 : dateOfBirth.hashCode());
-		result = prime * result + ((studentID == null) ? 0 : studentID.hashCode());
 		result = prime * result + ((studentName == null) ? 0 : studentName.hashCode());
 		return result;
 	}
 	
 	/* (non-Javadoc)
+	 * The student ID isn't included, for the same reason as in hashCode.
+	 * 
 	 * @see java.lang.Object#equals(java.lang.Object)
 	 */
 	@Override
@@ -108,11 +112,6 @@ public abstract class AbstractStudent implements Student{
 				return false;
 		} else if (!dateOfBirth.equals(other.dateOfBirth))
 			return false;
-		if (studentID == null) {
-			if (other.studentID != null)
-				return false;
-		} else if (!studentID.equals(other.studentID))
-			return false;
 		if (studentName == null) {
 			if (other.studentName != null)
 				return false;
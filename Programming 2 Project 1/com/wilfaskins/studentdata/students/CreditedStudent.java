@@ -1,7 +1,10 @@
 package com.wilfaskins.studentdata.students;
 
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 
 import com.wilfaskins.studentdata.Module;
@@ -11,12 +14,31 @@ import com.wilfaskins.studentdata.students.id.StudentName;
  * 
  * This class represents a student who takes modules and has credits.
  * 
+ * The modules are stored as bits, one for each module's position in the catalogue they were loaded in, and the credits
+ * are totalled as modules are added, so checking whether the student takes a module or is registered correctly doesn't
+ * look at every module. Modules which aren't in that catalogue, such as ones created on their own, are kept in a set.
+ * 
  * @author Wilfrid Askins
  */
 public abstract class CreditedStudent extends AbstractStudent{
 
-	/** The modules taken by the student. */
-	private Set<Module> modules;
+	/** Used for the bits before the student takes a module from a catalogue. */
+	private static final long[] NO_BITS = new long[0];
+	
+	/** The catalogue the module bits are indexed by, or null until the student takes a module from a catalogue. */
+	private List<Module> catalogue;
+	
+	/** The modules taken by the student, as a bit for each module's ordinal in the catalogue. */
+	private long[] moduleBits;
+	
+	/** The modules taken by the student which aren't in the catalogue, or null if there aren't any. */
+	private Set<Module> otherModules;
+	
+	/** The set of modules last given out, or null if a module has been added since. */
+	private Set<Module> modulesView;
+	
+	/** The total credits of the modules taken by the student. */
+	private int registeredCredits;
 	
 	/**
 	 * Instantiates a new credited student.
@@ -26,15 +48,44 @@ public abstract class CreditedStudent extends AbstractStudent{
 	 */
 	public CreditedStudent(StudentName studentName, Date dateOfBirth) {
 		super(studentName, dateOfBirth);
-		modules = new HashSet<Module>();
+		moduleBits = NO_BITS;
 	}
 
-	/* (non-Javadoc)
-	 * @see com.wilfaskins.studentdata.students.Student#getModules()
+	/**
+	 * Gets the modules taken by the student. The set is built the first time it is asked for after a module is added,
+	 * then the same set is given out until another module is added, so it doesn't change once it has been given out.
+	 * 
+	 * @return an unmodifiable set of the modules
 	 */
 	@Override
 	public Set<Module> getModules() {
-		return modules;
+		
+		Set<Module> view = modulesView;
+		
+		if(view != null){ // If no module has been added since the set was built
+			return view;
+		}
+		
+		Set<Module> modules = new HashSet<>();
+		
+		for(int word = 0; word < moduleBits.length; word++){ // Find every set bit
+			
+			long bits = moduleBits[word];
+			
+			while(bits != 0){
+				modules.add(catalogue.get(word * Long.SIZE + Long.numberOfTrailingZeros(bits)));
+				bits &= bits - 1; // Clear the lowest set bit
+			}
+		}
+		
+		if(otherModules != null){
+			modules.addAll(otherModules);
+		}
+		
+		view = Collections.unmodifiableSet(modules);
+		modulesView = view;
+		
+		return view;
 	}
 
 	/* (non-Javadoc)
@@ -42,7 +93,91 @@ public abstract class CreditedStudent extends AbstractStudent{
 	 */
 	@Override
 	public void addModule(Module m){
-		modules.add(m);
+		
+		if(takesModule(m)){ // Only count the module's credits once
+			return;
+		}
+		
+		if(catalogue == null && m.getCatalogue() != null){ // The first module from a catalogue decides which catalogue the bits are for
+			catalogue = m.getCatalogue();
+			moduleBits = new long[(catalogue.size() + Long.SIZE - 1) / Long.SIZE];
+		}
+		
+		int ordinal = ordinalOf(m);
+		
+		if(ordinal >= 0){
+			moduleBits[ordinal >>> 6] |= 1L << ordinal;
+		}else{
+			
+			if(otherModules == null){
+				otherModules = new HashSet<>();
+			}
+			
+			otherModules.add(m);
+		}
+		
+		registeredCredits += m.getCredits();
+		modulesView = null; // The set given out before doesn't have this module
+	}
+	
+	/**
+	 * Checks whether the student takes a module.
+	 *
+	 * @param m the module
+	 * @return true, if the student takes the module
+	 */
+	public boolean takesModule(Module m){
+		
+		int ordinal = ordinalOf(Objects.requireNonNull(m, "A module cannot be null"));
+		
+		if(ordinal >= 0 && (moduleBits[ordinal >>> 6] & (1L << ordinal)) != 0){ // A single bit test for a module in the catalogue
+			return true;
+		}
+		
+		return otherModules != null && otherModules.contains(m);
+	}
+	
+	/**
+	 * Finds the bit for a module. A module from the student's catalogue uses its ordinal; any other module is looked
+	 * for in the catalogue, in case an equal module is there.
+	 *
+	 * @param m the module
+	 * @return the module's position in the student's catalogue, or -1 if it isn't in it
+	 */
+	private int ordinalOf(Module m){
+		
+		if(catalogue == null){
+			return -1;
+		}
+		
+		return m.getCatalogue() == catalogue ? m.getOrdinal() : catalogue.indexOf(m);
+	}
+	
+	/**
+	 * Gets the catalogue the module bits are indexed by.
+	 *
+	 * @return the catalogue, or null if the student doesn't take any modules from a catalogue
+	 */
+	public List<Module> getModuleCatalogue(){
+		return catalogue;
+	}
+	
+	/**
+	 * Checks whether every module the student takes is in their catalogue, so the module bits include all of them.
+	 *
+	 * @return true, if the bits include every module
+	 */
+	public boolean hasOnlyCatalogueModules(){
+		return otherModules == null;
+	}
+	
+	/**
+	 * Gets the modules taken by the student, as a bit for each module's ordinal in their catalogue.
+	 *
+	 * @return a copy of the bits
+	 */
+	public long[] getModuleBits(){
+		return moduleBits.clone();
 	}
 	
 	/**
@@ -51,7 +186,7 @@ public abstract class CreditedStudent extends AbstractStudent{
 	 * @return the registered credits
 	 */
 	public int getRegisteredCredits(){
-		return modules.stream().mapToInt(Module::getCredits).sum(); // Add all the modules together and return a total
+		return registeredCredits; // The total is kept up to date as modules are added
 	}
 	
 	/**
@@ -0,0 +1,230 @@
+package com.wilfaskins.studentdata.students.id;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Objects;
+
+import com.wilfaskins.studentdata.students.StudentType;
+
+/**
+ * Checks whether students are old enough to be issued a smartcard.
+ *
+ * Dates are compared as the number of days since 1970-01-01. For each type of student, the latest date of birth which
+ * is old enough today is worked out once and kept until midnight, so checking a student is a single comparison.
+ *
+ * @author Wilfrid Askins
+ */
+public final class Eligibility {
+
+	/** The youngest age an undergraduate can be. */
+	private static final int UNDERGRADUATE_AGE = 17;
+
+	/** The youngest age a postgraduate can be. */
+	private static final int POSTGRADUATE_AGE = 20;
+
+	/** Today's date and everything worked out from it. This is replaced at midnight. */
+	private static volatile Today today = new Today(System.currentTimeMillis());
+
+	/**
+	 * Instantiates a new eligibility checker. This class only has static methods.
+	 */
+	private Eligibility() {
+		super();
+	}
+
+	/**
+	 * Gets the youngest age a type of student can be.
+	 *
+	 * @param type the type of student
+	 * @return the minimum age
+	 */
+	public static int getMinimumAge(StudentType type) {
+
+		Objects.requireNonNull(type, "A student's type cannot be null");
+
+		return type.isPostgraduate() ? POSTGRADUATE_AGE : UNDERGRADUATE_AGE;
+	}
+
+	/**
+	 * Checks whether a student is old enough to be a type of student today.
+	 *
+	 * @param type the type of the student
+	 * @param dateOfBirth the student's date of birth
+	 * @return true, if the student is old enough
+	 */
+	public static boolean isOldEnough(StudentType type, Date dateOfBirth) {
+
+		Objects.requireNonNull(type, "A student's type cannot be null");
+		Objects.requireNonNull(dateOfBirth, "A student's date of birth cannot be null");
+
+		Today now = today(System.currentTimeMillis());
+
+		return now.isOldEnough(type, now.epochDay(dateOfBirth.getTime()));
+	}
+
+	/**
+	 * Checks whether many students are old enough, such as every student in an import file, in one pass.
+	 * Every student is checked against the same date, even if the check runs past midnight.
+	 *
+	 * @param types the types of the students
+	 * @param datesOfBirth the dates of birth of the students, in the same order
+	 * @return the indexes of the students who aren't old enough, in order, which is empty if every student is old enough
+	 */
+	public static int[] findTooYoung(StudentType[] types, Date[] datesOfBirth) {
+		return findTooYoung(types, datesOfBirth, today(System.currentTimeMillis()));
+	}
+
+	/**
+	 * Checks whether many students are old enough on a date.
+	 *
+	 * @param types the types of the students
+	 * @param datesOfBirth the dates of birth of the students, in the same order
+	 * @param now the date to check against
+	 * @return the indexes of the students who aren't old enough, in order
+	 */
+	private static int[] findTooYoung(StudentType[] types, Date[] datesOfBirth, Today now) {
+
+		Objects.requireNonNull(types, "The students' types cannot be null");
+		Objects.requireNonNull(datesOfBirth, "The students' dates of birth cannot be null");
+
+		if(types.length != datesOfBirth.length){
+			throw new IllegalArgumentException("Every student needs a type and date of birth");
+		}
+
+		int[] tooYoung = new int[0];
+		int found = 0;
+
+		for(int i = 0; i < types.length; i++){
+
+			Objects.requireNonNull(types[i], "A student's type cannot be null");
+			Objects.requireNonNull(datesOfBirth[i], "A student's date of birth cannot be null");
+
+			if(!now.isOldEnough(types[i], now.epochDay(datesOfBirth[i].getTime()))){
+
+				if(found == tooYoung.length){ // Only make room when a student is found, which should be rare
+					tooYoung = Arrays.copyOf(tooYoung, Math.max(4, found * 2));
+				}
+
+				tooYoung[found++] = i;
+			}
+		}
+
+		return Arrays.copyOf(tooYoung, found);
+	}
+
+	/**
+	 * Checks that every student is old enough, for issuing a batch of smartcards.
+	 *
+	 * @param types the types of the students
+	 * @param datesOfBirth the dates of birth of the students, in the same order
+	 * @param now the date the cards are issued
+	 * @throws IllegalArgumentException if any student isn't old enough
+	 */
+	static void checkAll(StudentType[] types, Date[] datesOfBirth, Today now) {
+
+		int[] tooYoung = findTooYoung(types, datesOfBirth, now);
+
+		if(tooYoung.length > 0){
+			throw new IllegalArgumentException("Student " + tooYoung[0] + " is not old enough to be this type of student.");
+		}
+	}
+
+	/**
+	 * Gets today's date, working it out again if midnight has passed since it was last worked out.
+	 *
+	 * @param millis the current time
+	 * @return today's date
+	 */
+	static Today today(long millis) {
+
+		Today current = today;
+
+		if(millis >= current.nextMidnight || millis < current.midnight){ // If the day has changed, or the clock went back
+			current = new Today(millis);
+			today = current; // Two threads may both work out the new day, which is harmless
+		}
+
+		return current;
+	}
+
+	/**
+	 * One day, with the latest date of birth which is old enough for each type of student on that day.
+	 */
+	static final class Today {
+
+		/** The time zone the day is in. */
+		private final ZoneId zone;
+
+		/** The time this day started. */
+		private final long midnight;
+
+		/** The time the next day starts. */
+		private final long nextMidnight;
+
+		/** The year, as it is written on smartcards. */
+		private final String year;
+
+		/** The latest date of birth which is old enough for each type of student, indexed by the type's ordinal. */
+		private final long[] latestBirthDays;
+
+		/**
+		 * Works out the day a time is in.
+		 *
+		 * @param millis the time
+		 */
+		private Today(long millis) {
+
+			this.zone = ZoneId.systemDefault();
+
+			LocalDate date = Instant.ofEpochMilli(millis).atZone(zone).toLocalDate();
+
+			this.midnight = date.atStartOfDay(zone).toInstant().toEpochMilli();
+			this.nextMidnight = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+			this.year = Integer.toString(date.getYear());
+
+			StudentType[] types = StudentType.values();
+			this.latestBirthDays = new long[types.length];
+
+			for(StudentType type : types){ // Anyone born on or before this date has had their birthday for the minimum age
+				latestBirthDays[type.ordinal()] = date.minusYears(getMinimumAge(type)).toEpochDay();
+			}
+		}
+
+		/**
+		 * Converts a time to the number of days since 1970-01-01 in this day's time zone.
+		 *
+		 * @param millis the time
+		 * @return the number of days
+		 */
+		long epochDay(long millis) {
+
+			int offset = zone.getRules().getOffset(Instant.ofEpochMilli(millis)).getTotalSeconds();
+
+			return Math.floorDiv(millis + offset * 1000L, 86400000L);
+		}
+
+		/**
+		 * Checks whether a student is old enough to be a type of student on this day.
+		 *
+		 * @param type the type of the student
+		 * @param birthDay the student's date of birth, as the number of days since 1970-01-01
+		 * @return true, if the student is old enough
+		 */
+		boolean isOldEnough(StudentType type, long birthDay) {
+			return birthDay <= latestBirthDays[type.ordinal()];
+		}
+
+		/**
+		 * Gets the year, as it is written on smartcards.
+		 *
+		 * @return the year
+		 */
+		String getYear() {
+			return year;
+		}
+	}
+
+}
@@ -0,0 +1,56 @@
+package com.wilfaskins.studentdata.students.id;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shares one instance of each name part between every name that uses it.
+ *
+ * First and last names repeat a great deal across a cohort, so keeping one copy of each lets every student with the
+ * same first name point at the same string. The pool only ever grows, so once it holds {@value #MAX_SIZE} parts any
+ * new parts are used as they are, without being pooled.
+ *
+ * @author Wilfrid Askins
+ */
+final class NamePool {
+
+	/** The most name parts the pool will hold. */
+	private static final int MAX_SIZE = 1 << 16;
+
+	/** The shared instance of each name part. */
+	private static final ConcurrentHashMap<String,String> parts = new ConcurrentHashMap<>();
+
+	/**
+	 * Instantiates a new name pool. This class only has static methods.
+	 */
+	private NamePool() {
+		super();
+	}
+
+	/**
+	 * Gets the shared instance of a name part, adding it to the pool if it is the first of its kind.
+	 *
+	 * @param part the name part
+	 * @return the shared instance, or the part itself if the pool is full
+	 */
+	static String intern(String part) {
+
+		if(part.isEmpty()){ // Every empty string is already the same as far as callers can tell
+			return "";
+		}
+
+		String shared = parts.get(part);
+
+		if(shared != null){ // Most parts have been seen before, so check without locking first
+			return shared;
+		}
+
+		if(parts.size() >= MAX_SIZE){
+			return part;
+		}
+
+		shared = parts.putIfAbsent(part, part);
+
+		return shared == null ? part : shared;
+	}
+
+}
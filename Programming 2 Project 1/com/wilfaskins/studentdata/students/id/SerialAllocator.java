@@ -0,0 +1,165 @@
+package com.wilfaskins.studentdata.students.id;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.BiConsumer;
+
+/**
+ * Issues smart card serial numbers, keeping a separate counter for each pair of initials and year.
+ *
+ * Each counter is found from a key packing the two initials and the year into one long, so no strings are built to
+ * find it. Initials from A to Z in the years {@value #FIRST_YEAR} to {@value #LAST_YEAR} have their counters in one
+ * preallocated array, so most cards are issued with a single atomic increment and no lookup. Any other initials or
+ * years fall back to counters created as they are needed. No counter is ever locked.
+ *
+ * @author Wilfrid Askins
+ */
+final class SerialAllocator {
+
+	/** The first year with a preallocated counter. */
+	private static final int FIRST_YEAR = 2000;
+
+	/** The last year with a preallocated counter. */
+	private static final int LAST_YEAR = 2063;
+
+	/** The number of letters from A to Z. */
+	private static final int LETTERS = 26;
+
+	/** The number of serial numbers issued for each common key, indexed by {@link #slot(long)}. */
+	private final AtomicIntegerArray common;
+
+	/** The number of serial numbers issued for every other key. */
+	private final ConcurrentHashMap<Long,AtomicInteger> others;
+
+	/**
+	 * Instantiates a new allocator, with nothing issued yet.
+	 */
+	SerialAllocator() {
+		super();
+		this.common = new AtomicIntegerArray(LETTERS * LETTERS * (LAST_YEAR - FIRST_YEAR + 1));
+		this.others = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Packs two initials and a year into a key.
+	 *
+	 * @param firstInitial the first initial
+	 * @param lastInitial the last initial
+	 * @param year the year
+	 * @return the key
+	 */
+	static long key(char firstInitial, char lastInitial, int year) {
+		return ((long) firstInitial << 48) | ((long) lastInitial << 32) | (year & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Gets the first initial from a key.
+	 *
+	 * @param key the key
+	 * @return the first initial
+	 */
+	static char firstInitial(long key) {
+		return (char) (key >>> 48);
+	}
+
+	/**
+	 * Gets the last initial from a key.
+	 *
+	 * @param key the key
+	 * @return the last initial
+	 */
+	static char lastInitial(long key) {
+		return (char) (key >>> 32);
+	}
+
+	/**
+	 * Gets the year from a key.
+	 *
+	 * @param key the key
+	 * @return the year
+	 */
+	static int year(long key) {
+		return (int) key;
+	}
+
+	/**
+	 * Finds where a key's counter is in the preallocated array.
+	 *
+	 * @param key the key
+	 * @return the index of the counter, or -1 if the key doesn't have a preallocated counter
+	 */
+	private static int slot(long key) {
+
+		int first = firstInitial(key) - 'A';
+		int last = lastInitial(key) - 'A';
+		int year = year(key) - FIRST_YEAR;
+
+		if(first < 0 || first >= LETTERS || last < 0 || last >= LETTERS || year < 0 || year > LAST_YEAR - FIRST_YEAR){
+			return -1;
+		}
+
+		return (year * LETTERS + first) * LETTERS + last;
+	}
+
+	/**
+	 * Reserves serial numbers for a key. The numbers reserved follow on from each other.
+	 *
+	 * @param key the key
+	 * @param count the number of serial numbers to reserve
+	 * @return the first serial number reserved
+	 */
+	int reserve(long key, int count) {
+
+		int slot = slot(key);
+
+		if(slot >= 0){ // If the key has a preallocated counter
+			return common.getAndAdd(slot, count);
+		}
+
+		return others.computeIfAbsent(key, k -> new AtomicInteger()).getAndAdd(count);
+	}
+
+	/**
+	 * Makes sure at least a number of serial numbers count as issued for a key, such as after loading a saved file.
+	 * The count never goes backwards, so numbers which have already been issued can't be issued again.
+	 *
+	 * @param key the key
+	 * @param issued the number of serial numbers which have been issued
+	 */
+	void restore(long key, int issued) {
+
+		int slot = slot(key);
+
+		if(slot >= 0){
+			common.accumulateAndGet(slot, issued, Math::max);
+		}else{
+			others.computeIfAbsent(key, k -> new AtomicInteger()).accumulateAndGet(issued, Math::max);
+		}
+	}
+
+	/**
+	 * Passes every key which has had serial numbers issued to a consumer, with the number issued.
+	 *
+	 * @param consumer the consumer to receive each key and count
+	 */
+	void forEach(BiConsumer<Long,Integer> consumer) {
+
+		for(int first = 0; first < LETTERS; first++){
+			for(int last = 0; last < LETTERS; last++){
+				for(int year = FIRST_YEAR; year <= LAST_YEAR; year++){
+
+					long key = key((char) ('A' + first), (char) ('A' + last), year);
+					int issued = common.get(slot(key));
+
+					if(issued > 0){ // Only pass on counters which have been used
+						consumer.accept(key, issued);
+					}
+				}
+			}
+		}
+
+		others.forEach((key, counter) -> consumer.accept(key, counter.get()));
+	}
+
+}
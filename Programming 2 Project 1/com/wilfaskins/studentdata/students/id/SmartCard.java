@@ -1,6 +1,5 @@
 package com.wilfaskins.studentdata.students.id;
 
-import java.util.Calendar;
 import java.util.Date;
 import java.util.Objects;
 
@@ -19,36 +18,35 @@ public final class SmartCard {
 	/** The card owner's ID. */
 	private final StudentID studentID;
 	
-	/** The card owner's date of birth. */
-	private final Date dateOfBirth;
+	/** The card owner's date of birth, in milliseconds. A Date is only created when it is asked for, as Dates can be changed. */
+	private final long dateOfBirth;
 	
 	/** The smart card's number. */
 	private final SmartCardNumber smartCardNumber;
 	
-	/** The date this card was issued. */
-	private final Date dateOfIssue;
+	/** The date this card was issued, in milliseconds. */
+	private final long dateOfIssue;
 	
 	/**
 	 * Instantiates a new smart card.
 	 *
 	 * @param studentName the student's name
 	 * @param studentID the student's ID
-	 * @param dateOfBirth the student's date of birth
+	 * @param dateOfBirth the student's date of birth, in milliseconds
 	 * @param smartCardNumber the smart card number
-	 * @param dateOfIssue the date of issue
+	 * @param dateOfIssue the date of issue, in milliseconds
 	 */
-	private SmartCard(StudentName studentName, StudentID studentID, Date dateOfBirth, SmartCardNumber smartCardNumber, Date dateOfIssue) {
+	private SmartCard(StudentName studentName, StudentID studentID, long dateOfBirth, SmartCardNumber smartCardNumber, long dateOfIssue) {
 		super();		
 		this.studentName = studentName;
 		this.studentID = studentID;
-		this.dateOfBirth = new Date(dateOfBirth.getTime()); // Copy the date so it can't be changed later
+		this.dateOfBirth = dateOfBirth; // Only the time is kept, so the date can't be changed later
 		this.smartCardNumber = smartCardNumber;
-		this.dateOfIssue = new Date(dateOfIssue.getTime());
+		this.dateOfIssue = dateOfIssue;
 	}
 
 	/**
 	 * Checks whether a student can have a smartcard, then issues a new smartcard if they are allowed.
-	 * Help gotten from https://stackoverflow.com/questions/7906301/how-can-i-find-the-number-of-years-between-two-dates
 	 * 
 	 * @param studentName the student's name
 	 * @param studentID the student's ID
@@ -63,33 +61,76 @@ public final class SmartCard {
 		Objects.requireNonNull(type, "A student's type cannot be null");
 		Objects.requireNonNull(dateOfBirth, "A student's date of birth cannot be null");
 		
-		Date dateOfIssue = new Date(); // Create a new date with the current time
+		long dateOfIssue = System.currentTimeMillis(); // The card is issued now
+		long birth = dateOfBirth.getTime();
+		Eligibility.Today today = Eligibility.today(dateOfIssue);
 		
-		Calendar birth = Calendar.getInstance();
-		birth.setTime(dateOfBirth); // Convert the birth date to a calendar to process
+		if(!today.isOldEnough(type, today.epochDay(birth))){ // If the student is too young
+			throw new IllegalArgumentException("This student is not old enough to be this type of student."); // Refuse to issue a card
+		}
 		
-		Calendar issue = Calendar.getInstance();
-		issue.setTime(dateOfIssue); // Convert the issue date to a calendar to process
+		// Return a new SmartCard instance
+		return new SmartCard(studentName, studentID, birth, SmartCardNumber.getNext(studentName, today.getYear()), dateOfIssue);
+	}
+	
+	/**
+	 * Checks whether several students can have smartcards, then issues them all if every student is allowed.
+	 * If any student is too young, no cards are issued. The arrays must all be the same length.
+	 * 
+	 * @param studentNames the students' names
+	 * @param studentIDs the students' IDs
+	 * @param types the types of the students
+	 * @param datesOfBirth the dates of birth of the students
+	 * @return the smart cards which were created, in the same order as the students
+	 */
+	public static SmartCard[] createSmartCards(StudentName[] studentNames, StudentID[] studentIDs, StudentType[] types, Date[] datesOfBirth){
 		
-		int YEAR = Calendar.YEAR; // Constants used by the calendar class, put here for readability
-		int MONTH = Calendar.MONTH;
-		int DATE = Calendar.DATE;
+		int count = studentNames.length;
 		
-		int age = issue.get(YEAR)-birth.get(YEAR); // Calculate the student's age in years
+		if(studentIDs.length != count || types.length != count || datesOfBirth.length != count){
+			throw new IllegalArgumentException("Every student needs a name, ID, type and date of birth");
+		}
 		
-		if(birth.get(MONTH) > issue.get(MONTH) || (birth.get(MONTH) == issue.get(MONTH) && birth.get(DATE) > issue.get(DATE))){ // If the year was rounded up
-			age--; // Subtract one from the student's age
+		for(int i = 0; i < count; i++){ // Check nothing is missing
+			Objects.requireNonNull(studentNames[i], "A student's name cannot be null");
+			Objects.requireNonNull(studentIDs[i], "A student's id cannot be null");
 		}
 		
-		boolean flag1 = (type == StudentType.UNDERGRADUATE && age < 17); // If the student is too young for undergraduate
-		boolean flag2 = (type.isPostgraduate() && age < 20); // If the student is too young for postgraduate
+		long dateOfIssue = System.currentTimeMillis(); // Every card in the batch is issued at the same time
+		Eligibility.Today today = Eligibility.today(dateOfIssue);
 		
-		if(flag1 || flag2){ // If the student is too young
-			throw new IllegalArgumentException("This student is not old enough to be this type of student."); // Refuse to issue a card
+		Eligibility.checkAll(types, datesOfBirth, today); // Check every student's age, in one pass, before issuing anything
+		
+		SmartCardNumber[] numbers = SmartCardNumber.getNext(studentNames, today.getYear()); // Reserve all the numbers at once
+		SmartCard[] smartCards = new SmartCard[count];
+		
+		for(int i = 0; i < count; i++){
+			smartCards[i] = new SmartCard(studentNames[i], studentIDs[i], datesOfBirth[i].getTime(), numbers[i], dateOfIssue);
 		}
 		
-		// Return a new SmartCard instance
-		return new SmartCard(studentName, studentID, dateOfBirth, SmartCardNumber.getNext(studentName, Integer.toString(issue.get(YEAR))), dateOfIssue);
+		return smartCards;
+	}
+	
+	/**
+	 * Recreates a smartcard which was issued before, such as one loaded from a saved file.
+	 * The student's age isn't checked again, as it was checked when the card was first issued.
+	 *
+	 * @param studentName the student's name
+	 * @param studentID the student's ID
+	 * @param dateOfBirth the student's date of birth
+	 * @param smartCardNumber the smart card number
+	 * @param dateOfIssue the date the card was issued
+	 * @return the smart card
+	 */
+	public static SmartCard valueOf(StudentName studentName, StudentID studentID, Date dateOfBirth, SmartCardNumber smartCardNumber, Date dateOfIssue){
+		
+		Objects.requireNonNull(studentName, "A student's name cannot be null");
+		Objects.requireNonNull(studentID, "A student's id cannot be null");
+		Objects.requireNonNull(dateOfBirth, "A student's date of birth cannot be null");
+		Objects.requireNonNull(smartCardNumber, "A smart card number cannot be null");
+		Objects.requireNonNull(dateOfIssue, "A date of issue cannot be null");
+		
+		return new SmartCard(studentName, studentID, dateOfBirth.getTime(), smartCardNumber, dateOfIssue.getTime());
 	}
 		
 	/**
@@ -116,7 +157,7 @@ public final class SmartCard {
 	 * @return the student's date of birth
 	 */
 	public Date getDateOfBirth() {
-		return new Date(dateOfBirth.getTime()); // Make a new Date instance to avoid changes
+		return new Date(dateOfBirth); // Make a new Date instance to avoid changes
 	}
 	
 	/**
@@ -134,7 +175,7 @@ public final class SmartCard {
 	 * @return the date of issue
 	 */
 	public Date getDateOfIssue() {
-		return new Date(dateOfIssue.getTime()); // Make a new Date instance to avoid changes
+		return new Date(dateOfIssue); // Make a new Date instance to avoid changes
 	}
 	
 	/* (non-Javadoc)
@@ -142,8 +183,8 @@ public final class SmartCard {
 	 */
 	@Override
 	public String toString() {
-		return "SmartCard [studentName=" + studentName + ", dateOfBirth=" + dateOfBirth + ", smartCardNumber="
-				+ smartCardNumber + ", dateOfIssue=" + dateOfIssue + "]";
+		return "SmartCard [studentName=" + studentName + ", dateOfBirth=" + getDateOfBirth() + ", smartCardNumber="
+				+ smartCardNumber + ", dateOfIssue=" + getDateOfIssue() + "]";
 	}
 	
 	/* (non-Javadoc)
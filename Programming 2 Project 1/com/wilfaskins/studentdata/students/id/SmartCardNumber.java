@@ -14,14 +14,23 @@ public final class SmartCardNumber {
 	/** The string which seperates the letter and digits. */
 	private static final String SEPERATOR = "-";
 
-	/** Used to issue an incremental serial number. */
-	private static final Map<String,Integer> letterNumberMap = new HashMap<>();
+	/** Used to issue an incremental serial number. Each pair of initials and year has its own counter, so cards for different students don't contend. */
+	private static final SerialAllocator serials = new SerialAllocator();
+
+	/** Each letter as a string, so getting an initial doesn't create a new string. */
+	private static final String[] LETTERS = new String[128];
+	
+	static{
+		for(char letter = 0; letter < LETTERS.length; letter++){
+			LETTERS[letter] = String.valueOf(letter);
+		}
+	}
 
 	/** The first initial of the student. */
-	private final String firstInitial;
+	private final char firstInitial;
 	
 	/** The last initial of the student. */
-	private final String lastInitial;
+	private final char lastInitial;
 	
 	/** The year the card was issued. */
 	private final String year;
@@ -37,7 +46,7 @@ public final class SmartCardNumber {
 	 * @param year the year the card was issued
 	 * @param serialNumber the serial number of the card
 	 */
-	private SmartCardNumber(String firstInitial, String lastInitial, String year, int serialNumber) {
+	private SmartCardNumber(char firstInitial, char lastInitial, String year, int serialNumber) {
 		super();
 		this.firstInitial = firstInitial;
 		this.lastInitial = lastInitial;
@@ -51,21 +60,143 @@ public final class SmartCardNumber {
 	 * @param name the name of the student
 	 * @param year the year the card was issued
 	 * @return the unique number
+	 * @throws NumberFormatException if the year isn't a number
 	 */
 	public static SmartCardNumber getNext(StudentName name, String year){
 		
 		Objects.requireNonNull(name, "A student's name cannot be null");
 		Objects.requireNonNull(year, "A student's year cannot be null");
 		
-		String firstInitial = name.getFirstName().substring(0, 1); // Get the student's first initial
-		String lastInitial = name.getLastName().substring(0, 1); // Get the student's last initial
+		char firstInitial = name.getFirstName().charAt(0);
+		char lastInitial = name.getLastName().charAt(0);
+		
+		// All of the SmartCardNumber except for the serial number, packed into one key
+		long key = SerialAllocator.key(firstInitial, lastInitial, Integer.parseInt(year));
+		
+		int numberUsed = serials.reserve(key, 1); // Atomically take the next serial number for the key
+		
+		// Return a new SmartCardNumber instance
+		return new SmartCardNumber(firstInitial, lastInitial, year, numberUsed);
+	}
+
+	/**
+	 * Gets the next unique SmartCardNumbers for several students at once.
+	 * The serial numbers for each set of letters are reserved together, so the counters are only updated once per set of letters.
+	 *
+	 * @param names the names of the students
+	 * @param year the year the cards were issued
+	 * @return the unique numbers, in the same order as the names
+	 * @throws NumberFormatException if the year isn't a number
+	 */
+	public static SmartCardNumber[] getNext(StudentName[] names, String year){
+		
+		Objects.requireNonNull(names, "The students' names cannot be null");
+		Objects.requireNonNull(year, "A student's year cannot be null");
+		
+		int yearNumber = Integer.parseInt(year);
+		long[] keys = new long[names.length];
+		Map<Long,Integer> counts = new HashMap<>();
+		
+		for(int i = 0; i < names.length; i++){ // Count how many numbers are needed for each set of letters
+			
+			Objects.requireNonNull(names[i], "A student's name cannot be null");
+			
+			keys[i] = SerialAllocator.key(names[i].getFirstName().charAt(0), names[i].getLastName().charAt(0), yearNumber);
+			counts.merge(keys[i], 1, Integer::sum);
+		}
+		
+		Map<Long,Integer> nextNumbers = new HashMap<>();
+		
+		for(Map.Entry<Long,Integer> count : counts.entrySet()){ // Reserve the serial numbers for each set of letters at once
+			nextNumbers.put(count.getKey(), serials.reserve(count.getKey(), count.getValue()));
+		}
+		
+		SmartCardNumber[] numbers = new SmartCardNumber[names.length];
+		
+		for(int i = 0; i < names.length; i++){ // Hand out the reserved numbers in order
+			
+			int serialNumber = nextNumbers.merge(keys[i], 1, Integer::sum) - 1;
+			
+			numbers[i] = new SmartCardNumber(SerialAllocator.firstInitial(keys[i]), SerialAllocator.lastInitial(keys[i]), year, serialNumber);
+		}
+		
+		return numbers;
+	}
+
+	/**
+	 * Recreates a SmartCardNumber which was issued before, such as one loaded from a saved file.
+	 * Numbers issued afterwards with the same letters and year will follow on from it.
+	 *
+	 * @param firstInitial the first initial of the student
+	 * @param lastInitial the last initial of the student
+	 * @param year the year the card was issued
+	 * @param serialNumber the serial number of the card
+	 * @return the smart card number
+	 * @throws NumberFormatException if the year isn't a number
+	 */
+	public static SmartCardNumber valueOf(String firstInitial, String lastInitial, String year, int serialNumber){
+		
+		Objects.requireNonNull(firstInitial, "A first initial cannot be null");
+		Objects.requireNonNull(lastInitial, "A last initial cannot be null");
+		Objects.requireNonNull(year, "A year cannot be null");
+		
+		// Make sure this serial number isn't issued again
+		serials.restore(SerialAllocator.key(firstInitial.charAt(0), lastInitial.charAt(0), Integer.parseInt(year)), serialNumber + 1);
+		
+		return new SmartCardNumber(firstInitial.charAt(0), lastInitial.charAt(0), year, serialNumber);
+	}
+	
+	/**
+	 * Gets the last serial number issued for each set of letters and year.
+	 *
+	 * @return a copy of the serial numbers, keyed by the letters and year
+	 */
+	public static Map<String,Integer> getSerialCounters(){
+		
+		Map<String,Integer> counters = new HashMap<>();
+		
+		serials.forEach((key, issued) -> counters.put(letters(key), issued - 1)); // Copy the current value of each counter
+		
+		return counters;
+	}
+	
+	/**
+	 * Restores the last serial numbers issued, such as after loading a saved file.
+	 * The serial numbers will never go backwards, so numbers which have already been issued can't be issued again.
+	 *
+	 * @param counters the serial numbers, keyed by the letters and year
+	 */
+	public static void restoreSerialCounters(Map<String,Integer> counters){
+		
+		Objects.requireNonNull(counters, "The counters cannot be null");
 		
-		String letters = firstInitial + lastInitial + SEPERATOR + year; // All of the SmartCardNumber except for the serial number
+		counters.forEach((letters, serialNumber) -> serials.restore(key(letters), serialNumber + 1));
+	}
+	
+	/**
+	 * Writes a counter's key as the letters and year, such as "WA-2017".
+	 *
+	 * @param key the key
+	 * @return the letters and year
+	 */
+	private static String letters(long key){
+		return "" + SerialAllocator.firstInitial(key) + SerialAllocator.lastInitial(key) + SEPERATOR + SerialAllocator.year(key);
+	}
+	
+	/**
+	 * Reads a counter's key from the letters and year, as written by {@link #letters(long)}.
+	 *
+	 * @param letters the letters and year
+	 * @return the key
+	 * @throws IllegalArgumentException if the letters and year aren't in the right format
+	 */
+	private static long key(String letters){
 		
-		int numberUsed = letterNumberMap.getOrDefault(letters, -1); // Get the required serial number
-		letterNumberMap.put(letters, ++numberUsed); // Update the serial number in the map
+		if(letters.length() < 4 || !letters.startsWith(SEPERATOR, 2)){
+			throw new IllegalArgumentException("\"" + letters + "\" isn't a set of initials and a year");
+		}
 		
-		return new SmartCardNumber(firstInitial, lastInitial, year, numberUsed); // Return a new SmartCardNumber instance
+		return SerialAllocator.key(letters.charAt(0), letters.charAt(1), Integer.parseInt(letters.substring(3)));
 	}
 
 	/**
@@ -74,7 +205,7 @@ public final class SmartCardNumber {
 	 * @return the first initial of the student
 	 */
 	public String getFirstInitial() {
-		return firstInitial;
+		return initial(firstInitial);
 	}
 
 	/**
@@ -83,7 +214,17 @@ public final class SmartCardNumber {
 	 * @return the last initial of the student
 	 */
 	public String getLastInitial() {
-		return lastInitial;
+		return initial(lastInitial);
+	}
+	
+	/**
+	 * Gets an initial as a string, sharing the same string for every common letter.
+	 *
+	 * @param initial the initial
+	 * @return the initial as a string
+	 */
+	private static String initial(char initial) {
+		return initial < LETTERS.length ? LETTERS[initial] : String.valueOf(initial);
 	}
 
 	/**
@@ -110,7 +251,7 @@ public final class SmartCardNumber {
 	 * @return the full number of the card
 	 */
 	public String getFullNumber(){
-		return firstInitial + lastInitial + SEPERATOR + year + SEPERATOR + serialNumber; // Concatenates the parts of the card number
+		return "" + firstInitial + lastInitial + SEPERATOR + year + SEPERATOR + serialNumber; // Concatenates the parts of the card number
 	}
 
 	/* (non-Javadoc)
@@ -128,6 +269,9 @@ public final class SmartCardNumber {
 	public int hashCode() {
 		final int prime = 31;
 		int result = 1;
+		result = prime * result + firstInitial;
+		result = prime * result + lastInitial;
+		result = prime * result + ((year == null) ? 0 : year.hashCode());
 		result = prime * result + serialNumber;
 		return result;
 	}
@@ -146,6 +290,15 @@ public final class SmartCardNumber {
 		SmartCardNumber other = (SmartCardNumber) obj;
 		if (serialNumber != other.serialNumber)
 			return false;
+		if (firstInitial != other.firstInitial)
+			return false;
+		if (lastInitial != other.lastInitial)
+			return false;
+		if (year == null) {
+			if (other.year != null)
+				return false;
+		} else if (!year.equals(other.year))
+			return false;
 		return true;
 	}
 
@@ -1,76 +1,190 @@
 package com.wilfaskins.studentdata.students.id;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * This class represents a student's ID
  * 
+ * An ID is stored as a single number, which is the order the ID was issued in. The letter and padded digits are only
+ * worked out when the ID's text is asked for, so comparing and hashing IDs never creates any objects.
+ * 
  * @author Wilfrid Askins
  */
 public final class StudentID {
 	
-	/** All the IDs created. */
-	private static final List<StudentID> createdIDs = new ArrayList<>();
-	
 	/** All the letters used in the student ID. */
 	private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyz";
 	
 	/** The number at which the digits of the ID should rollover to zero. */
 	private static final int ROLLOVER_VALUE = 10000;
 	
-	/** The number of the next student ID to be issued. */
-	private static int currentNumber = 0;
+	/** The number of different IDs which can be written as a letter and four digits. */
+	private static final int ID_SPACE = ALPHABET.length() * ROLLOVER_VALUE;
+	
+	/** One bit for every ID in the ID space, set once the ID has been created, so an ID can't be created twice. */
+	private static final AtomicLongArray createdIDs = new AtomicLongArray((ID_SPACE + Long.SIZE - 1) / Long.SIZE);
 	
-	/** The letter used in this ID. */
-	private final char letter;
+	/** The number of the last student ID issued. This is atomic so that IDs can be issued from many threads. */
+	private static final AtomicInteger currentNumber = new AtomicInteger();
 	
-	/** The number used in this ID. */
-	private final String number;
+	/** The ID as a number, which is the order the ID was issued in. This never changes, so it can be used as a handle for the student. */
+	private final int value;
+	
+	/** The full ID string, which is only created when it is first asked for. */
+	private String fullID;
 	
 	/**
 	 * Instantiates a new student ID.
 	 *
-	 * @param letter the letter used in this ID
-	 * @param number the number used in this ID
+	 * @param value the ID as a number
 	 */
-	private StudentID(char letter, String number) {
+	private StudentID(int value) {
 		super();
-		this.letter = letter;
-		this.number = number;
+		this.value = value;
 	}
 	
 	/**
 	 * Creates a new student ID instance.
 	 *
 	 * @return the student ID instance
+	 * @throws IllegalStateException if every student ID has been issued
 	 */
 	public static StudentID createStudentID(){
+		return getInstance(currentNumber.incrementAndGet()); // Increment the ID number and return a new StudentID instance
+	}
+	
+	/**
+	 * Creates several new student IDs at once. The IDs are reserved together, so they follow on from each other.
+	 *
+	 * @param count the number of IDs to create
+	 * @return the student ID instances
+	 * @throws IllegalStateException if there aren't enough student IDs left
+	 */
+	public static StudentID[] createStudentIDs(int count){
 		
-		int number = ++currentNumber; // Post-increment the ID number
+		if(count < 0){
+			throw new IllegalArgumentException("Can't create a negative number of StudentIDs");
+		}
+		
+		int last;
+		
+		do{ // Reserve the whole range of ID numbers at once, but only if all of them can be issued
+			
+			last = currentNumber.get();
+			
+			if(count > ID_SPACE - 1 - last){ // If the letters would run out part way through
+				throw new IllegalStateException("There aren't enough StudentIDs left to create " + count);
+			}
+		}while(!currentNumber.compareAndSet(last, last + count));
+		
+		int first = last + 1;
+		
+		StudentID[] ids = new StudentID[count];
+		
+		for(int i = 0; i < count; i++){
+			ids[i] = getInstance(first + i);
+		}
+		
+		return ids;
+	}
+	
+	/**
+	 * Recreates a student ID which was issued before, such as one loaded from a saved file.
+	 * IDs created afterwards will follow on from it.
+	 *
+	 * @param value the ID as a number, as returned by {@link #toInt()}
+	 * @return the student ID instance
+	 */
+	public static StudentID valueOf(int value){
+		
+		if(value < 0 || value >= ID_SPACE){
+			throw new IllegalArgumentException("This StudentID is out of range");
+		}
+		
+		restoreLastIssued(value); // Make sure this ID isn't issued again
+		markCreated(value);
+		
+		return new StudentID(value);
+	}
+	
+	/**
+	 * Gets a student ID from its number without recording it as issued, for reading an ID which is already held
+	 * elsewhere, such as in a columnar store. Unlike {@link #valueOf(int)}, the IDs which will be issued aren't changed.
+	 *
+	 * @param value the ID as a number, as returned by {@link #toInt()}
+	 * @return the student ID instance
+	 */
+	public static StudentID viewOf(int value){
 		
-		char letter = ALPHABET.charAt(number / ROLLOVER_VALUE); // Find the letter to use in this ID
-		String cardNumber = Integer.toString(number % ROLLOVER_VALUE); // Find the number to be used in this ID
+		if(value < 0 || value >= ID_SPACE){
+			throw new IllegalArgumentException("This StudentID is out of range");
+		}
 		
-		return getInstance(letter, pad(cardNumber)); // Return a new StudentID instance
+		return new StudentID(value);
+	}
+	
+	/**
+	 * Gets the number of the last student ID to be issued.
+	 *
+	 * @return the last number issued
+	 */
+	public static int getLastIssued(){
+		return currentNumber.get();
+	}
+	
+	/**
+	 * Restores the number of the last student ID to be issued, such as after loading a saved file.
+	 * The number will never go backwards, so IDs which have already been issued can't be issued again.
+	 *
+	 * @param lastIssued the last number issued
+	 */
+	public static void restoreLastIssued(int lastIssued){
+		currentNumber.accumulateAndGet(lastIssued, Math::max);
 	}
 	
 	/**
 	 * Creates an instance of StudentID, checking for duplicates.
 	 *
-	 * @param letter the letter of the id
-	 * @param number the number of the id
+	 * @param value the number of the id
 	 * @return an instance of StudentID
 	 */
-	private static final StudentID getInstance(char letter, String number){
+	private static final StudentID getInstance(int value){
 		
-		StudentID id = new StudentID(letter, number); // Create a new ID instance
+		if(value >= ID_SPACE){ // If the letters have run out
+			throw new IllegalStateException("Every StudentID has been issued");
+		}
 		
-		if(createdIDs.contains(id)){ // If this is a duplicate
+		if(!markCreated(value)){ // If this is a duplicate
 			throw new IllegalArgumentException("This StudentID has already been created"); // Refuse to return the instance
 		}
 		
-		return id; // Return a new StudentID instance
+		return new StudentID(value); // Return a new StudentID instance
+	}
+	
+	/**
+	 * Sets the bit of an ID in the created IDs.
+	 *
+	 * @param value the number of the id
+	 * @return true, if the bit wasn't already set
+	 */
+	private static boolean markCreated(int value){
+		
+		int word = value >>> 6;
+		long bit = 1L << value;
+		
+		while(true){
+			
+			long current = createdIDs.get(word);
+			
+			if((current & bit) != 0){ // If the ID has already been created
+				return false;
+			}
+			
+			if(createdIDs.compareAndSet(word, current, current | bit)){
+				return true;
+			}
+		}
 	}
 	
 	/**
@@ -91,7 +205,7 @@ public final class StudentID {
 	 * @return the letter
 	 */
 	public char getLetter() {
-		return letter;
+		return ALPHABET.charAt(value / ROLLOVER_VALUE);
 	}
 
 	/**
@@ -100,7 +214,16 @@ public final class StudentID {
 	 * @return the number
 	 */
 	public String getNumber() {
-		return number;
+		return pad(Integer.toString(value % ROLLOVER_VALUE));
+	}
+	
+	/**
+	 * Gets the ID as a number, which is the order the ID was issued in.
+	 *
+	 * @return the ID as a number
+	 */
+	public int toInt(){
+		return value;
 	}
 	
 	/**
@@ -109,7 +232,14 @@ public final class StudentID {
 	 * @return the full ID
 	 */
 	public String getFullID(){
-		return letter + number;
+		
+		String full = fullID;
+		
+		if(full == null){ // If the string hasn't been created yet. Two threads may both create it, which is harmless.
+			full = fullID = getLetter() + getNumber();
+		}
+		
+		return full;
 	}
 	
 	/* (non-Javadoc)
@@ -117,7 +247,7 @@ public final class StudentID {
 	 */
 	@Override
 	public String toString() {
-		return "StudentID [letter=" + letter + ", number=" + number + "]";
+		return "StudentID [letter=" + getLetter() + ", number=" + getNumber() + "]";
 	}
 	
 	/* (non-Javadoc)
@@ -129,7 +259,7 @@ public final class StudentID {
 		if(arg0 instanceof StudentID){
 			
 			StudentID id = (StudentID)arg0;
-			return id.getFullID().equals(this.getFullID());
+			return id.value == this.value;
 		}
 		
 		return false;
@@ -140,13 +270,7 @@ public final class StudentID {
 	 */
 	@Override
 	public int hashCode() {
-		
-		int hc = 7;
-		
-		hc += 37 * letter;
-		hc += number.hashCode();
-		
-		return hc;
+		return Integer.hashCode(value);
 	}
 	
 }
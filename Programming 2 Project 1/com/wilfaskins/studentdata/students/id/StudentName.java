@@ -5,6 +5,9 @@ import java.util.Objects;
 /**
  * Represents a student's name.
  * 
+ * Each part of the name is shared with every other name which has the same part, so a cohort full of repeated first
+ * and last names only keeps one copy of each. The full name is worked out the first time it is needed, then kept.
+ * 
  * @author Wilfrid Askins
  */
 public final class StudentName {
@@ -18,6 +21,9 @@ public final class StudentName {
 	/** The middle names of the student. */
 	private final String middleNames;
 	
+	/** The full name, or null if it hasn't been worked out yet. */
+	private String fullName;
+	
 	/**
 	 * Instantiates a new student name.
 	 *
@@ -42,9 +48,9 @@ public final class StudentName {
 		Objects.requireNonNull(lastName, "A student's name cannot contain a null value");
 		Objects.requireNonNull(middleNames, "A student's name cannot contain a null value");
 		
-		this.firstName = firstName;
-		this.lastName = lastName;
-		this.middleNames = middleNames;
+		this.firstName = NamePool.intern(firstName); // Share the parts with every other name which uses them
+		this.lastName = NamePool.intern(lastName);
+		this.middleNames = NamePool.intern(middleNames);
 	}
 
 	/**
@@ -77,10 +83,10 @@ public final class StudentName {
 	/**
 	 * Checks for middle names.
 	 *
-	 * @return true, if successful
+	 * @return true, if the student has middle names
 	 */
 	public boolean hasMiddleNames(){
-		return middleNames != null;
+		return !middleNames.isEmpty(); // Names without middle names have an empty string
 	}
 	
 	/**
@@ -90,14 +96,20 @@ public final class StudentName {
 	 */
 	public String getFullName(){
 		
-		String full = firstName; // Add the first name
+		String full = fullName;
 		
-		if(hasMiddleNames()){ // If there are middle names
-			full += " " + middleNames; // Add the middle names
+		if(full == null){ // If the name hasn't been worked out yet. Two threads may both work it out, which is harmless.
+			
+			StringBuilder builder = new StringBuilder(firstName.length() + middleNames.length() + lastName.length() + 2);
+			builder.append(firstName).append(' '); // Add the first name
+			
+			if(hasMiddleNames()){ // If there are middle names
+				builder.append(middleNames).append(' ');
+			}
+			
+			full = fullName = builder.append(lastName).toString(); // Add the last name
 		}
 		
-		full += lastName; // Add the last name
-		
 		return full; // Return the full name
 	}
 
@@ -0,0 +1,77 @@
+package com.wilfaskins.studentdata.test;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.wilfaskins.studentdata.Module;
+import com.wilfaskins.studentdata.io.CatalogueFormatException;
+import com.wilfaskins.studentdata.io.CatalogueLoader;
+
+/**
+ * Tests whether CatalogueLoader loads files correctly and reports malformed lines.
+ */
+public class CatalogueLoaderTest {
+
+	/** Converts a row to a module in the same way as DataSystem. */
+	private static final CatalogueLoader.RowMapper<Module> MODULE = row -> new Module(row.getString(0), row.getString(1), row.getInt(2));
+
+	/**
+	 * Tests whether a file split into many chunks loads the same as a file loaded in one chunk.
+	 *
+	 * @throws IOException if the file couldn't be written
+	 */
+	@Test
+	public void chunkedLoadTest() throws IOException {
+
+		File file = File.createTempFile("modules", ".csv");
+		file.deleteOnExit();
+
+		try(PrintWriter writer = new PrintWriter(file, "UTF-8")){
+			for(int i = 0; i < 10000; i++){
+				writer.print("CSC" + i + " ,  Module " + i + "," + (i % 40) + (i % 3 == 0 ? "\r\n" : "\n")); // Mix the line endings
+			}
+		}
+
+		List<Module> single = CatalogueLoader.load(file, MODULE, 1);
+		List<Module> chunked = CatalogueLoader.load(file, MODULE, 7);
+
+		assertEquals(10000, single.size());
+		assertEquals(single, chunked); // Check the chunks were joined back together in order
+		assertEquals(new Module("CSC42", "Module 42", 2), single.get(42)); // Check the fields were trimmed
+	}
+
+	/**
+	 * Tests whether malformed lines are reported with their line numbers.
+	 *
+	 * @throws IOException if the file couldn't be written
+	 */
+	@Test
+	public void malformedLineTest() throws IOException {
+
+		File file = File.createTempFile("modules", ".csv");
+		file.deleteOnExit();
+
+		try(PrintWriter writer = new PrintWriter(file, "UTF-8")){
+			writer.print("CSC1021, Programming 1, 20\n");
+			writer.print("CSC1022, Programming 2\n"); // Missing the credits
+			writer.print("\n"); // Blank lines are skipped
+			writer.print("CSC1023, The Software Engineering Professional, twenty\n"); // Credits aren't a number
+			writer.print("CSC1024, Computer Architecture, -20"); // Negative credits, and no line break
+		}
+
+		try{
+			CatalogueLoader.load(file, MODULE, 3);
+			fail("The malformed lines weren't reported");
+		}catch(CatalogueFormatException e){
+			assertEquals(Arrays.asList(2L, 4L, 5L), e.getLineNumbers()); // Check every malformed line was found
+		}
+	}
+
+}
@@ -0,0 +1,179 @@
+package com.wilfaskins.studentdata.test;
+
+import static org.junit.Assert.*;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.wilfaskins.studentdata.ColumnarStudentStore;
+import com.wilfaskins.studentdata.DataSystem;
+import com.wilfaskins.studentdata.Module;
+import com.wilfaskins.studentdata.Supervisor;
+import com.wilfaskins.studentdata.students.PostgraduateResearchStudent;
+import com.wilfaskins.studentdata.students.PostgraduateTaughtStudent;
+import com.wilfaskins.studentdata.students.Student;
+import com.wilfaskins.studentdata.students.StudentType;
+import com.wilfaskins.studentdata.students.UndergraduateStudent;
+import com.wilfaskins.studentdata.students.id.StudentID;
+import com.wilfaskins.studentdata.students.id.StudentName;
+
+/**
+ * Tests whether a ColumnarStudentStore gives the same answers as the students it was copied from.
+ */
+public class ColumnarStudentStoreTest {
+
+	/**
+	 * Tests whether each row reads back as the student it was copied from.
+	 */
+	@Test
+	public void rowTest() {
+
+		DataSystem ds = DataSystem.getDefaultInstance();
+		List<Student> students = registerStudents(ds);
+
+		ColumnarStudentStore store = ds.getColumnarStore();
+
+		assertEquals(students.size(), store.size());
+
+		List<String> seen = new ArrayList<>();
+
+		store.forEach(row -> {
+
+			Student original = ds.getStudent(row.getStudentID()); // Find the student the row was copied from
+
+			assertEquals(original.getName(), row.getName());
+			assertEquals(original.getStudentType(), row.getStudentType());
+			assertEquals(original.getModules(), row.getModules());
+			assertEquals(original.isRegisteredCorrectly(), row.isRegisteredCorrectly());
+			assertEquals(birthDate(original), row.getBirthDate());
+			assertEquals(birthDate(original), row.getDateOfBirth().toInstant().atZone(ZoneId.systemDefault()).toLocalDate());
+
+			if(original instanceof PostgraduateResearchStudent){
+				assertEquals(((PostgraduateResearchStudent) original).getSupervisor(), row.getSupervisor());
+			}
+
+			seen.add(row.getStudentID().getFullID());
+		});
+
+		assertEquals(students.size(), seen.stream().distinct().count()); // Check every student was seen once
+	}
+
+	/**
+	 * Tests whether the counts and totals match the ones worked out from the students.
+	 */
+	@Test
+	public void scanTest() {
+
+		DataSystem ds = DataSystem.getDefaultInstance();
+		List<Student> students = registerStudents(ds);
+
+		ColumnarStudentStore store = ds.getColumnarStore();
+		Module module = ds.getModule("CSC1021");
+
+		for(StudentType type : StudentType.values()){
+
+			assertEquals(ds.noOfStudents(type), store.count(type));
+			assertEquals(ds.getCounters().getCorrectlyRegistered(type), store.countRegisteredCorrectly(type));
+			assertEquals(ds.getCounters().getCredits(type), store.totalCredits(type));
+		}
+
+		assertEquals(students.stream().filter(s -> s.getModules().contains(module)).count(), store.countTaking(module));
+		assertEquals(students.stream().filter(s -> birthDate(s).getYear() == 1990).count(),
+				store.countBornBetween(LocalDate.of(1990, 1, 1), LocalDate.of(1990, 12, 31)));
+	}
+
+	/**
+	 * Tests whether reading a row's ID doesn't change which IDs will be issued, even for an ID which hasn't been issued yet.
+	 */
+	@Test
+	public void rowIDTest() {
+
+		DataSystem ds = DataSystem.getDefaultInstance();
+
+		Calendar cal = Calendar.getInstance();
+		cal.set(1999, 3, 30);
+
+		int lastIssued = StudentID.getLastIssued();
+		StudentID unissued = StudentID.viewOf(lastIssued + 100);
+
+		Student student = new UndergraduateStudent(new StudentName("Wilfrid", "Askins"), cal.getTime());
+		student.setStudentID(unissued);
+
+		ColumnarStudentStore store = new ColumnarStudentStore(ds.getModules());
+		store.add(student);
+
+		assertEquals(unissued, store.get(0).getStudentID());
+		assertEquals(lastIssued, StudentID.getLastIssued()); // Check the ID counter wasn't moved on
+	}
+
+	/**
+	 * Tests whether a row can't be changed.
+	 */
+	@Test(expected = UnsupportedOperationException.class)
+	public void rowChangeFail() {
+
+		DataSystem ds = DataSystem.getDefaultInstance();
+		registerStudents(ds);
+
+		ds.getColumnarStore().get(0).addModule(ds.getModule("CSC1021")); // This will throw an exception
+	}
+
+	/**
+	 * Registers a mix of students, some taking modules.
+	 *
+	 * @param ds the system to register the students with
+	 * @return the students
+	 */
+	private static List<Student> registerStudents(DataSystem ds) {
+
+		List<Student> students = new ArrayList<>();
+		List<Module> modules = ds.getModules();
+
+		for(int i = 0; i < 200; i++){
+
+			Calendar cal = Calendar.getInstance();
+			cal.set(1985 + i % 10, i % 12, 1 + i % 28);
+
+			StudentName name = new StudentName("Student", "Number" + i);
+			Student student;
+
+			switch(i % 3){
+			case 0:
+				student = new UndergraduateStudent(name, cal.getTime());
+				break;
+			case 1:
+				student = new PostgraduateTaughtStudent(name, cal.getTime());
+				break;
+			default:
+				student = new PostgraduateResearchStudent(name, cal.getTime(), new Supervisor("Neil", "Speirs"));
+			}
+
+			if(student.getStudentType() != StudentType.POSTGRADUATE_RESEARCH){
+				for(int m = 0; m < i % 7; m++){ // Give the student a few modules
+					student.addModule(modules.get((i + m) % modules.size()));
+				}
+			}
+
+			ds.registerStudent(student);
+			students.add(student);
+		}
+
+		return students;
+	}
+
+	/**
+	 * Gets a student's date of birth as a local date.
+	 *
+	 * @param student the student
+	 * @return the date of birth
+	 */
+	private static LocalDate birthDate(Student student) {
+		return student.getDateOfBirth().toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+	}
+
+}
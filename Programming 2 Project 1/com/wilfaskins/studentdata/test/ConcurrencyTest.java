@@ -0,0 +1,311 @@
+package com.wilfaskins.studentdata.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.wilfaskins.studentdata.DataSystem;
+import com.wilfaskins.studentdata.RegistryEvent;
+import com.wilfaskins.studentdata.RegistryEventStream;
+import com.wilfaskins.studentdata.students.Student;
+import com.wilfaskins.studentdata.students.StudentType;
+import com.wilfaskins.studentdata.students.UndergraduateStudent;
+import com.wilfaskins.studentdata.students.id.SmartCard;
+import com.wilfaskins.studentdata.students.id.SmartCardNumber;
+import com.wilfaskins.studentdata.students.id.StudentID;
+import com.wilfaskins.studentdata.students.id.StudentName;
+
+/**
+ * Tests whether DataSystem stays consistent when students are registered and terminated from many threads.
+ */
+public class ConcurrencyTest {
+
+	/** The number of threads registering students at once. */
+	private static final int THREADS = 8;
+
+	/** The number of students registered by each thread. */
+	private static final int STUDENTS_PER_THREAD = 2000;
+
+	/**
+	 * Registers students from many threads, then checks no IDs or smart card numbers were issued twice.
+	 *
+	 * @throws Exception if a thread failed
+	 */
+	@Test
+	public void concurrentRegisterTest() throws Exception {
+
+		DataSystem ds = DataSystem.getDefaultInstance();
+
+		List<Student> registered = runInParallel(ds, false); // Register students from every thread
+
+		assertEquals(THREADS * STUDENTS_PER_THREAD, ds.noOfStudents(StudentType.UNDERGRADUATE)); // Check no students were lost
+		assertEquals(registered.size(), ds.getStudents().size());
+
+		// Check every student was given their own ID and smart card number
+		assertEquals(registered.size(), registered.stream().map(Student::getStudentID).distinct().count());
+		assertEquals(registered.size(), ds.getSmartCards().values().stream().map(SmartCard::getSmartCardNumber).distinct().count());
+	}
+
+	/**
+	 * Registers and terminates students from many threads, then checks the system is empty.
+	 *
+	 * @throws Exception if a thread failed
+	 */
+	@Test
+	public void concurrentTerminateTest() throws Exception {
+
+		DataSystem ds = DataSystem.getDefaultInstance();
+
+		runInParallel(ds, true); // Register then terminate students from every thread
+
+		assertEquals(0, ds.noOfStudents(StudentType.UNDERGRADUATE)); // Check every student was removed
+		assertTrue(ds.getStudents().isEmpty());
+		assertTrue(ds.getSmartCards().isEmpty());
+	}
+
+	/**
+	 * Issues smart card numbers for the same initials from many threads, in a year with a preallocated counter and in one
+	 * without, then checks every serial number was issued exactly once with none skipped.
+	 *
+	 * @throws Exception if a thread failed
+	 */
+	@Test
+	public void concurrentSerialNumberTest() throws Exception {
+
+		for(String year : new String[]{ "2041", "2199" }){ // No other test issues cards in these years
+
+			ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+			List<Future<List<Integer>>> results = new ArrayList<>();
+
+			for(int t = 0; t < THREADS; t++){
+				results.add(executor.submit(() -> {
+
+					List<Integer> serialNumbers = new ArrayList<>();
+
+					for(int i = 0; i < STUDENTS_PER_THREAD; i++){
+						serialNumbers.add(SmartCardNumber.getNext(new StudentName("Wilfrid", "Askins"), year).getSerialNumber());
+					}
+
+					return serialNumbers;
+				}));
+			}
+
+			Set<Integer> serialNumbers = new HashSet<>();
+
+			for(Future<List<Integer>> result : results){
+				serialNumbers.addAll(result.get());
+			}
+
+			executor.shutdown();
+
+			assertEquals(THREADS * STUDENTS_PER_THREAD, serialNumbers.size()); // Check no number was issued twice
+			assertEquals(0, (int) Collections.min(serialNumbers)); // Check no number was skipped
+			assertEquals(THREADS * STUDENTS_PER_THREAD - 1, (int) Collections.max(serialNumbers));
+			assertEquals(THREADS * STUDENTS_PER_THREAD - 1, (int) SmartCardNumber.getSerialCounters().get("WA-" + year));
+		}
+	}
+
+	/**
+	 * Registers and terminates more students than the event stream can hold from many threads, while two subscribers
+	 * read the events, then checks each subscriber saw every event once, in order.
+	 *
+	 * @throws Exception if a thread failed
+	 */
+	@Test
+	public void concurrentEventStreamTest() throws Exception {
+
+		DataSystem ds = DataSystem.getDefaultInstance();
+		int expected = 2 * THREADS * STUDENTS_PER_THREAD; // Each student is registered then terminated
+
+		ExecutorService readers = Executors.newFixedThreadPool(2);
+		List<Future<List<RegistryEvent>>> results = new ArrayList<>();
+
+		for(int r = 0; r < 2; r++){
+
+			RegistryEventStream.Subscription subscription = ds.getEvents().subscribe();
+			int batchSize = r == 0 ? 256 : 1; // One subscriber reads in large batches, the other one event at a time
+
+			results.add(readers.submit(() -> {
+
+				List<RegistryEvent> events = new ArrayList<>();
+
+				while(events.size() < expected){
+					events.addAll(subscription.await(batchSize, 10, TimeUnit.SECONDS));
+				}
+
+				subscription.close();
+
+				return events;
+			}));
+		}
+
+		runInParallel(ds, true); // Publishing waits whenever a subscriber falls a whole buffer behind
+
+		for(Future<List<RegistryEvent>> result : results){
+
+			List<RegistryEvent> events = result.get(1, TimeUnit.MINUTES);
+			Set<StudentID> registered = new HashSet<>();
+
+			assertEquals(expected, events.size());
+
+			for(int i = 0; i < events.size(); i++){
+
+				RegistryEvent event = events.get(i);
+				StudentID studentID = event.getRegistration().getSmartCard().getStudentID();
+
+				assertEquals(events.get(0).getSequence() + i, event.getSequence()); // Check no event was missed or repeated
+
+				if(event.getType() == RegistryEvent.Type.REGISTERED){
+					assertTrue(registered.add(studentID));
+				}else{ // Check each student was registered before they were terminated
+					assertEquals(RegistryEvent.Type.TERMINATED, event.getType());
+					assertTrue(registered.contains(studentID));
+				}
+			}
+
+			assertEquals(THREADS * STUDENTS_PER_THREAD, registered.size());
+		}
+
+		readers.shutdown();
+	}
+
+	/**
+	 * Terminates a student from another thread while they are still being registered, then checks the registration was
+	 * published before the termination. The student pauses while they are being counted, once they can be found, to
+	 * give the other thread the chance to terminate them.
+	 *
+	 * @throws Exception if a thread failed
+	 */
+	@Test
+	public void registerTerminateRaceTest() throws Exception {
+
+		DataSystem ds = DataSystem.getDefaultInstance();
+		CountDownLatch terminated = new CountDownLatch(1);
+
+		Calendar cal = Calendar.getInstance();
+		cal.set(Calendar.YEAR, 1999);
+
+		Student student = new UndergraduateStudent(new StudentName("Wilfrid", "Askins"), cal.getTime()){
+
+			/** Whether the student has already paused. */
+			private boolean paused;
+
+			@Override
+			public boolean isRegisteredCorrectly(){
+
+				if(!paused && getStudentID() != null && ds.getStudent(getStudentID()) == this){ // If the student is part way through being added
+
+					paused = true;
+
+					try{ // Wait for the termination, unless it is waiting for the registration to finish
+						terminated.await(200, TimeUnit.MILLISECONDS);
+					}catch(InterruptedException e){
+						Thread.currentThread().interrupt();
+					}
+				}
+
+				return super.isRegisteredCorrectly();
+			}
+		};
+
+		RegistryEventStream.Subscription subscription = ds.getEvents().subscribe();
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+
+		try{
+			Future<?> terminator = executor.submit(() -> {
+
+				while(student.getStudentID() == null || ds.getStudent(student.getStudentID()) != student){ // Wait until the student can be found
+					Thread.yield();
+				}
+
+				ds.terminateStudent(student.getStudentID());
+				terminated.countDown();
+
+				return null;
+			});
+
+			ds.registerStudent(student);
+			terminator.get(10, TimeUnit.SECONDS);
+
+			List<RegistryEvent> events = new ArrayList<>();
+
+			while(events.size() < 2){
+				events.addAll(subscription.await(2, 10, TimeUnit.SECONDS));
+			}
+
+			assertEquals(RegistryEvent.Type.REGISTERED, events.get(0).getType()); // Check the events are in the order the changes were made
+			assertEquals(RegistryEvent.Type.TERMINATED, events.get(1).getType());
+			assertFalse(ds.getStudents().contains(student));
+
+		}finally{
+			subscription.close();
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Registers students using several threads, all sharing the same initials so that they contend for the same serial numbers.
+	 *
+	 * @param ds the DataSystem to register the students with
+	 * @param terminate whether each student should be terminated after being registered
+	 * @return the students which were registered
+	 * @throws Exception if a thread failed
+	 */
+	private static List<Student> runInParallel(DataSystem ds, boolean terminate) throws Exception {
+
+		Calendar cal = Calendar.getInstance();
+		cal.set(Calendar.YEAR, 1999);
+		cal.set(Calendar.MONTH, 3);
+		cal.set(Calendar.DATE, 30);
+
+		Date dateOfBirth = cal.getTime();
+
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		List<Future<List<Student>>> results = new ArrayList<>();
+
+		for(int t = 0; t < THREADS; t++){
+			results.add(executor.submit(() -> {
+
+				List<Student> students = new ArrayList<>();
+
+				for(int i = 0; i < STUDENTS_PER_THREAD; i++){
+					Student student = new UndergraduateStudent(new StudentName("Wilfrid", "Askins"), dateOfBirth);
+					ds.registerStudent(student);
+
+					if(terminate){
+						ds.terminateStudent(student.getStudentID());
+					}
+
+					students.add(student);
+				}
+
+				return students;
+			}));
+		}
+
+		List<Student> students = new ArrayList<>();
+
+		for(Future<List<Student>> result : results){
+			students.addAll(result.get()); // Wait for each thread, rethrowing anything it threw
+		}
+
+		executor.shutdown();
+		executor.awaitTermination(1, TimeUnit.MINUTES);
+
+		return students;
+	}
+
+}
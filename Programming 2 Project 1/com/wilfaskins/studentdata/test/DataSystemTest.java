@@ -2,17 +2,26 @@ package com.wilfaskins.studentdata.test;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.List;
+import java.util.Set;
 
 import org.junit.Test;
 
 import com.wilfaskins.studentdata.DataSystem;
+import com.wilfaskins.studentdata.Module;
+import com.wilfaskins.studentdata.RegistryCounters;
+import com.wilfaskins.studentdata.RegistryEvent;
+import com.wilfaskins.studentdata.RegistryEventStream;
 import com.wilfaskins.studentdata.Supervisor;
+import com.wilfaskins.studentdata.ValidationReport;
 import com.wilfaskins.studentdata.students.PostgraduateResearchStudent;
 import com.wilfaskins.studentdata.students.PostgraduateTaughtStudent;
 import com.wilfaskins.studentdata.students.Student;
 import com.wilfaskins.studentdata.students.StudentType;
 import com.wilfaskins.studentdata.students.UndergraduateStudent;
+import com.wilfaskins.studentdata.students.id.SmartCardNumber;
 import com.wilfaskins.studentdata.students.id.StudentID;
 import com.wilfaskins.studentdata.students.id.StudentName;
 
@@ -141,6 +150,36 @@ public class DataSystemTest {
 		assertTrue(ds.getStudents().contains(newStudent)); // Check the new student was added
 	}
 
+	/**
+	 * Tests amending a student by changing it and passing the same student back.
+	 */
+	@Test
+	public void amendSameStudentTest() {
+		
+		DataSystem ds = DataSystem.getDefaultInstance();
+		
+		Calendar cal = Calendar.getInstance();
+		cal.set(Calendar.YEAR, 1999);
+		
+		Student student = new UndergraduateStudent(new StudentName("Wilfrid", "Askins"), cal.getTime());
+		ds.registerStudent(student);
+		
+		StudentID oldID = student.getStudentID();
+		
+		student.addModule(ds.getModule("CSC1021"));
+		ds.amendStudentData(oldID, student); // This used to be rejected as the student was already registered
+		
+		StudentID newID = student.getStudentID();
+		
+		assertNotNull(newID);
+		assertNotEquals(oldID, newID); // Check the student was given a new ID
+		assertSame(student, ds.getStudent(newID));
+		assertNull(ds.getStudent(oldID));
+		assertEquals(1, ds.noOfStudents(StudentType.UNDERGRADUATE));
+		assertEquals(20, ds.getCounters().getCredits(StudentType.UNDERGRADUATE));
+		assertSame(student, ds.getStudentsTaking(ds.getModule("CSC1021")).get(0));
+	}
+
 	/**
 	 * Terminate student test.
 	 */
@@ -188,4 +227,572 @@ public class DataSystemTest {
 		ds.terminateStudent(student.getStudentID()); // Remove the student
 	}
 
+	/**
+	 * Tests whether students can be found by their ID, type and smart card after registering and terminating.
+	 */
+	@Test
+	public void studentIndexTest() {
+		
+		DataSystem ds = DataSystem.getDefaultInstance();
+		
+		StudentName name = new StudentName("Wilfrid", "Askins");
+		
+		Calendar cal = Calendar.getInstance();
+		cal.set(Calendar.YEAR, 1999);
+		cal.set(Calendar.MONTH, 3);
+		cal.set(Calendar.DATE, 30);
+		
+		Student student = new UndergraduateStudent(name, cal.getTime());
+		ds.registerStudent(student);
+		
+		StudentID studentID = student.getStudentID();
+		SmartCardNumber cardNumber = ds.getSmartCards().get(studentID).getSmartCardNumber();
+		
+		assertSame(student, ds.getStudent(studentID)); // Check the student can be found by each index
+		assertSame(student, ds.getStudent(cardNumber));
+		assertTrue(ds.getStudents(StudentType.UNDERGRADUATE).contains(student));
+		assertTrue(ds.getStudents(StudentType.POSTGRADUATE_TAUGHT).isEmpty());
+		
+		ds.terminateStudent(studentID); // Remove the student
+		
+		assertNull(ds.getStudent(studentID)); // Check the student was removed from each index
+		assertNull(ds.getStudent(cardNumber));
+		assertTrue(ds.getStudents(StudentType.UNDERGRADUATE).isEmpty());
+	}
+
+	/**
+	 * Tests registering a batch of students at once.
+	 */
+	@Test
+	public void registerAllTest() {
+		
+		DataSystem ds = DataSystem.getDefaultInstance();
+		
+		Calendar cal = Calendar.getInstance();
+		cal.set(Calendar.YEAR, 1990);
+		cal.set(Calendar.MONTH, 3);
+		cal.set(Calendar.DATE, 30);
+		
+		List<Student> batch = new ArrayList<>();
+		
+		for(int i = 0; i < 100; i++){
+			batch.add(new UndergraduateStudent(new StudentName("Wilfrid", "Askins"), cal.getTime())); // Give every student the same initials
+			batch.add(new PostgraduateTaughtStudent(new StudentName("Sam", "Wilson"), cal.getTime()));
+		}
+		
+		ds.registerAll(batch);
+		
+		assertEquals(100, ds.noOfStudents(StudentType.UNDERGRADUATE)); // Check every student was registered
+		assertEquals(100, ds.noOfStudents(StudentType.POSTGRADUATE_TAUGHT));
+		
+		// Check every student was given their own ID and smart card number
+		assertEquals(batch.size(), batch.stream().map(Student::getStudentID).distinct().count());
+		assertEquals(batch.size(), ds.getSmartCards().values().stream().map(card -> card.getSmartCardNumber()).distinct().count());
+	}
+	
+	/**
+	 * Tests that no students in a batch are registered if one of them is too young.
+	 */
+	@Test
+	public void registerAllFail() {
+		
+		DataSystem ds = DataSystem.getDefaultInstance();
+		
+		Calendar cal = Calendar.getInstance();
+		cal.set(Calendar.YEAR, 1999);
+		cal.set(Calendar.MONTH, 3);
+		cal.set(Calendar.DATE, 30);
+		
+		List<Student> batch = new ArrayList<>();
+		
+		for(int i = 0; i < 10; i++){
+			batch.add(new UndergraduateStudent(new StudentName("Wilfrid", "Askins"), cal.getTime()));
+		}
+		
+		batch.add(new UndergraduateStudent(new StudentName("Sam", "Wilson"), Calendar.getInstance().getTime())); // This student is too young
+		
+		Student before = new UndergraduateStudent(new StudentName("Wilfrid", "Askins"), cal.getTime());
+		ds.registerStudent(before);
+		
+		try{
+			ds.registerAll(batch);
+			fail("The batch was registered");
+		}catch(IllegalArgumentException e){
+			assertEquals(1, ds.noOfStudents(StudentType.UNDERGRADUATE)); // Check none of the batch was registered
+			assertTrue(batch.stream().allMatch(student -> student.getStudentID() == null));
+		}
+		
+		Student after = new UndergraduateStudent(new StudentName("Wilfrid", "Askins"), cal.getTime());
+		ds.registerStudent(after);
+		
+		// Check the failed batch didn't use up any student IDs
+		assertEquals(before.getStudentID().toInt() + 1, after.getStudentID().toInt());
+	}
+
+	/**
+	 * Tests whether the counters follow students being registered and terminated.
+	 */
+	@Test
+	public void countersTest() {
+		
+		DataSystem ds = DataSystem.getDefaultInstance();
+		
+		Calendar cal = Calendar.getInstance();
+		cal.set(Calendar.YEAR, 1999);
+		cal.set(Calendar.MONTH, 3);
+		cal.set(Calendar.DATE, 30);
+		
+		Student correct = new UndergraduateStudent(new StudentName("Wilfrid", "Askins"), cal.getTime());
+		
+		for(String code : new String[]{ "CSC1021", "CSC1022", "CSC1023", "CSC1024", "CSC1025", "CSC1026" }){
+			correct.addModule(ds.getModule(code));
+		}
+		
+		Student incorrect = new UndergraduateStudent(new StudentName("Sam", "Wilson"), cal.getTime());
+		incorrect.addModule(ds.getModule("CSC1021"));
+		
+		ds.registerStudent(correct);
+		ds.registerStudent(incorrect);
+		
+		RegistryCounters counters = ds.getCounters();
+		
+		assertEquals(2, counters.getStudents(StudentType.UNDERGRADUATE));
+		assertEquals(1, counters.getCorrectlyRegistered(StudentType.UNDERGRADUATE));
+		assertEquals(1, counters.getIncorrectlyRegistered(StudentType.UNDERGRADUATE));
+		assertEquals(140, counters.getCredits(StudentType.UNDERGRADUATE)); // Six modules and one module of 20 credits
+		assertEquals(0, counters.getStudents(StudentType.POSTGRADUATE_TAUGHT));
+		
+		ds.terminateStudent(correct.getStudentID());
+		
+		counters = ds.getCounters();
+		
+		assertEquals(1, counters.getTotalStudents()); // Check the terminated student is no longer counted
+		assertEquals(0, counters.getCorrectlyRegistered(StudentType.UNDERGRADUATE));
+		assertEquals(20, counters.getCredits(StudentType.UNDERGRADUATE));
+		
+		// Add the missing modules after registering, then tell the system
+		for(String code : new String[]{ "CSC1022", "CSC1023", "CSC1024", "CSC1025", "CSC1026" }){
+			incorrect.addModule(ds.getModule(code));
+		}
+		
+		ds.studentChanged(incorrect.getStudentID());
+		
+		counters = ds.getCounters();
+		
+		assertEquals(1, counters.getTotalStudents()); // Check the student was counted again rather than twice
+		assertEquals(1, counters.getCorrectlyRegistered(StudentType.UNDERGRADUATE));
+		assertEquals(120, counters.getCredits(StudentType.UNDERGRADUATE));
+	}
+
+	/**
+	 * Tests finding the students who take a module, and that credits are only counted once per module.
+	 */
+	@Test
+	public void studentsTakingTest() {
+		
+		DataSystem ds = DataSystem.getDefaultInstance();
+		
+		Calendar cal = Calendar.getInstance();
+		cal.set(Calendar.YEAR, 1999);
+		cal.set(Calendar.MONTH, 3);
+		cal.set(Calendar.DATE, 30);
+		
+		UndergraduateStudent taking = new UndergraduateStudent(new StudentName("Wilfrid", "Askins"), cal.getTime());
+		taking.addModule(ds.getModule("CSC1021"));
+		taking.addModule(ds.getModule("CSC1021")); // Adding a module twice doesn't count its credits twice
+		taking.addModule(ds.getModule("CSC1022"));
+		
+		UndergraduateStudent notTaking = new UndergraduateStudent(new StudentName("Sam", "Wilson"), cal.getTime());
+		notTaking.addModule(ds.getModule("CSC1022"));
+		
+		ds.registerStudent(taking);
+		ds.registerStudent(notTaking);
+		
+		assertEquals(40, taking.getRegisteredCredits());
+		assertEquals(2, taking.getModules().size());
+		assertTrue(taking.takesModule(ds.getModule("CSC1021")));
+		assertFalse(notTaking.takesModule(ds.getModule("CSC1021")));
+		
+		List<Student> students = ds.getStudentsTaking(ds.getModule("CSC1021"));
+		
+		assertEquals(1, students.size()); // Check only the student taking the module was found
+		assertSame(taking, students.get(0));
+		assertEquals(2, ds.getStudentsTaking(ds.getModule("CSC1022")).size());
+	}
+	
+	/**
+	 * Tests whether the students taking a module are kept up to date as modules are added and students are terminated.
+	 */
+	@Test
+	public void studentsTakingChangedTest() {
+		
+		DataSystem ds = DataSystem.getDefaultInstance();
+		
+		Calendar cal = Calendar.getInstance();
+		cal.set(Calendar.YEAR, 1999);
+		
+		UndergraduateStudent student = new UndergraduateStudent(new StudentName("Wilfrid", "Askins"), cal.getTime());
+		ds.registerStudent(student);
+		
+		assertTrue(ds.getStudentsTaking(ds.getModule("CSC1021")).isEmpty());
+		
+		student.addModule(ds.getModule("CSC1021"));
+		ds.studentChanged(student.getStudentID());
+		
+		assertSame(student, ds.getStudentsTaking(ds.getModule("CSC1021")).get(0)); // Check the new module was indexed
+		assertEquals(1, ds.getStudentsTaking(new Module("CSC1021", ds.getModule("CSC1021").getName(), 20)).size()); // Check an equal module finds the same students
+		
+		ds.terminateStudent(student.getStudentID());
+		
+		assertTrue(ds.getStudentsTaking(ds.getModule("CSC1021")).isEmpty());
+	}
+	
+	/**
+	 * Tests whether each data system numbers its own modules from zero, in the order they were loaded.
+	 */
+	@Test
+	public void moduleOrdinalTest() {
+		
+		DataSystem first = DataSystem.getDefaultInstance();
+		DataSystem second = DataSystem.getDefaultInstance();
+		
+		for(int i = 0; i < first.getModules().size(); i++){
+			assertEquals(i, first.getModules().get(i).getOrdinal());
+			assertEquals(i, second.getModules().get(i).getOrdinal()); // Check loading the modules again doesn't use up more ordinals
+			assertSame(first.getModules(), first.getModules().get(i).getCatalogue());
+		}
+		
+		Module alone = new Module("CSC9999", "Not Loaded", 20);
+		
+		assertEquals(-1, alone.getOrdinal());
+		assertNull(alone.getCatalogue());
+	}
+	
+	/**
+	 * Tests whether a student's set of modules is only built again after a module is added.
+	 */
+	@Test
+	public void modulesViewTest() {
+		
+		DataSystem ds = DataSystem.getDefaultInstance();
+		
+		Calendar cal = Calendar.getInstance();
+		cal.set(Calendar.YEAR, 1999);
+		
+		UndergraduateStudent student = new UndergraduateStudent(new StudentName("Wilfrid", "Askins"), cal.getTime());
+		student.addModule(ds.getModule("CSC1021"));
+		
+		Set<Module> before = student.getModules();
+		
+		assertSame(before, student.getModules()); // Check the set isn't built on every call
+		
+		Module alone = new Module("CSC9999", "Not Loaded", 20);
+		student.addModule(alone);
+		student.addModule(new Module("CSC9999", "Not Loaded", 20)); // An equal module isn't counted twice
+		
+		assertEquals(1, before.size()); // Check the set given out before wasn't changed
+		assertEquals(2, student.getModules().size());
+		assertTrue(student.getModules().contains(alone));
+		assertTrue(student.takesModule(alone));
+		assertEquals(40, student.getRegisteredCredits());
+		
+		try{
+			student.getModules().clear();
+			fail("The set of modules can be changed");
+		}catch(UnsupportedOperationException e){
+			// The set can only be changed through addModule
+		}
+	}
+
+	/**
+	 * Tests whether the getters share one snapshot until a student is registered or terminated.
+	 */
+	@Test
+	public void sharedViewsTest() {
+		
+		DataSystem ds = DataSystem.getDefaultInstance();
+		
+		Calendar cal = Calendar.getInstance();
+		cal.set(Calendar.YEAR, 1999);
+		cal.set(Calendar.MONTH, 3);
+		cal.set(Calendar.DATE, 30);
+		
+		Student student = new UndergraduateStudent(new StudentName("Wilfrid", "Askins"), cal.getTime());
+		ds.registerStudent(student);
+		
+		List<Student> before = ds.getStudents();
+		
+		assertSame(before, ds.getStudents()); // Check nothing is copied while nothing changes
+		assertSame(ds.getSmartCards(), ds.getSmartCards());
+		assertSame(ds.getModules(), ds.getModules());
+		
+		ds.terminateStudent(student.getStudentID());
+		
+		assertTrue(before.contains(student)); // Check the old snapshot wasn't changed
+		assertFalse(ds.getStudents().contains(student));
+		assertNotSame(before, ds.getStudents());
+	}
+	
+	/**
+	 * Tests whether registering a student only gives new snapshots for the students and their type, and whether the
+	 * snapshots can be read by position and by student ID.
+	 */
+	@Test
+	public void incrementalViewsTest() {
+		
+		DataSystem ds = DataSystem.getDefaultInstance();
+		
+		Calendar cal = Calendar.getInstance();
+		cal.set(Calendar.YEAR, 1990);
+		
+		List<Student> research = ds.getStudents(StudentType.POSTGRADUATE_RESEARCH);
+		List<Student> registered = new ArrayList<>();
+		
+		for(int i = 0; i < 5; i++){
+			
+			Student student = new UndergraduateStudent(new StudentName("Wilfrid", "Askins"), cal.getTime());
+			ds.registerStudent(student);
+			registered.add(student);
+		}
+		
+		assertSame(research, ds.getStudents(StudentType.POSTGRADUATE_RESEARCH)); // Check the other types weren't copied
+		
+		ds.terminateStudent(registered.get(2).getStudentID());
+		registered.remove(2);
+		
+		List<Student> students = ds.getStudents();
+		
+		assertEquals(4, students.size());
+		
+		for(int i = 0; i < registered.size(); i++){ // Check the students are in the order they were registered
+			assertSame(registered.get(i), students.get(i));
+			assertSame(registered.get(i), ds.getStudents(StudentType.UNDERGRADUATE).get(i));
+			assertEquals(registered.get(i).getStudentID(), ds.getSmartCards().get(registered.get(i).getStudentID()).getStudentID());
+		}
+		
+		assertEquals(4, ds.getSmartCards().size());
+		assertNull(ds.getSmartCards().get("not an ID"));
+	}
+	
+	/**
+	 * Tests whether the students list can't be changed by callers.
+	 */
+	@Test(expected = UnsupportedOperationException.class)
+	public void sharedViewsFail() {
+		
+		DataSystem ds = DataSystem.getDefaultInstance();
+		
+		ds.getStudents().clear(); // This will throw an exception
+	}
+
+	/**
+	 * Tests finding modules by code, ignoring case.
+	 */
+	@Test
+	public void moduleLookupTest() {
+		
+		DataSystem ds = DataSystem.getDefaultInstance();
+		
+		for(Module module : ds.getModules()){ // Check every module can be found, whatever the case of its code
+			assertSame(module, ds.getModule(module.getCode()));
+			assertSame(module, ds.getModule(module.getCode().toLowerCase()));
+			assertSame(module, ds.getModule(module.getCode().toUpperCase()));
+		}
+		
+		assertNull(ds.getModule("NOT A MODULE"));
+		assertNull(ds.getModule(null));
+		
+		Module[] resolved = ds.resolveModules("csc1021", "CSC1022", "CSC1021");
+		
+		assertEquals(3, resolved.length);
+		assertSame(ds.getModule("CSC1021"), resolved[0]);
+		assertSame(ds.getModule("CSC1022"), resolved[1]);
+		assertSame(resolved[0], resolved[2]);
+	}
+	
+	/**
+	 * Tests resolving codes which don't match a module.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void resolveModulesFail() {
+		
+		DataSystem ds = DataSystem.getDefaultInstance();
+		
+		ds.resolveModules("CSC1021", "NOT A MODULE"); // This will throw an exception
+	}
+
+	/**
+	 * Tests whether validating finds every incorrectly registered student, and whether revalidating only checks the
+	 * students which changed but gives the same results as validating again.
+	 */
+	@Test
+	public void validateTest() {
+		
+		DataSystem ds = DataSystem.getDefaultInstance();
+		Module[] modules = ds.resolveModules("CSC1021", "CSC1022", "CSC1023", "CSC1024", "CSC1025", "CSC1026"); // 120 credits in total
+		
+		Calendar cal = Calendar.getInstance();
+		cal.set(Calendar.YEAR, 1990);
+		
+		List<Student> students = new ArrayList<>();
+		
+		for(int i = 0; i < 60; i++){ // Register undergraduates taking different numbers of modules
+			
+			Student student = new UndergraduateStudent(new StudentName("Wilfrid", "Askins"), cal.getTime());
+			
+			for(int m = 0; m < i % (modules.length + 1); m++){
+				student.addModule(modules[m]);
+			}
+			
+			ds.registerStudent(student);
+			students.add(student);
+		}
+		
+		ds.registerStudent(new PostgraduateResearchStudent(new StudentName("Wilfrid", "Askins"), cal.getTime(), new Supervisor("Neil", "Speirs")));
+		
+		ValidationReport report = ds.validate();
+		
+		assertEquals(61, report.getChecked());
+		assertEquals(60, report.getStudents(StudentType.UNDERGRADUATE));
+		assertEquals(1, report.getCorrectlyRegistered(StudentType.POSTGRADUATE_RESEARCH));
+		
+		long correct = students.stream().filter(Student::isRegisteredCorrectly).count();
+		
+		assertEquals(correct, report.getCorrectlyRegistered(StudentType.UNDERGRADUATE));
+		assertEquals(60 - correct, report.getFailedStudents().size());
+		
+		Student under = students.get(1); // Takes one module
+		Student full = students.get(modules.length); // Takes every module
+		
+		assertTrue(report.getFailedStudents().contains(under.getStudentID()));
+		assertEquals(20 - 120, report.getCreditDelta(under.getStudentID()));
+		assertEquals(0, report.getCreditDelta(full.getStudentID()));
+		
+		for(Module module : modules){ // Fix the student's registration
+			under.addModule(module);
+		}
+		
+		ds.studentChanged(under.getStudentID());
+		ds.terminateStudent(students.get(2).getStudentID());
+		ds.registerStudent(new UndergraduateStudent(new StudentName("Wilfrid", "Askins"), cal.getTime()));
+		
+		ValidationReport revalidated = ds.revalidate();
+		
+		assertEquals(2, revalidated.getChecked()); // Check only the changed and new students were checked
+		assertFalse(revalidated.getFailedStudents().contains(under.getStudentID()));
+		
+		ValidationReport again = ds.validate();
+		
+		assertEquals(again.getFailedStudents(), revalidated.getFailedStudents()); // Check revalidating gives the same results
+		
+		for(StudentType type : StudentType.values()){
+			assertEquals(again.getStudents(type), revalidated.getStudents(type));
+			assertEquals(again.getCorrectlyRegistered(type), revalidated.getCorrectlyRegistered(type));
+			assertEquals(again.getCreditDelta(type), revalidated.getCreditDelta(type));
+		}
+	}
+	
+	/**
+	 * Tests marking a student who isn't registered as changed.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void studentChangedFail() {
+		
+		DataSystem ds = DataSystem.getDefaultInstance();
+		Student student = new UndergraduateStudent(new StudentName("Wilfrid", "Askins"), Calendar.getInstance().getTime());
+		
+		ds.registerStudent(student);
+		ds.terminateStudent(student.getStudentID());
+		
+		ds.studentChanged(student.getStudentID()); // This will throw an exception
+	}
+
+	/**
+	 * Tests whether registrations, amendments and terminations are published to subscribers, with the smart cards.
+	 */
+	@Test
+	public void eventStreamTest() {
+		
+		DataSystem ds = DataSystem.getDefaultInstance();
+		
+		Calendar cal = Calendar.getInstance();
+		cal.set(Calendar.YEAR, 1990);
+		
+		ds.registerStudent(new UndergraduateStudent(new StudentName("Not", "Seen"), cal.getTime())); // Registered before anyone subscribed
+		
+		RegistryEventStream.Subscription subscription = ds.getEvents().subscribe();
+		
+		Student student = new UndergraduateStudent(new StudentName("Wilfrid", "Askins"), cal.getTime());
+		ds.registerStudent(student);
+		
+		StudentID oldID = student.getStudentID();
+		Student amended = new UndergraduateStudent(new StudentName("Wilfrid", "Askins", "James"), cal.getTime());
+		ds.amendStudentData(oldID, amended);
+		ds.terminateStudent(amended.getStudentID());
+		
+		List<RegistryEvent> events = subscription.poll(2);
+		events.addAll(subscription.poll(10)); // Read the rest in a second batch
+		
+		assertEquals(3, events.size());
+		assertTrue(subscription.poll(10).isEmpty());
+		
+		assertEquals(RegistryEvent.Type.REGISTERED, events.get(0).getType());
+		assertSame(student, events.get(0).getRegistration().getStudent());
+		assertEquals(oldID, events.get(0).getRegistration().getSmartCard().getStudentID());
+		assertNull(events.get(0).getPrevious());
+		
+		assertEquals(RegistryEvent.Type.AMENDED, events.get(1).getType());
+		assertSame(amended, events.get(1).getRegistration().getStudent());
+		assertSame(student, events.get(1).getPrevious().getStudent());
+		assertEquals(oldID, events.get(1).getPrevious().getSmartCard().getStudentID());
+		
+		assertEquals(RegistryEvent.Type.TERMINATED, events.get(2).getType());
+		assertSame(amended, events.get(2).getRegistration().getStudent());
+		
+		assertEquals(events.get(0).getSequence() + 2, events.get(2).getSequence());
+		
+		subscription.close();
+	}
+
+	/**
+	 * Tests whether research students are allocated to the least loaded supervisor, and whether each supervisor's
+	 * students are kept up to date.
+	 */
+	@Test
+	public void supervisorAllocationTest() {
+		
+		DataSystem ds = DataSystem.getDefaultInstance();
+		List<Supervisor> supervisors = ds.getSupervisors();
+		
+		Calendar cal = Calendar.getInstance();
+		cal.set(Calendar.YEAR, 1990);
+		
+		Supervisor first = supervisors.get(0);
+		ds.registerStudent(new PostgraduateResearchStudent(new StudentName("Wilfrid", "Askins"), cal.getTime(), first));
+		
+		List<PostgraduateResearchStudent> allocated = new ArrayList<>();
+		
+		for(int i = 0; i < supervisors.size() * 3 - 1; i++){ // Fill every supervisor up to three students
+			allocated.add(ds.registerResearchStudent(new StudentName("Wilfrid", "Askins"), cal.getTime()));
+		}
+		
+		assertNotSame(first, allocated.get(0).getSupervisor()); // Check the first supervisor was skipped, as they already had a student
+		
+		for(Supervisor supervisor : supervisors){ // Check the students were spread evenly
+			assertEquals(3, ds.getSupervisorLoad(supervisor));
+			assertEquals(3, ds.getStudentsSupervisedBy(supervisor).size());
+		}
+		
+		Supervisor last = supervisors.get(supervisors.size() - 1);
+		PostgraduateResearchStudent leaving = ds.getStudentsSupervisedBy(last).get(0);
+		ds.terminateStudent(leaving.getStudentID());
+		
+		assertEquals(2, ds.getSupervisorLoad(last));
+		assertFalse(ds.getStudentsSupervisedBy(last).stream().anyMatch(student -> student == leaving));
+		assertSame(last, ds.registerResearchStudent(new StudentName("Wilfrid", "Askins"), cal.getTime()).getSupervisor());
+		
+		assertEquals(0, ds.getSupervisorLoad(new Supervisor("Not", "Listed")));
+		assertEquals(3, ds.query().supervisedBy(last).count());
+	}
+
 }
@@ -0,0 +1,422 @@
+package com.wilfaskins.studentdata.test;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.wilfaskins.studentdata.DataSystem;
+import com.wilfaskins.studentdata.Supervisor;
+import com.wilfaskins.studentdata.students.PostgraduateResearchStudent;
+import com.wilfaskins.studentdata.students.PostgraduateTaughtStudent;
+import com.wilfaskins.studentdata.students.Student;
+import com.wilfaskins.studentdata.students.StudentType;
+import com.wilfaskins.studentdata.students.UndergraduateStudent;
+import com.wilfaskins.studentdata.students.id.SmartCard;
+import com.wilfaskins.studentdata.students.id.StudentID;
+import com.wilfaskins.studentdata.students.id.StudentName;
+
+/**
+ * Tests whether a DataSystem's students are restored from its journal and snapshots.
+ */
+public class PersistenceTest {
+
+	/** The file the modules are loaded from. */
+	private static final File MODULES = new File("modules.csv");
+
+	/** The file the supervisors are loaded from. */
+	private static final File SUPERVISORS = new File("supervisors.csv");
+
+	/**
+	 * Tests whether registrations, amendments and terminations are replayed from the journal.
+	 *
+	 * @throws IOException if the journal couldn't be used
+	 */
+	@Test
+	public void journalRecoveryTest() throws IOException {
+
+		File directory = Files.createTempDirectory("datasystem").toFile();
+
+		DataSystem ds = DataSystem.open(MODULES, SUPERVISORS, directory);
+
+		Student kept = undergraduate("Wilfrid", "Askins");
+		kept.addModule(ds.getModule("CSC1021"));
+		kept.addModule(ds.getModule("CSC1022"));
+		ds.registerStudent(kept);
+
+		Student research = new PostgraduateResearchStudent(new StudentName("Sam", "Wilson"), birthDate(1990), new Supervisor("Neil", "Speirs"));
+		ds.registerStudent(research);
+
+		Student terminated = undergraduate("Jane", "Doe");
+		ds.registerStudent(terminated);
+		ds.terminateStudent(terminated.getStudentID());
+
+		Student replaced = undergraduate("John", "Smith");
+		ds.registerStudent(replaced);
+		Student amended = undergraduate("John", "Smyth");
+		ds.amendStudentData(replaced.getStudentID(), amended);
+
+		ds.close();
+
+		DataSystem reopened = DataSystem.open(MODULES, SUPERVISORS, directory); // Replay the journal
+
+		assertEquals(2, reopened.noOfStudents(StudentType.UNDERGRADUATE));
+		assertEquals(1, reopened.noOfStudents(StudentType.POSTGRADUATE_RESEARCH));
+
+		Student restored = reopened.getStudent(kept.getStudentID());
+		assertEquals(kept.getName(), restored.getName()); // Check the student's details were restored
+		assertEquals(kept.getDateOfBirth(), restored.getDateOfBirth());
+		assertEquals(kept.getModules(), restored.getModules());
+		assertEquals(ds.getSmartCards().get(kept.getStudentID()), reopened.getSmartCards().get(kept.getStudentID()));
+
+		assertEquals(amended.getName(), reopened.getStudent(amended.getStudentID()).getName());
+		assertEquals("Neil Speirs", ((PostgraduateResearchStudent) reopened.getStudent(research.getStudentID())).getSupervisor().getFullName());
+
+		reopened.close();
+	}
+
+	/**
+	 * Tests whether a snapshot and the journal entries after it are both restored, and that the counters carry on.
+	 *
+	 * @throws IOException if the journal couldn't be used
+	 */
+	@Test
+	public void snapshotRecoveryTest() throws IOException {
+
+		File directory = Files.createTempDirectory("datasystem").toFile();
+
+		DataSystem ds = DataSystem.open(MODULES, SUPERVISORS, directory);
+
+		Student before = undergraduate("Wilfrid", "Askins");
+		ds.registerStudent(before);
+
+		ds.snapshot(); // Save the first student in a snapshot
+
+		Student after = undergraduate("Wilfrid", "Askins");
+		ds.registerStudent(after);
+
+		ds.close();
+
+		// Add a partly written entry to the end of the journal, as if the system crashed while writing it
+		try(FileOutputStream out = new FileOutputStream(new File(directory, "journal.dat"), true)){
+			out.write(new byte[]{ 0, 0, 0, 40, 1, 2, 3 });
+		}
+
+		DataSystem reopened = DataSystem.open(MODULES, SUPERVISORS, directory);
+
+		assertNotNull(reopened.getStudent(before.getStudentID())); // Check both students were restored
+		assertNotNull(reopened.getStudent(after.getStudentID()));
+		assertEquals(2, reopened.noOfStudents(StudentType.UNDERGRADUATE));
+
+		Student next = undergraduate("Wilfrid", "Askins");
+		reopened.registerStudent(next);
+
+		// Check the counters carried on rather than reissuing numbers
+		assertTrue(next.getStudentID().toInt() > after.getStudentID().toInt());
+
+		SmartCard afterCard = reopened.getSmartCards().get(after.getStudentID());
+		SmartCard nextCard = reopened.getSmartCards().get(next.getStudentID());
+		assertTrue(nextCard.getSmartCardNumber().getSerialNumber() > afterCard.getSmartCardNumber().getSerialNumber());
+
+		reopened.close();
+	}
+
+	/**
+	 * Tests whether a terminated student can't be terminated again after reopening.
+	 *
+	 * @throws IOException if the journal couldn't be used
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void terminatedRecoveryTest() throws IOException {
+
+		File directory = Files.createTempDirectory("datasystem").toFile();
+
+		DataSystem ds = DataSystem.open(MODULES, SUPERVISORS, directory);
+
+		Student student = undergraduate("Wilfrid", "Askins");
+		ds.registerStudent(student);
+
+		StudentID studentID = student.getStudentID();
+		ds.terminateStudent(studentID);
+		ds.close();
+
+		DataSystem reopened = DataSystem.open(MODULES, SUPERVISORS, directory);
+		reopened.terminateStudent(studentID); // This will throw an exception
+	}
+
+	/**
+	 * Tests whether a batch registration is replayed whole, and that a batch which was only partly written before a
+	 * crash is replayed not at all.
+	 *
+	 * @throws IOException if the journal couldn't be used
+	 */
+	@Test
+	public void batchRecoveryTest() throws IOException {
+
+		File directory = Files.createTempDirectory("datasystem").toFile();
+		File journal = new File(directory, "journal.dat");
+
+		DataSystem ds = DataSystem.open(MODULES, SUPERVISORS, directory);
+
+		List<Student> batch = new ArrayList<>();
+
+		for(int i = 0; i < 20; i++){
+			batch.add(undergraduate("Wilfrid", "Askins"));
+		}
+
+		ds.registerAll(batch);
+		ds.close();
+
+		DataSystem reopened = DataSystem.open(MODULES, SUPERVISORS, directory);
+		assertEquals(20, reopened.noOfStudents(StudentType.UNDERGRADUATE));
+		reopened.close();
+
+		// Cut off the end of the batch, as if the system crashed while writing it
+		byte[] bytes = Files.readAllBytes(journal.toPath());
+		Files.write(journal.toPath(), Arrays.copyOf(bytes, bytes.length - 40));
+
+		DataSystem torn = DataSystem.open(MODULES, SUPERVISORS, directory);
+		assertEquals(0, torn.noOfStudents(StudentType.UNDERGRADUATE)); // Check none of the batch was replayed
+		torn.close();
+	}
+
+	/**
+	 * Tests whether modules given to a student after they were registered are replayed from the journal.
+	 *
+	 * @throws IOException if the journal couldn't be used
+	 */
+	@Test
+	public void modulesChangedRecoveryTest() throws IOException {
+
+		File directory = Files.createTempDirectory("datasystem").toFile();
+
+		DataSystem ds = DataSystem.open(MODULES, SUPERVISORS, directory);
+
+		Student student = undergraduate("Wilfrid", "Askins");
+		ds.registerStudent(student);
+
+		for(String code : new String[]{ "CSC1021", "CSC1022", "CSC1023", "CSC1024", "CSC1025", "CSC1026" }){
+			student.addModule(ds.getModule(code));
+		}
+
+		ds.studentChanged(student.getStudentID());
+		ds.close();
+
+		DataSystem reopened = DataSystem.open(MODULES, SUPERVISORS, directory); // Replay the journal
+
+		Student restored = reopened.getStudent(student.getStudentID());
+
+		assertEquals(6, restored.getModules().size()); // Check the modules were restored
+		assertTrue(restored.isRegisteredCorrectly());
+		assertEquals(1, reopened.getCounters().getCorrectlyRegistered(StudentType.UNDERGRADUATE));
+		assertEquals(120, reopened.getCounters().getCredits(StudentType.UNDERGRADUATE));
+		assertEquals(1, reopened.getStudentsTaking(reopened.getModule("CSC1026")).size());
+
+		reopened.close();
+	}
+
+	/**
+	 * Tests whether a damaged entry in the middle of the journal stops it opening, rather than the entries after it
+	 * being thrown away.
+	 *
+	 * @throws IOException if the journal couldn't be used
+	 */
+	@Test
+	public void corruptJournalFail() throws IOException {
+
+		File directory = Files.createTempDirectory("datasystem").toFile();
+		File journal = new File(directory, "journal.dat");
+
+		DataSystem ds = DataSystem.open(MODULES, SUPERVISORS, directory);
+
+		for(int i = 0; i < 3; i++){
+			ds.registerStudent(undergraduate("Wilfrid", "Askins"));
+		}
+
+		ds.close();
+
+		byte[] bytes = Files.readAllBytes(journal.toPath());
+		bytes[20] ^= 1; // Flip a bit in the body of the first entry
+		Files.write(journal.toPath(), bytes);
+
+		try{
+			DataSystem.open(MODULES, SUPERVISORS, directory);
+			fail("A damaged entry in the middle of the journal was accepted");
+		}catch(IOException e){
+			assertTrue(e.getMessage().contains("offset 0"));
+		}
+
+		assertEquals(bytes.length, journal.length()); // Check the later entries weren't removed
+	}
+
+	/**
+	 * Tests whether an exported system is loaded with the same students, smart cards and catalogues, and that the
+	 * counters carry on.
+	 *
+	 * @throws IOException if the export couldn't be written or read
+	 */
+	@Test
+	public void exportImportTest() throws IOException {
+
+		DataSystem ds = new DataSystem(MODULES, SUPERVISORS);
+
+		Student taught = new PostgraduateTaughtStudent(new StudentName("Wilfrid", "Askins", "James"), birthDate(1990));
+		taught.addModule(ds.getModule("CSC1021"));
+		taught.addModule(ds.getModule("CSC3095"));
+		ds.registerStudent(taught);
+
+		Student research = new PostgraduateResearchStudent(new StudentName("Sam", "Wilson"), birthDate(1990), new Supervisor("Neil", "Speirs"));
+		ds.registerStudent(research);
+
+		Student outside = new PostgraduateResearchStudent(new StudentName("Sam", "Wilson"), birthDate(1990), new Supervisor("Not", "Listed"));
+		ds.registerStudent(outside);
+
+		for(int i = 0; i < 50; i++){ // Register students with repeated names, as most exports will have
+			ds.registerStudent(undergraduate("Wilfrid", "Askins"));
+		}
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ds.exportTo(out);
+
+		DataSystem imported = DataSystem.importFrom(new ByteArrayInputStream(out.toByteArray()));
+
+		assertEquals(ds.getModules(), imported.getModules());
+		assertEquals(ds.getSupervisors(), imported.getSupervisors());
+		assertEquals(ds.getSmartCards(), imported.getSmartCards());
+
+		for(StudentType type : StudentType.values()){
+			assertEquals(ds.noOfStudents(type), imported.noOfStudents(type));
+		}
+
+		Student restored = imported.getStudent(taught.getStudentID());
+		assertEquals(taught.getName(), restored.getName()); // Check the student's details were restored
+		assertEquals(taught.getDateOfBirth(), restored.getDateOfBirth());
+		assertEquals(taught.getModules(), restored.getModules());
+		assertTrue(restored.getModules().contains(imported.getModule("CSC3095")));
+
+		assertEquals("Neil Speirs", ((PostgraduateResearchStudent) imported.getStudent(research.getStudentID())).getSupervisor().getFullName());
+		assertEquals("Not Listed", ((PostgraduateResearchStudent) imported.getStudent(outside.getStudentID())).getSupervisor().getFullName());
+
+		Student next = undergraduate("Wilfrid", "Askins");
+		imported.registerStudent(next);
+
+		// Check the counters carried on rather than reissuing numbers
+		assertFalse(ds.getSmartCards().containsKey(next.getStudentID()));
+		assertFalse(ds.getSmartCards().containsValue(imported.getSmartCards().get(next.getStudentID())));
+	}
+
+	/**
+	 * Tests whether students can be registered while an export is being written to a slow output, and that the export
+	 * only has the students who were registered before it started.
+	 *
+	 * @throws Exception if the export couldn't be written or read
+	 */
+	@Test
+	public void slowExportTest() throws Exception {
+
+		DataSystem ds = new DataSystem(MODULES, SUPERVISORS);
+
+		Student before = undergraduate("Wilfrid", "Askins");
+		ds.registerStudent(before);
+
+		CountDownLatch writing = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream(){
+
+			@Override
+			public synchronized void write(byte[] b, int off, int len){
+
+				writing.countDown();
+
+				try{ // Hold the export up until the test lets it carry on
+					release.await();
+				}catch(InterruptedException e){
+					Thread.currentThread().interrupt();
+				}
+
+				super.write(b, off, len);
+			}
+		};
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+
+		try{
+			Future<?> export = executor.submit(() -> {
+				ds.exportTo(out);
+				return null;
+			});
+
+			assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+			Student during = undergraduate("Sam", "Wilson");
+			executor.submit(() -> ds.registerStudent(during)).get(5, TimeUnit.SECONDS); // Check the export doesn't stop the registration
+
+			release.countDown();
+			export.get(5, TimeUnit.SECONDS);
+
+			DataSystem imported = DataSystem.importFrom(new ByteArrayInputStream(out.toByteArray()));
+
+			assertNotNull(imported.getStudent(before.getStudentID()));
+			assertNull(imported.getStudent(during.getStudentID())); // Check the export didn't pick up the student registered while it was written
+
+		}finally{
+			release.countDown();
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Tests loading something which isn't an export.
+	 *
+	 * @throws IOException as the input isn't an export
+	 */
+	@Test(expected = IOException.class)
+	public void importFail() throws IOException {
+		DataSystem.importFrom(new ByteArrayInputStream(new byte[]{ 'W', 'A', 'S', 'N', 1 })); // This will throw an exception
+	}
+
+	/**
+	 * Creates an undergraduate student who is old enough to be registered.
+	 *
+	 * @param firstName the student's first name
+	 * @param lastName the student's last name
+	 * @return the student
+	 */
+	private static Student undergraduate(String firstName, String lastName) {
+		return new UndergraduateStudent(new StudentName(firstName, lastName), birthDate(1999));
+	}
+
+	/**
+	 * Creates a date of birth in a year.
+	 *
+	 * @param year the year of birth
+	 * @return the date of birth
+	 */
+	private static Date birthDate(int year) {
+
+		Calendar cal = Calendar.getInstance();
+		cal.set(Calendar.YEAR, year);
+		cal.set(Calendar.MONTH, 3);
+		cal.set(Calendar.DATE, 30);
+
+		return cal.getTime();
+	}
+
+}
@@ -0,0 +1,189 @@
+package com.wilfaskins.studentdata.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.wilfaskins.studentdata.DataSystem;
+import com.wilfaskins.studentdata.students.PostgraduateTaughtStudent;
+import com.wilfaskins.studentdata.students.Student;
+import com.wilfaskins.studentdata.students.StudentType;
+import com.wilfaskins.studentdata.students.UndergraduateStudent;
+import com.wilfaskins.studentdata.students.id.SmartCard;
+import com.wilfaskins.studentdata.students.id.StudentID;
+import com.wilfaskins.studentdata.students.id.StudentName;
+
+/**
+ * Runs a long random sequence of registrations, amendments, terminations and lookups against a DataSystem,
+ * checking after every step that it agrees with a simple model of which students should be registered.
+ */
+public class RegistryPropertyTest {
+
+	/** The number of random operations. Each registration or amendment uses up a student ID, and there are only 260,000 of those. */
+	private static final int OPERATIONS = 200000;
+
+	/** The seed of the random sequence, so any failure can be repeated. */
+	private static final long SEED = 20160314L;
+
+	/** The first names students are given. */
+	private static final String[] FIRST_NAMES = { "Wilfrid", "Jane", "John", "Sam", "Alex", "Ruth", "Neil" };
+
+	/** The last names students are given. */
+	private static final String[] LAST_NAMES = { "Askins", "Doe", "Smith", "Wilson", "Speirs", "Brown" };
+
+	/**
+	 * Checks that lookups always find the right student while students are being registered, amended and terminated,
+	 * and that students in a hash set can still be found after their IDs change.
+	 */
+	@Test
+	public void randomOperationsTest() {
+
+		DataSystem ds = DataSystem.getDefaultInstance();
+		Random random = new Random(SEED);
+
+		Map<StudentID,Student> model = new HashMap<>(); // The students which should be registered
+		List<StudentID> registered = new ArrayList<>(); // The same IDs, so one can be picked at random
+		List<Student> former = new ArrayList<>(); // Students who were terminated or replaced
+		List<StudentID> formerIDs = new ArrayList<>(); // The IDs those students had
+		Set<Student> everyone = new HashSet<>(); // Every student created, held while their IDs change
+
+		for(int i = 0; i < OPERATIONS; i++){
+
+			int choice = random.nextInt(100);
+
+			if(choice < 25 || registered.isEmpty()){ // Register a new student
+
+				Student student = randomStudent(random);
+				everyone.add(student);
+				ds.registerStudent(student);
+
+				model.put(student.getStudentID(), student);
+				registered.add(student.getStudentID());
+
+			}else if(choice < 35){ // Replace a student's data
+
+				StudentID oldID = pick(registered, random);
+				Student oldStudent = model.remove(oldID);
+				Student replacement = randomStudent(random);
+				everyone.add(replacement);
+
+				ds.amendStudentData(oldID, replacement);
+
+				assertNull(oldStudent.getStudentID()); // The old student loses their ID
+				assertNull(ds.getStudent(oldID));
+				former.add(oldStudent);
+				formerIDs.add(oldID);
+
+				model.put(replacement.getStudentID(), replacement);
+				registered.add(replacement.getStudentID());
+
+			}else if(choice < 50){ // Terminate a student
+
+				StudentID studentID = pick(registered, random);
+				Student student = model.remove(studentID);
+
+				ds.terminateStudent(studentID);
+
+				assertNull(student.getStudentID());
+				assertNull(ds.getStudent(studentID));
+				former.add(student);
+				formerIDs.add(studentID);
+
+			}else if(choice < 90){ // Look up a registered student
+
+				StudentID studentID = registered.get(random.nextInt(registered.size()));
+				Student expected = model.get(studentID);
+
+				assertSame(expected, ds.getStudent(studentID));
+				assertTrue(everyone.contains(expected)); // Check the student can still be found in a hash set
+
+			}else if(!formerIDs.isEmpty()){ // Check a former student's ID can't be found or terminated again
+
+				StudentID studentID = formerIDs.get(random.nextInt(formerIDs.size()));
+
+				assertNull(ds.getStudent(studentID));
+
+				try{
+					ds.terminateStudent(studentID);
+					fail("A former student was terminated again");
+				}catch(IllegalArgumentException e){
+					// Expected, as the student is no longer registered
+				}
+			}
+		}
+
+		// Check the system agrees with the model
+		int undergraduates = 0;
+
+		for(Student student : model.values()){
+			assertSame(student, ds.getStudent(student.getStudentID()));
+			undergraduates += student.getStudentType() == StudentType.UNDERGRADUATE ? 1 : 0;
+		}
+
+		assertEquals(model.size(), ds.getStudents().size());
+
+		Map<StudentID,SmartCard> smartCards = ds.getSmartCards();
+		assertEquals(model.size(), smartCards.size());
+
+		for(Map.Entry<StudentID,SmartCard> entry : smartCards.entrySet()){ // Check every smartcard leads back to its owner
+			assertSame(model.get(entry.getKey()), ds.getStudent(entry.getValue().getSmartCardNumber()));
+		}
+
+		assertEquals(undergraduates, ds.noOfStudents(StudentType.UNDERGRADUATE));
+		assertEquals(model.size() - undergraduates, ds.noOfStudents(StudentType.POSTGRADUATE_TAUGHT));
+
+		for(Student student : former){ // Check every former student is still in the hash set, with no ID
+			assertNull(student.getStudentID());
+			assertTrue(everyone.contains(student));
+		}
+	}
+
+	/**
+	 * Removes a random ID from a list, by moving the last ID into its place.
+	 *
+	 * @param ids the list of IDs
+	 * @param random the random number generator
+	 * @return the removed ID
+	 */
+	private static StudentID pick(List<StudentID> ids, Random random) {
+
+		int index = random.nextInt(ids.size());
+		StudentID picked = ids.get(index);
+		ids.set(index, ids.get(ids.size() - 1));
+		ids.remove(ids.size() - 1);
+
+		return picked;
+	}
+
+	/**
+	 * Creates a random student who is old enough to be registered.
+	 *
+	 * @param random the random number generator
+	 * @return the student
+	 */
+	private static Student randomStudent(Random random) {
+
+		StudentName name = new StudentName(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)], LAST_NAMES[random.nextInt(LAST_NAMES.length)]);
+
+		Calendar cal = Calendar.getInstance();
+		cal.set(1980 + random.nextInt(10), random.nextInt(12), 1 + random.nextInt(28));
+		Date dateOfBirth = cal.getTime();
+
+		if(random.nextBoolean()){
+			return new UndergraduateStudent(name, dateOfBirth);
+		}
+
+		return new PostgraduateTaughtStudent(name, dateOfBirth);
+	}
+
+}
@@ -0,0 +1,219 @@
+package com.wilfaskins.studentdata.test;
+
+import static org.junit.Assert.*;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.wilfaskins.studentdata.DataSystem;
+import com.wilfaskins.studentdata.Module;
+import com.wilfaskins.studentdata.Supervisor;
+import com.wilfaskins.studentdata.students.PostgraduateResearchStudent;
+import com.wilfaskins.studentdata.students.PostgraduateTaughtStudent;
+import com.wilfaskins.studentdata.students.Student;
+import com.wilfaskins.studentdata.students.StudentType;
+import com.wilfaskins.studentdata.students.UndergraduateStudent;
+import com.wilfaskins.studentdata.students.id.StudentName;
+
+/**
+ * Tests whether queries find the same students as filtering every student by hand.
+ */
+public class StudentQueryTest {
+
+	/** The supervisors given to the research students. */
+	private static final Supervisor[] SUPERVISORS = { new Supervisor("Neil", "Speirs"), new Supervisor("Ruth", "Brown") };
+
+	/**
+	 * Tests each filter on its own and combined.
+	 */
+	@Test
+	public void filterTest() {
+
+		DataSystem ds = DataSystem.getDefaultInstance();
+		List<Student> students = registerStudents(ds);
+
+		Module module = ds.getModule("CSC1021");
+		LocalDate from = LocalDate.of(1988, 1, 1);
+		LocalDate to = LocalDate.of(1990, 6, 30);
+
+		assertEquals(students.size(), ds.query().count());
+
+		assertSameStudents(students.stream().filter(s -> s.getStudentType() == StudentType.UNDERGRADUATE).collect(Collectors.toList()),
+				ds.query().ofType(StudentType.UNDERGRADUATE).list());
+
+		assertSameStudents(students.stream().filter(s -> s.getModules().contains(module)).collect(Collectors.toList()),
+				ds.query().takingModule("csc1021").list());
+
+		assertSameStudents(students.stream().filter(s -> s instanceof PostgraduateResearchStudent
+				&& ((PostgraduateResearchStudent) s).getSupervisor().equals(SUPERVISORS[1])).collect(Collectors.toList()),
+				ds.query().supervisedBy(SUPERVISORS[1]).list());
+
+		assertSameStudents(students.stream().filter(s -> bornBetween(s, from, to) && s.getStudentType() == StudentType.POSTGRADUATE_TAUGHT
+				&& !s.isRegisteredCorrectly()).collect(Collectors.toList()),
+				ds.query().bornBetween(from, to).ofType(StudentType.POSTGRADUATE_TAUGHT).registeredCorrectly(false).list());
+
+		assertEquals(0, ds.query().takingModule("NOT A MODULE").count()); // Check an unknown module matches nothing
+		assertEquals(0, ds.query().ofType(StudentType.UNDERGRADUATE).supervisedBy(SUPERVISORS[0]).count());
+	}
+
+	/**
+	 * Tests queries which start from the students taking a module, with the other filters checked against them.
+	 */
+	@Test
+	public void moduleIndexTest() {
+
+		DataSystem ds = DataSystem.getDefaultInstance();
+		List<Student> students = registerStudents(ds);
+
+		Module module = ds.getModule("CSC1022");
+		LocalDate from = LocalDate.of(1985, 1, 1);
+		LocalDate to = LocalDate.of(1994, 12, 31);
+
+		assertSameStudents(students.stream().filter(s -> s.getModules().contains(module) && s.getStudentType() == StudentType.POSTGRADUATE_TAUGHT
+				&& !s.isRegisteredCorrectly()).collect(Collectors.toList()),
+				ds.query().takingModule("CSC1022").ofType(StudentType.POSTGRADUATE_TAUGHT).registeredCorrectly(false).list());
+
+		assertSameStudents(students.stream().filter(s -> s.getModules().contains(module) && bornBetween(s, from, to)).collect(Collectors.toList()),
+				ds.query().takingModule("CSC1022").bornBetween(from, to).list());
+
+		assertEquals(0, ds.query().takingModule("CSC1022").ofType(StudentType.POSTGRADUATE_RESEARCH).count());
+
+		// A student given the module after registering is found once the system is told about it
+		Student student = new UndergraduateStudent(new StudentName("Wilfrid", "Askins"), Date.from(LocalDate.of(1999, 4, 30).atStartOfDay(ZoneId.systemDefault()).toInstant()));
+		ds.registerStudent(student);
+
+		long taking = ds.query().takingModule("CSC1022").count();
+
+		student.addModule(module);
+		ds.studentChanged(student.getStudentID());
+
+		assertEquals(taking + 1, ds.query().takingModule("CSC1022").count());
+		assertTrue(ds.query().takingModule("CSC1022").ofType(StudentType.UNDERGRADUATE).list().contains(student));
+
+		ds.terminateStudent(student.getStudentID());
+
+		assertEquals(taking, ds.query().takingModule("CSC1022").count()); // Check the terminated student left the module's index
+	}
+
+	/**
+	 * Tests reading the results a page at a time.
+	 */
+	@Test
+	public void pagingTest() {
+
+		DataSystem ds = DataSystem.getDefaultInstance();
+		registerStudents(ds);
+
+		LocalDate from = LocalDate.of(1980, 1, 1);
+		LocalDate to = LocalDate.of(1999, 12, 31);
+
+		List<Student> all = ds.query().bornBetween(from, to).list();
+		List<Student> paged = new ArrayList<>();
+
+		for(int page = 0; page * 25 < all.size(); page++){ // Read the results 25 at a time
+			paged.addAll(ds.query().bornBetween(from, to).offset(page * 25).limit(25).list());
+		}
+
+		assertEquals(all, paged); // Check the pages join up with nothing missed or repeated
+
+		for(int i = 1; i < all.size(); i++){ // Check the date of birth index returns students in order
+			assertFalse(all.get(i).getDateOfBirth().before(all.get(i - 1).getDateOfBirth()));
+		}
+	}
+
+	/**
+	 * Tests whether terminated students are no longer found.
+	 */
+	@Test
+	public void terminatedTest() {
+
+		DataSystem ds = DataSystem.getDefaultInstance();
+		List<Student> students = registerStudents(ds);
+
+		Student terminated = students.get(0);
+		ds.terminateStudent(terminated.getStudentID());
+
+		assertFalse(ds.query().list().contains(terminated));
+		assertFalse(ds.query().bornBetween(LocalDate.of(1980, 1, 1), LocalDate.of(1999, 12, 31)).list().contains(terminated));
+		assertEquals(students.size() - 1, ds.query().count());
+	}
+
+	/**
+	 * Checks two lists hold exactly the same student instances, in any order.
+	 *
+	 * @param expected the expected students
+	 * @param actual the students found
+	 */
+	private static void assertSameStudents(List<Student> expected, List<Student> actual) {
+
+		assertEquals(expected.size(), actual.size());
+
+		for(Student student : expected){
+			assertTrue(actual.stream().anyMatch(found -> found == student));
+		}
+	}
+
+	/**
+	 * Checks whether a student was born between two dates.
+	 *
+	 * @param student the student
+	 * @param from the earliest date, inclusive
+	 * @param to the latest date, inclusive
+	 * @return true, if the student was born between the dates
+	 */
+	private static boolean bornBetween(Student student, LocalDate from, LocalDate to) {
+
+		LocalDate born = student.getDateOfBirth().toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+
+		return !born.isBefore(from) && !born.isAfter(to);
+	}
+
+	/**
+	 * Registers a mix of students with different dates of birth, modules and supervisors.
+	 *
+	 * @param ds the system to register the students with
+	 * @return the students
+	 */
+	private static List<Student> registerStudents(DataSystem ds) {
+
+		List<Student> students = new ArrayList<>();
+		List<Module> modules = ds.getModules();
+
+		for(int i = 0; i < 150; i++){
+
+			LocalDate born = LocalDate.of(1980 + i % 15, 1 + i % 12, 1 + i % 28);
+			Date dateOfBirth = Date.from(born.atStartOfDay(ZoneId.systemDefault()).toInstant());
+			StudentName name = new StudentName("Student", "Number" + i);
+			Student student;
+
+			switch(i % 3){
+			case 0:
+				student = new UndergraduateStudent(name, dateOfBirth);
+				break;
+			case 1:
+				student = new PostgraduateTaughtStudent(name, dateOfBirth);
+				break;
+			default:
+				student = new PostgraduateResearchStudent(name, dateOfBirth, SUPERVISORS[i % 2]);
+			}
+
+			if(student.getStudentType() != StudentType.POSTGRADUATE_RESEARCH){
+				for(int m = 0; m < i % 5; m++){
+					student.addModule(modules.get((i + m) % modules.size()));
+				}
+			}
+
+			ds.registerStudent(student);
+			students.add(student);
+		}
+
+		return students;
+	}
+
+}
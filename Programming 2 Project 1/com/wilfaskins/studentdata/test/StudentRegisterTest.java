@@ -2,7 +2,10 @@ package com.wilfaskins.studentdata.test;
 
 import static org.junit.Assert.*;
 
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.Calendar;
+import java.util.Date;
 
 import org.junit.Test;
 
@@ -11,7 +14,9 @@ import com.wilfaskins.studentdata.Supervisor;
 import com.wilfaskins.studentdata.students.PostgraduateResearchStudent;
 import com.wilfaskins.studentdata.students.PostgraduateTaughtStudent;
 import com.wilfaskins.studentdata.students.Student;
+import com.wilfaskins.studentdata.students.StudentType;
 import com.wilfaskins.studentdata.students.UndergraduateStudent;
+import com.wilfaskins.studentdata.students.id.Eligibility;
 import com.wilfaskins.studentdata.students.id.StudentName;
 
 /**
@@ -267,4 +272,45 @@ public class StudentRegisterTest {
 		ds.registerStudent(student); // Register the student a second time
 	}
 
+	/**
+	 * Tests whether a student becomes old enough on their birthday, and not the day before.
+	 */
+	@Test
+	public void birthdayEligibilityTest() {
+		
+		LocalDate today = LocalDate.now();
+		
+		Date seventeenToday = toDate(today.minusYears(17));
+		Date seventeenTomorrow = toDate(today.minusYears(17).plusDays(1));
+		
+		assertTrue(Eligibility.isOldEnough(StudentType.UNDERGRADUATE, seventeenToday));
+		assertFalse(Eligibility.isOldEnough(StudentType.UNDERGRADUATE, seventeenTomorrow));
+		assertFalse(Eligibility.isOldEnough(StudentType.POSTGRADUATE_TAUGHT, seventeenToday)); // Postgraduates must be 20
+		assertTrue(Eligibility.isOldEnough(StudentType.POSTGRADUATE_TAUGHT, toDate(today.minusYears(20))));
+	}
+	
+	/**
+	 * Tests checking a whole batch of students at once.
+	 */
+	@Test
+	public void batchEligibilityTest() {
+		
+		LocalDate today = LocalDate.now();
+		
+		StudentType[] types = { StudentType.UNDERGRADUATE, StudentType.POSTGRADUATE_RESEARCH, StudentType.UNDERGRADUATE, StudentType.POSTGRADUATE_TAUGHT };
+		Date[] datesOfBirth = { toDate(today.minusYears(18)), toDate(today.minusYears(19)), toDate(today.minusYears(16)), toDate(today.minusYears(30)) };
+		
+		assertArrayEquals(new int[]{ 1, 2 }, Eligibility.findTooYoung(types, datesOfBirth)); // Check only the two young students were found
+	}
+	
+	/**
+	 * Converts a local date to the start of that day.
+	 *
+	 * @param date the local date
+	 * @return the date
+	 */
+	private static Date toDate(LocalDate date) {
+		return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+	}
+
 }
@@ -12,6 +12,7 @@ import org.junit.Test;
 
 import com.wilfaskins.studentdata.students.StudentType;
 import com.wilfaskins.studentdata.students.id.SmartCard;
+import com.wilfaskins.studentdata.students.id.SmartCardNumber;
 import com.wilfaskins.studentdata.students.id.StudentID;
 import com.wilfaskins.studentdata.students.id.StudentName;
 
@@ -66,4 +67,77 @@ public class UniquenessTest {
 		assertEquals(studentIDs.size(), fullIDs.distinct().count());
 	}
 
+	/**
+	 * Tests whether asking for more student IDs than are left fails without reserving any of them.
+	 */
+	@Test
+	public void studentIDRangeFail() {
+		
+		int lastIssued = StudentID.getLastIssued();
+		
+		try{
+			StudentID.createStudentIDs(Integer.MAX_VALUE);
+			fail("More StudentIDs were created than there are");
+		}catch(IllegalStateException e){
+			// There aren't that many IDs
+		}
+		
+		assertTrue(StudentID.getLastIssued() >= lastIssued); // Other tests may have issued IDs, but the range wasn't reserved
+		assertTrue(StudentID.getLastIssued() < lastIssued + 1000);
+		
+		StudentID[] ids = StudentID.createStudentIDs(2); // Check IDs can still be issued afterwards
+		
+		assertEquals(ids[0].toInt() + 1, ids[1].toInt());
+	}
+
+	/**
+	 * Tests whether a student ID's text is worked out from its number, and that IDs with the same number are equal.
+	 */
+	@Test
+	public void studentIDFormatTest() {
+		
+		StudentID id = StudentID.valueOf(10042); // The 42nd ID after the first rollover
+		
+		assertEquals('b', id.getLetter());
+		assertEquals("0042", id.getNumber());
+		assertEquals("b0042", id.getFullID());
+		
+		StudentID same = StudentID.valueOf(10042);
+		
+		assertEquals(id, same); // Check IDs are compared by their number
+		assertEquals(id.hashCode(), same.hashCode());
+		assertNotEquals(id, StudentID.valueOf(42));
+		
+		assertTrue(StudentID.createStudentID().toInt() > id.toInt()); // Check the restored ID isn't issued again
+	}
+
+	/**
+	 * Tests whether full names are written with a space between each part, and that names share their parts.
+	 */
+	@Test
+	public void studentNameFormatTest() {
+		
+		StudentName name = new StudentName("Wilfrid", "Askins");
+		StudentName middle = new StudentName("Wilfrid", "Askins", "James Peter");
+		
+		assertFalse(name.hasMiddleNames());
+		assertTrue(middle.hasMiddleNames());
+		assertEquals("Wilfrid Askins", name.getFullName());
+		assertEquals("Wilfrid James Peter Askins", middle.getFullName());
+		assertSame(name.getFullName(), name.getFullName()); // Check the full name is only built once
+		
+		StudentName copy = new StudentName(new String("Wilfrid"), new String("Askins"));
+		
+		assertSame(name.getFirstName(), copy.getFirstName()); // Check the parts are shared between names
+		assertSame(name.getLastName(), copy.getLastName());
+		assertEquals(name, copy);
+		
+		SmartCardNumber number = SmartCardNumber.getNext(middle, "2017");
+		
+		assertEquals("W", number.getFirstInitial());
+		assertEquals("A", number.getLastInitial());
+		assertTrue(number.getFullNumber().startsWith("WA-2017-"));
+		assertEquals(number, SmartCardNumber.valueOf("W", "A", "2017", number.getSerialNumber()));
+	}
+
 }